@@ -0,0 +1,77 @@
+package de.konfidas.ttc.benchmarks;
+
+import de.konfidas.ttc.messages.BenchmarkLogMessages;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import de.konfidas.ttc.tars.MappedLogMessageArchive;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of synthetic TAR archives with the given number of log messages. The messages have a fixed
+ * signature value, so that archives with millions of messages can be created in reasonable time. The archives are
+ * written to the directory given by the system property ttc.benchmark.data (default target/benchmark-data) and
+ * are reused by later runs.
+ *
+ * Parsing all messages eagerly keeps them in memory, so the archives with 1M and 10M messages need a large heap,
+ * see the README.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchiveParsingBenchmark {
+    @Param({"10000", "1000000", "10000000"}) //NON-NLS
+    public long numberOfMessages;
+
+    /**
+     * sequential: LogMessageArchiveImplementation.parse,
+     * parallel: parse with a parser executor with one thread per core,
+     * lazy: parse into LazyLogMessages,
+     * streaming: only read the archive, the messages are parsed on iteration,
+     * mapped: MappedLogMessageArchive, which decodes on access.
+     */
+    @Param({"sequential", "parallel", "lazy", "streaming", "mapped"}) //NON-NLS
+    public String mode;
+
+    File tar;
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void createArchive() throws Exception {
+        File directory = new File(System.getProperty("ttc.benchmark.data", "target/benchmark-data")); //NON-NLS
+        tar = BenchmarkLogMessages.getArchive(directory, numberOfMessages, TestCaseBasisWithCA.getClientCertificate());
+        if ("parallel".equals(mode)) { //NON-NLS
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        if (null != executor) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        switch (mode) {
+            case "parallel": //NON-NLS
+                return new LogMessageArchiveImplementation().setParserExecutor(executor).parse(tar);
+            case "lazy": //NON-NLS
+                return new LogMessageArchiveImplementation().setLazyParsing(true).parse(tar);
+            case "streaming": //NON-NLS
+                return new LogMessageArchiveImplementation().setStreaming(true).parse(tar);
+            case "mapped": //NON-NLS
+                return new MappedLogMessageArchive(tar);
+            default:
+                return new LogMessageArchiveImplementation().parse(tar);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package de.konfidas.ttc.benchmarks;
+
+import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
+import de.konfidas.ttc.messages.BenchmarkLogMessages;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageFactory;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures LogMessageFactory.createLogMessage for each type of log message. The system log is an unblockUser log,
+ * which was exported from a real TSE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogMessageParsingBenchmark {
+    static final File SYSTEM_LOG = new File("testdata/systemlogs/unblockuser/Unixt_1615365891_Sig-117_Log-Sys_unblockUser.log"); //NON-NLS
+
+    @Param({"AUDIT", "START_TRANSACTION", "UPDATE_TRANSACTION", "FINISH_TRANSACTION", "UNBLOCK_USER"}) //NON-NLS
+    public String messageType;
+
+    String fileName;
+    byte[] content;
+
+    @Setup(Level.Trial)
+    public void createMessage() throws Exception {
+        if ("UNBLOCK_USER".equals(messageType)) { //NON-NLS
+            fileName = SYSTEM_LOG.getName();
+            content = Files.readAllBytes(SYSTEM_LOG.toPath());
+        } else {
+            BenchmarkLogMessages.Message msg = BenchmarkLogMessages.create(BenchmarkLogMessages.Type.valueOf(messageType),
+                    BigInteger.valueOf(4711), BigInteger.valueOf(42), TestCaseBasisWithCA.getClientCertKeyPair().getPrivate());
+            fileName = msg.fileName;
+            content = msg.content;
+        }
+    }
+
+    @Benchmark
+    public LogMessage createLogMessage() throws BadFormatForLogMessageException {
+        return LogMessageFactory.createLogMessage(fileName, content);
+    }
+
+    @Benchmark
+    public LogMessage createLazyLogMessage() throws BadFormatForLogMessageException {
+        return LogMessageFactory.createLazyLogMessage(fileName, content);
+    }
+}
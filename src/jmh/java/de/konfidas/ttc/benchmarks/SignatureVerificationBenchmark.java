@@ -0,0 +1,55 @@
+package de.konfidas.ttc.benchmarks;
+
+import de.konfidas.ttc.exceptions.LogMessageVerificationException;
+import de.konfidas.ttc.messages.BenchmarkLogMessages;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageFactory;
+import de.konfidas.ttc.messages.LogMessageSignatureVerifier;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.security.Security;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures LogMessageSignatureVerifier.verify for a log message, which was signed with the key of the client
+ * certificate of the test CA.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureVerificationBenchmark {
+    @Param({"AUDIT", "START_TRANSACTION"}) //NON-NLS
+    public String messageType;
+
+    @Param({"false", "true"}) //NON-NLS
+    public boolean lazy;
+
+    LogMessage msg;
+    LogMessageSignatureVerifier verifier;
+
+    @Setup(Level.Trial)
+    public void createMessage() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        BenchmarkLogMessages.Message created = BenchmarkLogMessages.create(BenchmarkLogMessages.Type.valueOf(messageType),
+                BigInteger.valueOf(4711), BigInteger.valueOf(42), TestCaseBasisWithCA.getClientCertKeyPair().getPrivate());
+        msg = lazy ? LogMessageFactory.createLazyLogMessage(created.fileName, created.content)
+                : LogMessageFactory.createLogMessage(created.fileName, created.content);
+        verifier = new LogMessageSignatureVerifier(Collections.singletonMap(
+                Hex.encodeHexString(BenchmarkLogMessages.SERIAL).toUpperCase(), TestCaseBasisWithCA.getClientCertificate()));
+        // fail early, if the setup is broken
+        verifier.verify(msg);
+    }
+
+    @Benchmark
+    public void verify() throws LogMessageVerificationException {
+        verifier.verify(msg);
+    }
+}
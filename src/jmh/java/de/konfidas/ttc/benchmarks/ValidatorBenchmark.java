@@ -0,0 +1,73 @@
+package de.konfidas.ttc.benchmarks;
+
+import de.konfidas.ttc.messages.BenchmarkLogMessages;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import de.konfidas.ttc.validation.*;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.security.Security;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each Validator on a parsed archive with signed log messages. Validators keep state between calls, so
+ * every invocation uses a new instance. The TransactionCounterValidator is not included, as it is incomplete and
+ * can not be created outside of its package.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidatorBenchmark {
+    @Param({"10000"}) //NON-NLS
+    public long numberOfMessages;
+
+    @Param({"CertificateFileNameValidator", "CertificateValidator", "TimeStampValidator", "SignatureCounterValidator", //NON-NLS
+            "LogMessageFileNameValidator", "LogMessageSignatureValidator"}) //NON-NLS
+    public String validator;
+
+    LogMessageArchiveImplementation archive;
+
+    @Setup(Level.Trial)
+    public void createArchive() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        File tar = Files.createTempFile("validator-benchmark", ".tar").toFile(); //NON-NLS
+        tar.deleteOnExit();
+        Files.delete(tar.toPath());
+        BenchmarkLogMessages.writeArchive(tar, numberOfMessages, TestCaseBasisWithCA.getClientCertificate(),
+                TestCaseBasisWithCA.getClientCertKeyPair().getPrivate());
+        archive = new LogMessageArchiveImplementation(tar);
+        // sort once, so that all validators measure the same work
+        archive.getSortedLogMessages();
+    }
+
+    Validator createValidator() {
+        switch (validator) {
+            case "CertificateFileNameValidator": //NON-NLS
+                return new CertificateFileNameValidator();
+            case "CertificateValidator": //NON-NLS
+                return new CertificateValidator(Collections.singleton(TestCaseBasisWithCA.getRootCACertificate())).setEnableRevocationChecking(false);
+            case "TimeStampValidator": //NON-NLS
+                return new TimeStampValidator();
+            case "SignatureCounterValidator": //NON-NLS
+                return new SignatureCounterValidator();
+            case "LogMessageFileNameValidator": //NON-NLS
+                return new LogMessageFileNameValidator();
+            case "LogMessageSignatureValidator": //NON-NLS
+                return new LogMessageSignatureValidator();
+            default:
+                throw new IllegalArgumentException(validator);
+        }
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return createValidator().validate(archive);
+    }
+}
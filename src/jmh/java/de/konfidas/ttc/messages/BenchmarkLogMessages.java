@@ -0,0 +1,151 @@
+package de.konfidas.ttc.messages;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.bouncycastle.asn1.DEROctetString;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.PrivateKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Creates the log messages and TAR archives for the benchmarks with the builders of the tests.
+ *
+ * The builders name transaction logs differently from a TSE, so the file names are created here, such that the
+ * LogMessageFactory recognizes every message.
+ */
+public class BenchmarkLogMessages {
+    public static final byte[] SERIAL = "BenchmarkSerial".getBytes(StandardCharsets.UTF_8); //NON-NLS
+    static final long FIRST_LOG_TIME = 1600000000L;
+
+    public enum Type {
+        AUDIT, START_TRANSACTION, UPDATE_TRANSACTION, FINISH_TRANSACTION
+    }
+
+    /**
+     * A log message and its file name.
+     */
+    public static class Message {
+        public final String fileName;
+        public final byte[] content;
+
+        Message(String fileName, byte[] content) {
+            this.fileName = fileName;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Creates a log message.
+     * @param key key to sign the message with. If it is null, the message gets a fixed signature value, which is
+     *            much faster for large archives, but can not be verified.
+     */
+    public static Message create(Type type, BigInteger signatureCounter, BigInteger transactionNumber, PrivateKey key) throws LogMessageBuilder.TestLogMessageCreationError {
+        long logTime = FIRST_LOG_TIME + signatureCounter.longValue();
+        LogMessageBuilder builder;
+        String fileName;
+        switch (type) {
+            case AUDIT:
+                builder = new AuditLogMessageBuilder();
+                fileName = "Unixt_" + logTime + "_Sig-" + signatureCounter + "_Log-Aud.log"; //NON-NLS
+                break;
+            case START_TRANSACTION:
+                builder = transaction(new StartTransactionLogMessageBuilder(), transactionNumber);
+                fileName = "Unixt_" + logTime + "_Sig-" + signatureCounter + "_Log-Tra_No-" + transactionNumber + "_Start_Client-Benchmark.log"; //NON-NLS
+                break;
+            case UPDATE_TRANSACTION:
+                builder = transaction(new UpdateTransactionLogMessageBuilder(), transactionNumber);
+                fileName = "Unixt_" + logTime + "_Sig-" + signatureCounter + "_Log-Tra_No-" + transactionNumber + "_Update_Client-Benchmark.log"; //NON-NLS
+                break;
+            default:
+                builder = transaction(new FinishTransactionLogMessageBuilder(), transactionNumber);
+                fileName = "Unixt_" + logTime + "_Sig-" + signatureCounter + "_Log-Tra_No-" + transactionNumber + "_Finish_Client-Benchmark.log"; //NON-NLS
+        }
+
+        builder.setSerialNumber(SERIAL)
+                .setSignatureCounter(signatureCounter)
+                .setLogTimeUnixTime(logTime);
+        builder.prepare().calculateDTBS();
+        if (null == key) {
+            builder.signatureValueAsASN1 = new DEROctetString(new byte[64]);
+        } else {
+            builder.sign(key);
+        }
+        return new Message(fileName, builder.build().finalizeMessage());
+    }
+
+    static LogMessageBuilder transaction(TransactionLogMessageBuilder builder, BigInteger transactionNumber) {
+        builder.setClientID("Benchmark"); //NON-NLS
+        builder.setProcessType("Kassenbeleg-V1"); //NON-NLS
+        builder.setProcessData(new byte[32]);
+        builder.setTransactionNumber(transactionNumber);
+        return builder;
+    }
+
+    /**
+     * @return the type of the i-th message of a benchmark archive. The archive contains transactions, which are
+     * started, updated and finished, each followed by an audit log.
+     */
+    static Type typeOf(long i) {
+        int position = (int) (i % 4);
+        return (position == 3) ? Type.AUDIT : Type.values()[1 + position];
+    }
+
+    /**
+     * Writes a TAR archive with info.csv, the client certificate and the given number of log messages. The
+     * messages are created one after another, so that the archive does not have to fit into memory.
+     * @param key key to sign the messages with, or null for messages with a fixed signature value.
+     */
+    public static File writeArchive(File tarFile, long numberOfMessages, X509Certificate certificate, PrivateKey key) throws IOException, LogMessageBuilder.TestLogMessageCreationError, CertificateEncodingException {
+        File tmp = new File(tarFile.getPath() + ".tmp"); //NON-NLS
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            out.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+            out.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+            String info = "\"description:\",\"TTC Benchmark TSE\",\"manufacturer:\",\"konfidas\",\"version:\",\"1.0\""; //NON-NLS
+            write(out, "info.csv", info.getBytes(StandardCharsets.UTF_8)); //NON-NLS
+            write(out, Hex.encodeHexString(SERIAL).toUpperCase() + "_X509.cer", certificate.getEncoded()); //NON-NLS
+
+            BigInteger transactionNumber = BigInteger.ZERO;
+            for (long i = 0; i < numberOfMessages; i++) {
+                Type type = typeOf(i);
+                if (type == Type.START_TRANSACTION) {
+                    transactionNumber = transactionNumber.add(BigInteger.ONE);
+                }
+                Message msg = create(type, BigInteger.valueOf(i + 1), transactionNumber, key);
+                write(out, msg.fileName, msg.content);
+            }
+        }
+        Files.move(tmp.toPath(), tarFile.toPath());
+        return tarFile;
+    }
+
+    /**
+     * Returns the archive with the given number of unsigned messages from the directory, and writes it first, if it
+     * does not exist yet. Large archives take long to write, so they are reused by later runs.
+     */
+    public static File getArchive(File directory, long numberOfMessages, X509Certificate certificate) throws IOException, LogMessageBuilder.TestLogMessageCreationError, CertificateEncodingException {
+        File tarFile = new File(directory, "benchmark-" + numberOfMessages + ".tar"); //NON-NLS
+        if (!tarFile.exists()) {
+            Files.createDirectories(directory.toPath());
+            writeArchive(tarFile, numberOfMessages, certificate, null);
+        }
+        return tarFile;
+    }
+
+    static void write(TarArchiveOutputStream out, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+}
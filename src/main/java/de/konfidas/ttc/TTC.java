@@ -2,11 +2,19 @@ package de.konfidas.ttc;
 
 import de.konfidas.ttc.exceptions.BadFormatForTARException;
 import de.konfidas.ttc.exceptions.CertificateLoadException;
+import de.konfidas.ttc.metrics.Metrics;
+import de.konfidas.ttc.reporting.BinaryReporter;
 import de.konfidas.ttc.reporting.HtmlReporter;
+import de.konfidas.ttc.reporting.JsonLinesReporter;
+import de.konfidas.ttc.reporting.MetricsSection;
+import de.konfidas.ttc.reporting.PagedHtmlReporter;
 import de.konfidas.ttc.reporting.Reporter;
+import de.konfidas.ttc.reporting.StreamingReporter;
 import de.konfidas.ttc.reporting.TextReporter;
+import de.konfidas.ttc.tars.AggregatedLogMessageArchive;
 import de.konfidas.ttc.tars.LogMessageArchive;
 import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import de.konfidas.ttc.tars.MappedLogMessageArchive;
 import de.konfidas.ttc.utilities.CertificateHelper;
 import de.konfidas.ttc.validation.*;
 import org.apache.commons.cli.*;
@@ -14,8 +22,7 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
@@ -23,6 +30,8 @@ import java.nio.file.Path;
 import java.security.Security;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static ch.qos.logback.classic.Level.*;
 
@@ -31,6 +40,7 @@ public class TTC {
     final static ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
     static Locale locale = new Locale("de", "DE"); //NON-NLS
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+    static final String REPORT_PHASE = "report"; //NON-NLS
 
     public static void main(String[] args) {
         Security.addProvider(new BouncyCastleProvider());
@@ -44,6 +54,16 @@ public class TTC {
         options.addOption("e", "errorsOnly", false, properties.getString("de.konfidas.ttc.help_errorsOnly"));//NON-NLS
         options.addOption("g", "generateHtmlReport", true, properties.getString("de.konfidas.ttc.help_htmlOut"));//NON-NLS
         options.addOption("v", "validator", true, properties.getString("de.konfidas.ttc.help_selectValidators"));//NON-NLS
+        options.addOption("s", "streaming", false, properties.getString("de.konfidas.ttc.help_streaming"));//NON-NLS
+        options.addOption("i", "index", false, properties.getString("de.konfidas.ttc.help_index"));//NON-NLS
+        options.addOption("m", "mapped", false, properties.getString("de.konfidas.ttc.help_mapped"));//NON-NLS
+        options.addOption("l", "lazy", false, properties.getString("de.konfidas.ttc.help_lazy"));//NON-NLS
+        options.addOption("p", "threads", true, properties.getString("de.konfidas.ttc.help_threads"));//NON-NLS
+        options.addOption("k", "checkpoint", true, properties.getString("de.konfidas.ttc.help_checkpoint"));//NON-NLS
+        options.addOption("r", "pagedHtmlReport", true, properties.getString("de.konfidas.ttc.help_pagedHtmlReport"));//NON-NLS
+        options.addOption("j", "jsonLinesReport", true, properties.getString("de.konfidas.ttc.help_jsonLinesReport"));//NON-NLS
+        options.addOption("b", "binaryReport", true, properties.getString("de.konfidas.ttc.help_binaryReport"));//NON-NLS
+        options.addOption("x", "metrics", false, properties.getString("de.konfidas.ttc.help_metrics"));//NON-NLS
 
         CommandLineParser parser = new DefaultParser();
         CommandLine cmd;
@@ -52,6 +72,11 @@ public class TTC {
         X509Certificate trustedCert = null;
         Boolean skipLegitLogMessagesInReporting = false;
         Collection<Validator> listOfValidators = new ArrayList<>();
+        int threads = 1;
+        ExecutorService executor = null;
+        // the validators get their own threads, as the signature validator waits for its batches on executor. Like
+        // executor, it is bounded by the number of threads, as it runs one task per batch of serial numbers.
+        ExecutorService validatorExecutor = null;
 
 
         /*********************************
@@ -72,6 +97,32 @@ public class TTC {
                 skipLegitLogMessagesInReporting = true;
             }
 
+            if (cmd.hasOption("p")) {//NON-NLS
+                try {
+                    threads = Integer.parseInt(cmd.getOptionValue("p"));//NON-NLS
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                }
+                if (threads < 1) {
+                    logger.error(properties.getString("de.konfidas.ttc.invalidNumberOfThreads"));//NON-NLS
+                    System.exit(1);
+                }
+                if (threads > 1) {
+                    executor = Executors.newFixedThreadPool(threads);
+                    validatorExecutor = Executors.newFixedThreadPool(threads);
+                }
+            }
+
+            // checked before the validation, so that no other report is lost, if the HTML report can not be written
+            if (cmd.hasOption("g")) {//NON-NLS
+                String reportPath = cmd.getOptionValue("g");//NON-NLS
+                String fileSuffixOfReportPath = reportPath.substring(reportPath.lastIndexOf(".") + 1);//NON-NLS
+                if ((!fileSuffixOfReportPath.equals("html")) && (!fileSuffixOfReportPath.equals("htm"))) {//NON-NLS
+                    logger.error(properties.getString("de.konfidas.ttc.optionGWrongEnding"));//NON-NLS
+                    System.exit(1);
+                }
+            }
+
             if (!(cmd.hasOption("t") || cmd.hasOption("n"))) {//NON-NLS
                 System.err.println(properties.getString("de.konfidas.ttc.errorParsingCommandEitherRootMustBePresentOrOptionChosen"));
             }
@@ -105,10 +156,13 @@ public class TTC {
                 listOfValidators.add(new CertificateFileNameValidator());
                 listOfValidators.add(new TimeStampValidator());
                 listOfValidators.add(new SignatureCounterValidator());
-                listOfValidators.add(new LogMessageSignatureValidator());
+                listOfValidators.add(new LogMessageFileNameValidator());
+                listOfValidators.add(new DuplicateLogMessageValidator());
+                listOfValidators.add(null == executor ? new LogMessageSignatureValidator() : new LogMessageSignatureValidator(executor, threads));
             }
 
-            AggregatedValidator validator = new AggregatedValidator();
+            final Metrics metrics = cmd.hasOption("x") ? new Metrics() : null;//NON-NLS
+            AggregatedValidator validator = new AggregatedValidator().setExecutor(validatorExecutor, threads).setMetrics(metrics);
             for (Validator val : listOfValidators) {
                 validator.add(val);
             }
@@ -117,8 +171,14 @@ public class TTC {
                 validator.add(new CertificateValidator(Collections.singleton(trustedCert)));
             }
 
+            // restore the state of the validators after the previously validated exports
+            File checkpointFile = cmd.hasOption("k") ? new File(cmd.getOptionValue("k")) : null;//NON-NLS
+            if (null != checkpointFile) {
+                ValidatorCheckpoint.read(checkpointFile, validator);
+            }
+
             Collection<LogMessageArchive> tarArchives = new ArrayList<>();
-            ValidationResult valResults = null;
+            ValidationResult valResults;
             ArrayList<File> inputFiles = new ArrayList<>();
 
             //We are creating the files from the input strings first to make sure that they are existing
@@ -131,26 +191,80 @@ public class TTC {
                     System.exit(1);
                 }
             }
-            for (File inputFile : inputFiles) {
-                LogMessageArchiveImplementation tar = new LogMessageArchiveImplementation(inputFile);
-                tarArchives.add(tar);
-                valResults = validator.validate(tar);
+            final ExecutorService parserExecutor = executor;
+            AggregatedLogMessageArchive.ArchiveLoader loader = inputFile -> {
+                if (cmd.hasOption("m")) {//NON-NLS
+                    return new MappedLogMessageArchive(inputFile, metrics).setLazyParsing(cmd.hasOption("l"));//NON-NLS
+                }
+                return new LogMessageArchiveImplementation()
+                        .setStreaming(cmd.hasOption("s"))//NON-NLS
+                        .setParserExecutor(parserExecutor)
+                        .setUseSidecarIndex(cmd.hasOption("i"))//NON-NLS
+                        .setLazyParsing(cmd.hasOption("l"))//NON-NLS
+                        .setMetrics(metrics)
+                        .parse(inputFile);
+            };
+
+            // Multiple TAR files form one export, so they are merged into one archive and validated once. The
+            // archives are loaded on the validator threads, as their parsers wait for the parser threads.
+            LogMessageArchive tar = (inputFiles.size() == 1) ? loader.load(inputFiles.get(0))
+                    : AggregatedLogMessageArchive.fromFiles(inputFiles, loader, validatorExecutor);
+            tarArchives.add(tar);
+            valResults = validator.validate(tar);
+
+            if (null != checkpointFile) {
+                ValidatorCheckpoint.write(checkpointFile, validator);
             }
 
+            // every requested report is written from the same result, the text report only if no other is requested
+            Metrics.Timer reportTimer = (null == metrics) ? null : metrics.phase(REPORT_PHASE).start();
             if (cmd.hasOption("g")) {//NON-NLS
-                String reportPath = cmd.getOptionValue("g");//NON-NLS
-                String fileSuffixOfReportPath = reportPath.substring(reportPath.lastIndexOf(".") + 1);//NON-NLS
-                if ((!fileSuffixOfReportPath.equals("html")) && (!fileSuffixOfReportPath.equals("htm"))) {//NON-NLS
-                    logger.error(properties.getString("de.konfidas.ttc.optionGWrongEnding"));//NON-NLS
-                    System.exit(1);
-                }
-                HtmlReporter htmlReporter = new HtmlReporter();
+                HtmlReporter htmlReporter = new HtmlReporter().setMetrics(metrics);
                 File reportFile = new File(cmd.getOptionValue("g"));//NON-NLS
-                Files.writeString(reportFile.toPath(), htmlReporter.createReport(tarArchives, valResults, skipLegitLogMessagesInReporting));
+                // the report is written while it is created, so its size is not limited by the heap
+                try (OutputStream out = Files.newOutputStream(reportFile.toPath())) {
+                    htmlReporter.writeReport(out, tarArchives, valResults, skipLegitLogMessagesInReporting);
+                }
+            }
 
-            } else {
-                TextReporter textReporter = new TextReporter();
-                System.out.println(textReporter.createReport(tarArchives, valResults, skipLegitLogMessagesInReporting));
+            if (cmd.hasOption("r")) {//NON-NLS
+                PagedHtmlReporter pagedHtmlReporter = new PagedHtmlReporter(new File(cmd.getOptionValue("r")));//NON-NLS
+                pagedHtmlReporter.createReport(tarArchives, valResults, skipLegitLogMessagesInReporting);
+            }
+
+            if (cmd.hasOption("j")) {//NON-NLS
+                JsonLinesReporter jsonLinesReporter = new JsonLinesReporter();
+                try (OutputStream out = Files.newOutputStream(new File(cmd.getOptionValue("j")).toPath())) {//NON-NLS
+                    jsonLinesReporter.writeReport(out, tarArchives, valResults, skipLegitLogMessagesInReporting);
+                }
+            }
+
+            if (cmd.hasOption("b")) {//NON-NLS
+                BinaryReporter binaryReporter = new BinaryReporter();
+                try (OutputStream out = Files.newOutputStream(new File(cmd.getOptionValue("b")).toPath())) {//NON-NLS
+                    binaryReporter.writeReport(out, tarArchives, valResults);
+                }
+            }
+
+            if (!(cmd.hasOption("g") || cmd.hasOption("r") || cmd.hasOption("j") || cmd.hasOption("b"))) {//NON-NLS
+                TextReporter textReporter = new TextReporter().setMetrics(metrics);
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out), StreamingReporter.BUFFER_SIZE);
+                textReporter.writeReport(out, tarArchives, valResults, skipLegitLogMessagesInReporting);
+                out.write(System.lineSeparator());
+                out.flush();
+            }
+
+            // the reports are written, so the temporary files of the archives are no longer needed
+            for (LogMessageArchive archive : tarArchives) {
+                archive.close();
+            }
+
+            if (null != metrics) {
+                // the report can not contain its own time, so all phases are logged once more
+                reportTimer.close();
+                for (Metrics.Phase phase : metrics.getPhases()) {
+                    logger.info(MetricsSection.describe(phase));
+                }
             }
 
         } catch (BadFormatForTARException e) {
@@ -161,6 +275,13 @@ public class TTC {
             e.printStackTrace();
         } catch (Reporter.ReporterException e) {
             e.printStackTrace();
+        } finally {
+            if (null != executor) {
+                executor.shutdown();
+            }
+            if (null != validatorExecutor) {
+                validatorExecutor.shutdown();
+            }
         }
 
     }
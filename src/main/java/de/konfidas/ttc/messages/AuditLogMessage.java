@@ -1,6 +1,5 @@
 package de.konfidas.ttc.messages;
 
-import de.konfidas.ttc.utilities.ByteArrayOutputStream;
 import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
 import de.konfidas.ttc.utilities.oid;
 import org.bouncycastle.asn1.ASN1OctetString;
@@ -21,15 +20,15 @@ public class AuditLogMessage extends LogMessageImplementation {
     }
 
     @Override
-    void parseCertifiedDataType(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws IOException, LogMessageImplementation.LogMessageParsingException {
-        super.parseCertifiedDataType(dtbsStream,logMessageAsASN1List,logMessageIterator);
+    void parseCertifiedDataType(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws IOException, LogMessageImplementation.LogMessageParsingException {
+        super.parseCertifiedDataType(logMessageAsASN1List,logMessageIterator);
         if(this.certifiedDataType != oid.id_SE_API_SE_audit_log){
             throw new LogMessageImplementation.CertifiedDataTypeParsingException(String.format(properties.getString("de.konfidas.ttc.messages.invalidCertifiedDataType"),this.certifiedDataType.getName()), null);
         }
     }
 
     @Override
-        void parseCertifiedData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+        void parseCertifiedData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
 
             if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.certifiedDataElementNotFound")); }
             ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
@@ -40,7 +39,20 @@ public class AuditLogMessage extends LogMessageImplementation {
 
 
     @Override
-    void parseSeAuditData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    boolean readCertifiedData(DerCursor cursor) {
+        // Audit Logs haben kein certifiedData
+        return this.certifiedDataType == oid.id_SE_API_SE_audit_log;
+    }
+
+    @Override
+    boolean readSeAuditData(DerCursor cursor) {
+        if (!cursor.next(DerCursor.TAG_OCTET_STRING)) { return false; }
+        this.seAuditData = cursor.octets();
+        return true;
+    }
+
+    @Override
+    void parseSeAuditData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.seAuditDataNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof ASN1OctetString)) {
@@ -49,6 +61,5 @@ public class AuditLogMessage extends LogMessageImplementation {
 
         ASN1Primitive element = logMessageIterator.next();
         this.seAuditData = ((ASN1OctetString) element).getOctets();
-        dtbsStream.write(this.getEncodedValue(element));
     }
 }
@@ -0,0 +1,86 @@
+package de.konfidas.ttc.messages;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The 64 bit digest of the content of a log message: its XXH64 hash with seed 0. The hash is not cryptographic,
+ * but fast enough to be computed for every log message, while it is parsed. Log messages with different digests
+ * differ. Equal digests make equal content very likely, so only then the full content has to be compared.
+ */
+public final class ContentDigest {
+    static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    static final long PRIME_3 = 0x165667B19E3779F9L;
+    static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ContentDigest() {
+    }
+
+    /**
+     * @return the digest of the given content.
+     */
+    public static long of(byte[] content) {
+        int length = content.length;
+        int i = 0;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = PRIME_1 + PRIME_2;
+            long v2 = PRIME_2;
+            long v3 = 0;
+            long v4 = -PRIME_1;
+            for (; i <= length - 32; i += 32) {
+                v1 = round(v1, (long) LONGS.get(content, i));
+                v2 = round(v2, (long) LONGS.get(content, i + 8));
+                v3 = round(v3, (long) LONGS.get(content, i + 16));
+                v4 = round(v4, (long) LONGS.get(content, i + 24));
+            }
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME_5;
+        }
+        hash += length;
+
+        for (; i <= length - 8; i += 8) {
+            hash ^= round(0, (long) LONGS.get(content, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        if (i <= length - 4) {
+            hash ^= (Integer.toUnsignedLong((int) INTS.get(content, i))) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            i += 4;
+        }
+        for (; i < length; i++) {
+            hash ^= (content[i] & 0xffL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    static long round(long accumulator, long input) {
+        accumulator += input * PRIME_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME_1;
+    }
+
+    static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME_1 + PRIME_4;
+    }
+}
@@ -0,0 +1,198 @@
+package de.konfidas.ttc.messages;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A cursor, which walks over the DER encoded elements of a log message without creating objects for them. After a
+ * successful call to next(), tag, offset and length of the value of the current element are available, and the
+ * value can be converted on demand.
+ *
+ * The cursor only supports what TR-03151 log messages use: tags with a number below 31 and definite lengths of at
+ * most 4 bytes. For anything else, next() returns false, so that the caller can fall back to BouncyCastle, which
+ * also creates the proper error messages.
+ */
+class DerCursor {
+    static final int TAG_INTEGER = 0x02;
+    static final int TAG_OCTET_STRING = 0x04;
+    static final int TAG_OBJECT_IDENTIFIER = 0x06;
+    static final int TAG_UTC_TIME = 0x17;
+    static final int TAG_GENERALIZED_TIME = 0x18;
+    static final int TAG_SEQUENCE = 0x30;
+
+    final byte[] data;
+    int position;
+    int end;
+
+    // the current element
+    int tag;
+    int offset;
+    int valueOffset;
+    int valueLength;
+
+    DerCursor(byte[] data) {
+        this.data = data;
+        this.position = 0;
+        this.end = data.length;
+    }
+
+    boolean hasNext() {
+        return position < end;
+    }
+
+    /**
+     * @return the tag of the next element, or -1 if there is none.
+     */
+    int peekTag() {
+        return hasNext() ? data[position] & 0xff : -1;
+    }
+
+    /**
+     * Moves to the next element.
+     * @return false, if there is no next element or its encoding is not supported. The cursor is not moved then.
+     */
+    boolean next() {
+        if (position + 2 > end) {
+            return false;
+        }
+        int t = data[position] & 0xff;
+        if ((t & 0x1f) == 0x1f) {
+            return false;
+        }
+        int lengthOffset = position + 1;
+        int first = data[lengthOffset] & 0xff;
+        int length;
+        int start;
+        if (first < 0x80) {
+            length = first;
+            start = lengthOffset + 1;
+        } else {
+            int numberOfLengthBytes = first & 0x7f;
+            if (numberOfLengthBytes == 0 || numberOfLengthBytes > 4 || lengthOffset + numberOfLengthBytes >= end) {
+                return false;
+            }
+            long l = 0;
+            for (int i = 1; i <= numberOfLengthBytes; i++) {
+                l = (l << 8) | (data[lengthOffset + i] & 0xff);
+            }
+            if (l > Integer.MAX_VALUE) {
+                return false;
+            }
+            length = (int) l;
+            start = lengthOffset + 1 + numberOfLengthBytes;
+        }
+        if ((long) start + length > end) {
+            return false;
+        }
+        tag = t;
+        offset = position;
+        valueOffset = start;
+        valueLength = length;
+        position = start + length;
+        return true;
+    }
+
+    /**
+     * Moves to the next element, if it has the expected tag.
+     */
+    boolean next(int expectedTag) {
+        return peekTag() == expectedTag && next();
+    }
+
+    /**
+     * Moves into the value of the current (constructed) element.
+     * @return the end of the enclosing element, which has to be passed to leave().
+     */
+    int enter() {
+        int outerEnd = end;
+        position = valueOffset;
+        end = valueOffset + valueLength;
+        return outerEnd;
+    }
+
+    /**
+     * Moves behind the element, which was entered last.
+     */
+    void leave(int outerEnd) {
+        position = end;
+        end = outerEnd;
+    }
+
+    /**
+     * @return the value of the current INTEGER, or Integer.MIN_VALUE if it does not fit into an int.
+     */
+    int intValue() {
+        if (valueLength == 0 || valueLength > 4) {
+            return Integer.MIN_VALUE;
+        }
+        int result = data[valueOffset];
+        for (int i = 1; i < valueLength; i++) {
+            result = (result << 8) | (data[valueOffset + i] & 0xff);
+        }
+        return result;
+    }
+
+    BigInteger bigIntegerValue() {
+        return new BigInteger(data, valueOffset, valueLength);
+    }
+
+    byte[] octets() {
+        return Arrays.copyOfRange(data, valueOffset, valueOffset + valueLength);
+    }
+
+    byte[] encoded() {
+        return Arrays.copyOfRange(data, offset, valueOffset + valueLength);
+    }
+
+    String printableString() {
+        // like BouncyCastle, every byte is taken as one character
+        return new String(data, valueOffset, valueLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return true, if the current element is a valid INTEGER value, i.e. not empty and minimally encoded.
+     */
+    boolean isValidInteger() {
+        if (valueLength == 0) {
+            return false;
+        }
+        if (valueLength == 1) {
+            return true;
+        }
+        int first = data[valueOffset];
+        int second = data[valueOffset + 1] & 0x80;
+        return !((first == 0 && second == 0) || (first == -1 && second != 0));
+    }
+
+    /**
+     * @return the current OBJECT IDENTIFIER in dotted notation, or null if it is malformed.
+     */
+    String objectIdentifier() {
+        if (valueLength == 0) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder();
+        long value = 0;
+        boolean first = true;
+        for (int i = valueOffset; i < valueOffset + valueLength; i++) {
+            int b = data[i] & 0xff;
+            if (value > (Long.MAX_VALUE >> 7)) {
+                return null;
+            }
+            value = (value << 7) | (b & 0x7f);
+            if ((b & 0x80) == 0) {
+                if (first) {
+                    int arc = (int) Math.min(value / 40, 2);
+                    result.append(arc).append('.').append(value - 40L * arc);
+                    first = false;
+                } else {
+                    result.append('.').append(value);
+                }
+                value = 0;
+            }
+        }
+        // the last byte of an OBJECT IDENTIFIER must not have the continuation bit set
+        return (data[valueOffset + valueLength - 1] & 0x80) == 0 ? result.toString() : null;
+    }
+}
@@ -0,0 +1,266 @@
+package de.konfidas.ttc.messages;
+
+import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
+import de.konfidas.ttc.messages.logtime.GeneralizedLogTime;
+import de.konfidas.ttc.messages.logtime.LogTime;
+import de.konfidas.ttc.messages.logtime.UnixLogTime;
+import de.konfidas.ttc.messages.logtime.UtcLogTime;
+import de.konfidas.ttc.utilities.oid;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.ASN1UTCTime;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * A log message, which keeps only its encoding and the LogMessageLayout of its top level elements. Serial number,
+ * signature counter, log time, signature value and DTBS are decoded from the encoding, when they are requested for
+ * the first time. All other fields, especially certifiedData, require a full parse with the LogMessageImplementation
+ * of the message type. This parse is also done on first access, and its result is only softly referenced.
+ *
+ * The constructor only checks the layout of the message, i.e. that all mandatory elements are present and have the
+ * expected tags. Errors in the content of an element are detected by the getters, which throw a
+ * LogMessageDecodingException in this case.
+ */
+public class LazyLogMessage implements LogMessage {
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    static final int TAG_INTEGER = 0x02;
+    static final int TAG_OCTET_STRING = 0x04;
+    static final int TAG_OBJECT_IDENTIFIER = 0x06;
+    static final int TAG_SEQUENCE = 0x30;
+    static final int TAG_UTC_TIME = 0x17;
+    static final int TAG_GENERALIZED_TIME = 0x18;
+
+    final String filename;
+    final byte[] encoded;
+    final LogMessageLayout layout;
+    // computed right after the scan, while the content is still in the cache
+    final long contentDigest;
+
+    // positions of the elements in the layout, -1 if an optional element is missing
+    final int serialNumberIndex;
+    final int signatureAlgorithmIndex;
+    final int seAuditDataIndex;
+    final int signatureCounterIndex;
+    final int logTimeIndex;
+    final int signatureValueIndex;
+
+    byte[] serialNumber;
+    SerialNumber internedSerialNumber;
+    BigInteger signatureCounter;
+    LogTime logTime;
+    SoftReference<LogMessageImplementation> logMessage = new SoftReference<>(null);
+
+    public LazyLogMessage(String filename, byte[] content) throws BadFormatForLogMessageException {
+        this.filename = filename;
+        this.encoded = content;
+        try {
+            this.layout = LogMessageLayout.scan(content);
+        } catch (IOException e) {
+            throw new BadFormatForLogMessageException(String.format(properties.getString("de.konfidas.ttc.messages.lazyParsingFailed"), filename), e);
+        }
+
+        // version and certifiedDataType are followed by the elements of certifiedData, which all have context
+        // specific tags. Hence, the first OCTET STRING is the serial number.
+        int size = layout.size();
+        int serial = 2;
+        while (serial < size && layout.getTag(serial) != TAG_OCTET_STRING) {
+            serial++;
+        }
+        this.serialNumberIndex = serial;
+        this.signatureAlgorithmIndex = serial + 1;
+        this.signatureValueIndex = size - 1;
+        this.logTimeIndex = size - 2;
+
+        int counter = size - 3;
+        this.signatureCounterIndex = (counter > signatureAlgorithmIndex && layout.getTag(counter) == TAG_INTEGER) ? counter : -1;
+        int audit = signatureAlgorithmIndex + 1;
+        this.seAuditDataIndex = (audit < logTimeIndex && audit != signatureCounterIndex && layout.getTag(audit) == TAG_OCTET_STRING) ? audit : -1;
+
+        if (size < 6 || layout.getTag(0) != TAG_INTEGER || layout.getTag(1) != TAG_OBJECT_IDENTIFIER
+                || logTimeIndex <= signatureAlgorithmIndex || layout.getTag(signatureAlgorithmIndex) != TAG_SEQUENCE
+                || !isLogTimeTag(layout.getTag(logTimeIndex)) || layout.getTag(signatureValueIndex) != TAG_OCTET_STRING) {
+            throw new BadFormatForLogMessageException(String.format(properties.getString("de.konfidas.ttc.messages.lazyParsingFailed"), filename));
+        }
+        this.contentDigest = ContentDigest.of(content);
+    }
+
+    static boolean isLogTimeTag(int tag) {
+        return tag == TAG_INTEGER || tag == TAG_UTC_TIME || tag == TAG_GENERALIZED_TIME;
+    }
+
+    /**
+     * @return the layout of the top level elements of this log message.
+     */
+    public LogMessageLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return this log message, parsed by the LogMessageImplementation of its type.
+     * @throws LogMessageDecodingException if the log message can not be parsed.
+     */
+    public synchronized LogMessageImplementation getLogMessage() {
+        LogMessageImplementation msg = logMessage.get();
+        if (null == msg) {
+            try {
+                msg = LogMessageFactory.createLogMessage(filename, encoded);
+            } catch (BadFormatForLogMessageException e) {
+                throw new LogMessageDecodingException(e);
+            }
+            logMessage = new SoftReference<>(msg);
+        }
+        return msg;
+    }
+
+    @Override
+    public synchronized byte[] getSerialNumber() {
+        if (null == serialNumber) {
+            serialNumber = layout.getValue(serialNumberIndex);
+        }
+        return serialNumber;
+    }
+
+    @Override
+    public synchronized SerialNumber getInternedSerialNumber() {
+        if (null == internedSerialNumber) {
+            internedSerialNumber = SerialNumber.of(getSerialNumber());
+        }
+        return internedSerialNumber;
+    }
+
+    @Override
+    public synchronized BigInteger getSignatureCounter() {
+        if (null == signatureCounter) {
+            if (signatureCounterIndex < 0) {
+                // let the full parse report the missing counter
+                return getLogMessage().getSignatureCounter();
+            }
+            signatureCounter = new BigInteger(layout.getValue(signatureCounterIndex));
+        }
+        return signatureCounter;
+    }
+
+    @Override
+    public synchronized LogTime getLogTime() {
+        if (null == logTime) {
+            try {
+                switch (layout.getTag(logTimeIndex)) {
+                    case TAG_UTC_TIME:
+                        logTime = new UtcLogTime(ASN1UTCTime.getInstance(layout.getEncoded(logTimeIndex)));
+                        break;
+                    case TAG_GENERALIZED_TIME:
+                        logTime = new GeneralizedLogTime(ASN1GeneralizedTime.getInstance(layout.getEncoded(logTimeIndex)));
+                        break;
+                    default:
+                        logTime = new UnixLogTime(new BigInteger(layout.getValue(logTimeIndex)).intValue());
+                }
+            } catch (ParseException | IllegalArgumentException e) {
+                throw new LogMessageDecodingException(new BadFormatForLogMessageException(String.format(properties.getString("de.konfidas.ttc.messages.lazyParsingFailed"), filename), e));
+            }
+        }
+        return logTime;
+    }
+
+    @Override
+    public byte[] getSignatureValue() {
+        return layout.getValue(signatureValueIndex);
+    }
+
+    @Override
+    public byte[] getDTBS() {
+        return Arrays.copyOfRange(encoded, layout.getDTBSOffset(), layout.getDTBSOffset() + layout.getDTBSLength());
+    }
+
+    @Override
+    public ByteBuffer getDTBSBuffer() {
+        return ByteBuffer.wrap(encoded, layout.getDTBSOffset(), layout.getDTBSLength()).slice();
+    }
+
+    @Override
+    public String getSignatureAlgorithm() {
+        try {
+            ASN1Sequence sequence = ASN1Sequence.getInstance(layout.getEncoded(signatureAlgorithmIndex));
+            return sequence.getObjectAt(0).toString();
+        } catch (IllegalArgumentException e) {
+            throw new LogMessageDecodingException(new BadFormatForLogMessageException(String.format(properties.getString("de.konfidas.ttc.messages.lazyParsingFailed"), filename), e));
+        }
+    }
+
+    @Override
+    public int getVersion() {
+        return new BigInteger(layout.getValue(0)).intValue();
+    }
+
+    @Override
+    public oid getCertifiedDataType() {
+        return getLogMessage().getCertifiedDataType();
+    }
+
+    @Override
+    public Collection<ASN1Primitive> getSignatureAlgorithmParameters() {
+        return getLogMessage().getSignatureAlgorithmParameters();
+    }
+
+    @Override
+    public byte[] getSeAuditData() {
+        return getLogMessage().getSeAuditData();
+    }
+
+    @Override
+    public String getFileName() {
+        return filename;
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    @Override
+    public String toString() {
+        return filename;
+    }
+
+    @Override
+    public long getContentDigest() {
+        return contentDigest;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LogMessage) {
+            // differing digests are cheaper to detect than differing content
+            return getContentDigest() == ((LogMessage) o).getContentDigest() && Arrays.equals(this.getEncoded(), ((LogMessage) o).getEncoded());
+        }
+        if (o instanceof byte[]) {
+            return Arrays.equals(this.getEncoded(), (byte[]) o);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getContentDigest());
+    }
+
+    /**
+     * Thrown by the getters of a LazyLogMessage, if a field can not be decoded.
+     */
+    public static class LogMessageDecodingException extends RuntimeException {
+        public LogMessageDecodingException(BadFormatForLogMessageException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
@@ -5,15 +5,45 @@ import de.konfidas.ttc.utilities.oid;
 import org.bouncycastle.asn1.ASN1Primitive;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 
 public interface LogMessage {
+    /**
+     * Returned by getSignatureCounterAsLong(), if the signature counter does not fit into a long.
+     */
+    long SIGNATURE_COUNTER_OVERFLOW = Long.MIN_VALUE;
+
     LogTime getLogTime();
     BigInteger getSignatureCounter();
+
+    /**
+     * The signature counter as a primitive long, so that comparing counters does not need BigIntegers.
+     * @return the signature counter, or SIGNATURE_COUNTER_OVERFLOW if it does not fit into a long. Then,
+     * getSignatureCounter() has to be used.
+     */
+    default long getSignatureCounterAsLong() {
+        return SignatureCounters.toLong(getSignatureCounter());
+    }
     byte[] getSerialNumber();
+
+    /**
+     * @return the interned serial number, which is cheaper to use as a key than the byte array.
+     */
+    default SerialNumber getInternedSerialNumber() {
+        return SerialNumber.of(getSerialNumber());
+    }
     String getFileName();
     String getSignatureAlgorithm();
     byte[] getDTBS();
+
+    /**
+     * A view on the data to be signed, which does not copy it. The buffer may share its content with the log
+     * message, so it must not be modified. Every call returns a new buffer, positioned at the start of the DTBS.
+     */
+    default ByteBuffer getDTBSBuffer() {
+        return ByteBuffer.wrap(getDTBS());
+    }
     byte[] getSignatureValue();
     int getVersion();
     oid getCertifiedDataType();
@@ -22,4 +52,12 @@ public interface LogMessage {
     byte[] getSeAuditData();
 
     byte[] getEncoded();
+
+    /**
+     * @return the 64 bit digest of getEncoded(), see ContentDigest. Implementations compute it once, when they
+     * are parsed, so that comparing and hashing log messages does not have to process their full content every time.
+     */
+    default long getContentDigest() {
+        return ContentDigest.of(getEncoded());
+    }
 }
@@ -22,58 +22,66 @@ public class LogMessageFactory {
     }
 
 
-    public static LogMessageImplementation createLogMessage(String fileName, byte[] content) throws BadFormatForLogMessageException {
+    /**
+     * Creates a log message, whose fields are only decoded on access. See LazyLogMessage.
+     */
+    public static LazyLogMessage createLazyLogMessage(String fileName, byte[] content) throws BadFormatForLogMessageException {
+        return new LazyLogMessage(fileName, content);
+    }
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_).+_Sig-\\d+_Log-.+(Start|Update|Finish)_Client-.+log")) {
-            logger.debug("{} seems to be a TransactionLog. Processing it now. ", fileName);//NON-NLS
-           return new TransactionLogMessage(content, fileName);
+    public static LogMessageImplementation createLogMessage(String fileName, byte[] content) throws BadFormatForLogMessageException {
+        LogMessageFileName name = LogMessageFileName.parse(fileName);
+        if (null == name) {
+            throw new BadFormatForLogMessageException(String.format(properties.getString("de.konfidas.ttc.messages.fileNameUnknownTypeOfLogMessages"),fileName));
         }
+        return createLogMessage(name, content);
+    }
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys_unblockUser.+log")) {
-            logger.debug("{} seems to be an unblockUser systemLog. Processing it now. ", fileName);//NON-NLS
-            return new UnblockUserSystemLogMessage(content, fileName);
-        }
+    /**
+     * Creates the log message for a file name, which was already classified, e.g. by the parser of a TAR archive.
+     */
+    public static LogMessageImplementation createLogMessage(LogMessageFileName name, byte[] content) throws BadFormatForLogMessageException {
+        String fileName = name.getName();
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys_authenticateUser.+log")) {
-            logger.debug("{} seems to be an authenitcateUser systemLog. Processing it now. ", fileName);//NON-NLS
-            return new AuthenticateUserSystemLogMessage(content, fileName);
-        }
+        switch (name.getType()) {
+            case TRANSACTION:
+                logger.debug("{} seems to be a TransactionLog. Processing it now. ", fileName);//NON-NLS
+                return new TransactionLogMessage(content, fileName);
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys_authenticateSmaersAdmin.+log")) {
-            logger.debug("{} seems to be an authenticateSmaersAdmin systemLog. Processing it now. ", fileName);//NON-NLS
-            return new AuthenticateSmaersAdminSystemLogMessage(content, fileName);
-        }
+            case UNBLOCK_USER:
+                logger.debug("{} seems to be an unblockUser systemLog. Processing it now. ", fileName);//NON-NLS
+                return new UnblockUserSystemLogMessage(content, fileName);
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys_registerClient.+log")) {
-            logger.debug("{} seems to be a registerClient systemLog. Processing it now.", fileName);//NON-NLS
-            return new RegisterClientLogMessage(content, fileName);
-        }
+            case AUTHENTICATE_USER:
+                logger.debug("{} seems to be an authenitcateUser systemLog. Processing it now. ", fileName);//NON-NLS
+                return new AuthenticateUserSystemLogMessage(content, fileName);
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys_deregisterClient.+log")) {
-            logger.debug("{} seems to be a deregisterClient systemLog. Processing it now.", fileName);//NON-NLS
-            return new DeregisterClientLogMessage(content, fileName);
-        }
+            case AUTHENTICATE_SMAERS_ADMIN:
+                logger.debug("{} seems to be an authenticateSmaersAdmin systemLog. Processing it now. ", fileName);//NON-NLS
+                return new AuthenticateSmaersAdminSystemLogMessage(content, fileName);
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys_startAudit.+log")) {
-            logger.debug("{} seems to be a startAudit systemLog. Processing it now.", fileName);//NON-NLS
-            return new StartAuditSystemLogMessage(content, fileName);
-        }
+            case REGISTER_CLIENT:
+                logger.debug("{} seems to be a registerClient systemLog. Processing it now.", fileName);//NON-NLS
+                return new RegisterClientLogMessage(content, fileName);
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys_initialize.+log")) {
-            logger.debug("{} seems to be a initialize systemLog. Processing it now.", fileName);//NON-NLS
-            return new InitializeSystemLogMessage(content, fileName);
-        }
+            case DEREGISTER_CLIENT:
+                logger.debug("{} seems to be a deregisterClient systemLog. Processing it now.", fileName);//NON-NLS
+                return new DeregisterClientLogMessage(content, fileName);
 
-//        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Sys.+log")) {
-//            logger.debug("{} scheint ein systemLog zu sein. Starte Verarbeitung ", fileName);
-//            return new SystemLogMessage(content, fileName);
-//        }
+            case START_AUDIT:
+                logger.debug("{} seems to be a startAudit systemLog. Processing it now.", fileName);//NON-NLS
+                return new StartAuditSystemLogMessage(content, fileName);
 
-        if (fileName.matches("^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-Aud.+log")) {
-            logger.debug("{} seems to be an auditLog. Processing it now.", fileName);//NON-NLS
-            return new AuditLogMessage(content, fileName);
-        }
+            case INITIALIZE:
+                logger.debug("{} seems to be a initialize systemLog. Processing it now.", fileName);//NON-NLS
+                return new InitializeSystemLogMessage(content, fileName);
+
+            case AUDIT:
+                logger.debug("{} seems to be an auditLog. Processing it now.", fileName);//NON-NLS
+                return new AuditLogMessage(content, fileName);
 
-        throw new BadFormatForLogMessageException(String.format(properties.getString("de.konfidas.ttc.messages.fileNameUnknownTypeOfLogMessages"),fileName));
+            default:
+                throw new BadFormatForLogMessageException(String.format(properties.getString("de.konfidas.ttc.messages.fileNameUnknownTypeOfLogMessages"),fileName));
+        }
     }
 }
@@ -0,0 +1,189 @@
+package de.konfidas.ttc.messages;
+
+import de.konfidas.ttc.messages.logtime.LogTime;
+
+import java.math.BigInteger;
+
+/**
+ * The information, which is encoded in the file name of an exported log message, e.g.
+ * Unixt_1615365891_Sig-117_Log-Sys_unblockUser.log. The file name consists of the format and the value of the
+ * log time, the signature counter and a part, which identifies the type of the log message.
+ *
+ * The file name is classified in a single pass over its characters, so no regular expression has to be compiled
+ * or evaluated for each log message. The accepted names are the same as the ones of the regular expressions,
+ * which were used before:
+ * ^(Gent_|Unixt_|Utc_).+_Sig-\d+_Log-.+log for log messages in general,
+ * ^(Gent_|Unixt_|Utc_).+_Sig-\d+_Log-.+(Start|Update|Finish)_Client-.+log for transaction logs and
+ * ^(Gent_|Unixt_|Utc_)\d+_Sig-\d+_Log-(Sys_&lt;event&gt;|Aud).+log for system and audit logs.
+ */
+public final class LogMessageFileName {
+    static final String SIGNATURE_COUNTER = "_Sig-"; //NON-NLS
+    static final String LOG = "_Log-"; //NON-NLS
+    static final String SUFFIX = "log"; //NON-NLS
+    static final String[] TRANSACTION_OPERATIONS = {"Start_Client-", "Update_Client-", "Finish_Client-"}; //NON-NLS
+
+    public enum Type {
+        TRANSACTION(null),
+        UNBLOCK_USER("Sys_unblockUser"), //NON-NLS
+        AUTHENTICATE_USER("Sys_authenticateUser"), //NON-NLS
+        AUTHENTICATE_SMAERS_ADMIN("Sys_authenticateSmaersAdmin"), //NON-NLS
+        REGISTER_CLIENT("Sys_registerClient"), //NON-NLS
+        DEREGISTER_CLIENT("Sys_deregisterClient"), //NON-NLS
+        START_AUDIT("Sys_startAudit"), //NON-NLS
+        INITIALIZE("Sys_initialize"), //NON-NLS
+        AUDIT("Aud"), //NON-NLS
+        /** The name has the format of a log message, but the type of the log message is not known. */
+        UNKNOWN(null);
+
+        final String token;
+
+        Type(String token) {
+            this.token = token;
+        }
+
+        static final Type[] VALUES = values();
+    }
+
+    final String name;
+    final Type type;
+    final LogTime.Type timeFormat;
+    final int logTimeStart;
+    final int logTimeEnd;
+    final int signatureCounterStart;
+    final int signatureCounterEnd;
+
+    LogMessageFileName(String name, Type type, LogTime.Type timeFormat, int logTimeStart, int logTimeEnd, int signatureCounterStart, int signatureCounterEnd) {
+        this.name = name;
+        this.type = type;
+        this.timeFormat = timeFormat;
+        this.logTimeStart = logTimeStart;
+        this.logTimeEnd = logTimeEnd;
+        this.signatureCounterStart = signatureCounterStart;
+        this.signatureCounterEnd = signatureCounterEnd;
+    }
+
+    /**
+     * Classifies the given file name.
+     * @return the classified file name, or null if the name is not the name of a log message.
+     */
+    public static LogMessageFileName parse(String name) {
+        LogTime.Type timeFormat;
+        int logTimeStart;
+        if (name.startsWith("Unixt_")) { //NON-NLS
+            timeFormat = LogTime.Type.UNIX;
+            logTimeStart = 6;
+        } else if (name.startsWith("Gent_")) { //NON-NLS
+            timeFormat = LogTime.Type.GENERALIZED;
+            logTimeStart = 5;
+        } else if (name.startsWith("Utc_")) { //NON-NLS
+            timeFormat = LogTime.Type.UTC;
+            logTimeStart = 4;
+        } else {
+            return null;
+        }
+
+        // the log time is followed by the first occurrence of _Sig-<digits>_Log-
+        int logTimeEnd = name.indexOf(SIGNATURE_COUNTER, logTimeStart + 1);
+        int counterStart;
+        int counterEnd;
+        while (true) {
+            if (logTimeEnd < 0) {
+                return null;
+            }
+            counterStart = logTimeEnd + SIGNATURE_COUNTER.length();
+            counterEnd = counterStart;
+            while (counterEnd < name.length() && isDigit(name.charAt(counterEnd))) {
+                counterEnd++;
+            }
+            if (counterEnd > counterStart && name.startsWith(LOG, counterEnd)) {
+                break;
+            }
+            logTimeEnd = name.indexOf(SIGNATURE_COUNTER, logTimeEnd + 1);
+        }
+
+        int typeStart = counterEnd + LOG.length();
+        if (name.length() - typeStart < SUFFIX.length() + 1 || !name.endsWith(SUFFIX)) {
+            return null;
+        }
+
+        return new LogMessageFileName(name, classify(name, typeStart, isNumeric(name, logTimeStart, logTimeEnd)),
+                timeFormat, logTimeStart, logTimeEnd, counterStart, counterEnd);
+    }
+
+    static Type classify(String name, int typeStart, boolean numericLogTime) {
+        for (String operation : TRANSACTION_OPERATIONS) {
+            int index = name.indexOf(operation, typeStart + 1);
+            if (index >= 0 && hasSuffix(name, index + operation.length())) {
+                return Type.TRANSACTION;
+            }
+        }
+
+        if (numericLogTime) {
+            for (Type type : Type.VALUES) {
+                if (null != type.token && name.startsWith(type.token, typeStart) && hasSuffix(name, typeStart + type.token.length())) {
+                    return type;
+                }
+            }
+        }
+        return Type.UNKNOWN;
+    }
+
+    /**
+     * @return true, if the name continues with at least one character followed by the suffix at the given index.
+     */
+    static boolean hasSuffix(String name, int index) {
+        return name.length() - index > SUFFIX.length();
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isNumeric(String name, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return end > start;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the format of the log time, as indicated by the prefix of the name.
+     */
+    public LogTime.Type getTimeFormat() {
+        return timeFormat;
+    }
+
+    /**
+     * @return the log time, as it is written in the name.
+     */
+    public String getLogTime() {
+        return name.substring(logTimeStart, logTimeEnd);
+    }
+
+    public BigInteger getSignatureCounter() {
+        // up to 18 digits always fit into a long
+        if (signatureCounterEnd - signatureCounterStart <= 18) {
+            long counter = 0;
+            for (int i = signatureCounterStart; i < signatureCounterEnd; i++) {
+                counter = counter * 10 + (name.charAt(i) - '0');
+            }
+            return BigInteger.valueOf(counter);
+        }
+        return new BigInteger(name.substring(signatureCounterStart, signatureCounterEnd));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,68 @@
+package de.konfidas.ttc.messages;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * Identifies a log message by its serial number, signature counter and content digest. Unlike the log message
+ * itself, the id is cheap to hash and to compare, and it is the same for every instance of the same log message,
+ * e.g. for log messages, which a streaming archive creates anew on every iteration, or which are contained in
+ * multiple archives.
+ *
+ * Equal ids make equal content very likely, but do not guarantee it, see ContentDigest.
+ */
+public final class LogMessageId {
+    final SerialNumber serialNumber;
+    final long signatureCounter;
+    // only set, if the signature counter does not fit into a long
+    final BigInteger largeSignatureCounter;
+    final long contentDigest;
+
+    LogMessageId(LogMessage msg) {
+        this.serialNumber = msg.getInternedSerialNumber();
+        this.signatureCounter = msg.getSignatureCounterAsLong();
+        this.largeSignatureCounter = (signatureCounter == LogMessage.SIGNATURE_COUNTER_OVERFLOW) ? msg.getSignatureCounter() : null;
+        this.contentDigest = msg.getContentDigest();
+    }
+
+    public static LogMessageId of(LogMessage msg) {
+        return new LogMessageId(msg);
+    }
+
+    public SerialNumber getSerialNumber() {
+        return serialNumber;
+    }
+
+    public long getContentDigest() {
+        return contentDigest;
+    }
+
+    /**
+     * @return true, if both log messages have the same signature counter, regardless of their serial numbers.
+     */
+    public boolean hasSameSignatureCounter(LogMessageId other) {
+        return signatureCounter == other.signatureCounter && Objects.equals(largeSignatureCounter, other.largeSignatureCounter);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LogMessageId)) {
+            return false;
+        }
+        LogMessageId other = (LogMessageId) o;
+        // serial numbers are interned, so they are compared by identity
+        return serialNumber == other.serialNumber && contentDigest == other.contentDigest && hasSameSignatureCounter(other);
+    }
+
+    @Override
+    public int hashCode() {
+        // the digest is already well distributed
+        return Long.hashCode(contentDigest);
+    }
+
+    @Override
+    public String toString() {
+        return serialNumber + "/" + ((null == largeSignatureCounter) ? Long.toString(signatureCounter) : largeSignatureCounter.toString()) //NON-NLS
+                + "/" + Long.toHexString(contentDigest); //NON-NLS
+    }
+}
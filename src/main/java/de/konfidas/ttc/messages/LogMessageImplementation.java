@@ -4,7 +4,6 @@ import de.konfidas.ttc.messages.logtime.GeneralizedLogTime;
 import de.konfidas.ttc.messages.logtime.LogTime;
 import de.konfidas.ttc.messages.logtime.UnixLogTime;
 import de.konfidas.ttc.messages.logtime.UtcLogTime;
-import de.konfidas.ttc.utilities.ByteArrayOutputStream;
 import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
 import de.konfidas.ttc.utilities.oid;
 import org.bouncycastle.asn1.*;
@@ -12,6 +11,7 @@ import org.bouncycastle.asn1.*;
 import java.io.File;
 import java.io.IOException;
 import java.math.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.text.MessageFormat;
 import java.text.ParseException;
@@ -69,11 +69,13 @@ public abstract class LogMessageImplementation implements LogMessage {
 
     final static String[] allowedCertifiedDataType = {"0.4.0.127.0.7.3.7.1.1", "0.4.0.127.0.7.3.7.1.2", "0.4.0.127.0.7.3.7.1.3"};
     final static String[] allowedAlgorithms = {"0.4.0.127.0.7.1.1.4.1.2", "0.4.0.127.0.7.1.1.4.1.3", "0.4.0.127.0.7.1.1.4.1.4", "0.4.0.127.0.7.1.1.4.1.5", "0.4.0.127.0.7.1.1.4.1.8", "0.4.0.127.0.7.1.1.4.1.9", "0.4.0.127.0.7.1.1.4.1.10", "0.4.0.127.0.7.1.1.4.1.11", "0.4.0.127.0.7.1.1.4.4.1", "0.4.0.127.0.7.1.1.4.4.2", "0.4.0.127.0.7.1.1.4.4.3", "0.4.0.127.0.7.1.1.4.4.4", "0.4.0.127.0.7.1.1.4.4.5", "0.4.0.127.0.7.1.1.4.4.6", "0.4.0.127.0.7.1.1.4.4.7", "0.4.0.127.0.7.1.1.4.4.8"};
+    final static Set<String> allowedAlgorithmSet = new HashSet<>(Arrays.asList(allowedAlgorithms));
 
     int version = 0;
     oid certifiedDataType;
     final ArrayList<ASN1Primitive> certifiedData = new ArrayList<>();
     byte[] serialNumber;
+    SerialNumber internedSerialNumber;
     String signatureAlgorithm = "";
     final ArrayList<ASN1Primitive> signatureAlgorithmParameters = new ArrayList<>();
 
@@ -83,7 +85,11 @@ public abstract class LogMessageImplementation implements LogMessage {
     byte[] signatureValue;
     BigInteger signatureCounter = new BigInteger("5");
     byte[] seAuditData;
-    byte[] dtbs;
+    // Der DTBS wird nicht kopiert, sondern nur seine Position im encoded Array gespeichert
+    int dtbsOffset;
+    int dtbsLength;
+    // computed right after parsing, while the content is still in the cache
+    final long contentDigest;
     final String filename;
 
 
@@ -94,6 +100,7 @@ public abstract class LogMessageImplementation implements LogMessage {
     public LogMessageImplementation(byte[] content, String filename) throws BadFormatForLogMessageException {
         this.filename = filename;
         parse(content);
+        this.contentDigest = ContentDigest.of(content);
     }
 
     /**
@@ -108,6 +115,12 @@ public abstract class LogMessageImplementation implements LogMessage {
         return this.serialNumber;
     }
 
+    @Override
+    public SerialNumber getInternedSerialNumber() {
+        // the serial number is interned, when the log message is parsed
+        return (null == this.internedSerialNumber) ? SerialNumber.of(this.serialNumber) : this.internedSerialNumber;
+    }
+
     @Override
     public String getFileName() {
         return this.filename;
@@ -120,7 +133,12 @@ public abstract class LogMessageImplementation implements LogMessage {
 
     @Override
     public byte[] getDTBS() {
-        return this.dtbs;
+        return Arrays.copyOfRange(this.encoded, dtbsOffset, dtbsOffset + dtbsLength);
+    }
+
+    @Override
+    public ByteBuffer getDTBSBuffer() {
+        return ByteBuffer.wrap(this.encoded, dtbsOffset, dtbsLength).slice();
     }
 
     @Override
@@ -154,45 +172,6 @@ public abstract class LogMessageImplementation implements LogMessage {
         return version;
     }
 
-    /**
-     * Diese Funktion gibt die Lönge eines ASN1Elements als integer zurück.
-     * Falls die Länge nicht in ein Integer oasst, wird ein Fehler geworfen
-     * Bei indefinite lgenght encoding wir 0 zurückgegeben
-     *
-     * @param element
-     * @return Gibt die Länge des Elements als integer zurück
-     * @throws IOException
-     * @throws ExtendLengthValueExceedsInteger Wird geworfen, falls element mit einer extended length kodiert ist, die mehr als 4 bytes erfordert
-     */
-    private int getEncodedLength(ASN1Primitive element) throws IOException, ExtendLengthValueExceedsInteger {
-        byte[] elementContent = element.getEncoded();
-
-        if ( elementContent[1] == (byte) 0b10000000) {
-            //indefinte length encoding
-            return 0;
-        } else if ((elementContent[1] & 0b10000000) == 0) {
-            //Case: Definite length encocding, one byte
-            return elementContent[1];
-        } else {
-            //Extended length encoding (limitiert auf max 4 bytes für die Länge)
-            int elementNumberOfLengthBytes = (elementContent[1] & 0b01111111);
-            if (elementNumberOfLengthBytes > 4) {
-                throw new ExtendLengthValueExceedsInteger(properties.getString("de.konfidas.ttc.messages.extendedLengthLongerThanInt"), null);
-            }
-
-            byte[] lengthBytesFromElement = Arrays.copyOfRange(elementContent, 2, 2+elementNumberOfLengthBytes); //we need to have 4 bytes for an integer
-            return new BigInteger(1,lengthBytesFromElement).intValue();
-        }
-    }
-
-    byte[] getEncodedValue(ASN1Primitive element) throws IOException, ExtendLengthValueExceedsInteger {
-        byte[] elementContent = element.getEncoded();
-        int elementLength = this.getEncodedLength(element);
-        logger.debug(String.valueOf(elementContent.length));
-        logger.debug(String.valueOf(elementLength));
-        return Arrays.copyOfRange(elementContent, elementContent.length - elementLength, elementContent.length + 1);
-    }
-
     int getEncodedTag(ASN1Primitive element) throws IOException {
         byte[] elementContent = element.getEncoded();
         return elementContent[0];
@@ -201,7 +180,15 @@ public abstract class LogMessageImplementation implements LogMessage {
     void parse(byte[] content) throws LogMessageParsingException {
         this.encoded = content;
 
-        try (ByteArrayOutputStream dtbsStream = new ByteArrayOutputStream()) {
+        // Der Normalfall wird ohne BouncyCastle direkt aus dem Array gelesen. Nur wenn dabei etwas Unerwartetes
+        // auftritt, wird die LogMessage mit BouncyCastle geparst, das dann auch die passende Fehlermeldung liefert.
+        if (parseWithCursor(new DerCursor(content))) {
+            return;
+        }
+        this.certifiedData.clear();
+        this.signatureAlgorithmParameters.clear();
+
+        try {
             final ASN1InputStream inputStreamDecoder = new ASN1InputStream(content);
             ASN1Primitive logMessageAsASN1 = inputStreamDecoder.readObject();
 
@@ -212,33 +199,121 @@ public abstract class LogMessageImplementation implements LogMessage {
                 ListIterator<ASN1Primitive> logMessageIterator = logMessageAsASN1List.listIterator();
 
                 //Das erste Element MUSS die versionNumber sein
-                parseVersionNumber(dtbsStream, logMessageAsASN1List, logMessageIterator);
-                parseCertifiedDataType(dtbsStream, logMessageAsASN1List, logMessageIterator);
+                parseVersionNumber(logMessageAsASN1List, logMessageIterator);
+                parseCertifiedDataType(logMessageAsASN1List, logMessageIterator);
 
-                parseCertifiedData(dtbsStream, logMessageAsASN1List, logMessageIterator);
+                parseCertifiedData(logMessageAsASN1List, logMessageIterator);
 
                 //FIXME: Dieser Teil des Parsers ist tricky. Wir gehen aktuell davon aus, dass wenn certifiedDataType gesetzt ist, dass dann auch certifiedData vorhanden ist. Aber hier gibt es einige
                 //theoretische Fälle, die Probleme machen können.
 
-                parseSerialNumber(dtbsStream, logMessageAsASN1List, logMessageIterator);
-                parseSignatureAlgorithm(dtbsStream, logMessageAsASN1List, logMessageIterator);
-                parseSeAuditData(dtbsStream, logMessageAsASN1List, logMessageIterator);
+                parseSerialNumber(logMessageAsASN1List, logMessageIterator);
+                parseSignatureAlgorithm(logMessageAsASN1List, logMessageIterator);
+                parseSeAuditData(logMessageAsASN1List, logMessageIterator);
 
 
-                parseSignatureCounter(dtbsStream, logMessageAsASN1List, logMessageIterator);
-                parseTime(dtbsStream, logMessageAsASN1List, logMessageIterator);
-                parseSignature(dtbsStream, logMessageAsASN1List, logMessageIterator);
+                parseSignatureCounter(logMessageAsASN1List, logMessageIterator);
+                parseTime(logMessageAsASN1List, logMessageIterator);
+                parseSignature(logMessageAsASN1List, logMessageIterator);
 
 
-                //Speichern des DTBS aus dem BufferedWriter
-                this.dtbs = dtbsStream.toByteArray();
+                // Die signierten Daten sind die Kodierungen aller Elemente außer signatureValue. Sie stehen
+                // also zusammenhängend im encoded Array und müssen nicht neu kodiert werden.
+                LogMessageLayout layout = LogMessageLayout.scan(content);
+                this.dtbsOffset = layout.getDTBSOffset();
+                this.dtbsLength = layout.getDTBSLength();
             }
         } catch (IOException | NoSuchElementException | ParseException e) {
             throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.failedToParseMessage"), e);
         }
     }
 
-    private void parseVersionNumber(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    /**
+     * Liest die LogMessage mit einem DerCursor, ohne Objekte für die einzelnen Elemente zu erzeugen.
+     * @return false, falls die LogMessage nicht dem erwarteten Aufbau entspricht. Die Felder sind dann unvollständig
+     * gesetzt und die LogMessage muss mit BouncyCastle geparst werden.
+     */
+    boolean parseWithCursor(DerCursor cursor) {
+        if (!cursor.next(DerCursor.TAG_SEQUENCE)) { return false; }
+        cursor.enter();
+        int dtbsStart = cursor.position;
+
+        if (!cursor.next(DerCursor.TAG_INTEGER) || !cursor.isValidInteger() || cursor.intValue() != 2) { return false; }
+        this.version = 2;
+
+        if (!cursor.next(DerCursor.TAG_OBJECT_IDENTIFIER)) { return false; }
+        this.certifiedDataType = oid.fromBytes(cursor.data, cursor.offset, cursor.position - cursor.offset);
+        if (null == this.certifiedDataType || !readCertifiedData(cursor)) { return false; }
+
+        if (!cursor.next(DerCursor.TAG_OCTET_STRING)) { return false; }
+        this.serialNumber = cursor.octets();
+        this.internedSerialNumber = SerialNumber.of(this.serialNumber);
+
+        if (!cursor.next(DerCursor.TAG_SEQUENCE)) { return false; }
+        int outerEnd = cursor.enter();
+        if (!cursor.next(DerCursor.TAG_OBJECT_IDENTIFIER)) { return false; }
+        String algorithm = cursor.objectIdentifier();
+        // Parameter des Algorithmus werden nur von BouncyCastle gelesen
+        if (null == algorithm || !allowedAlgorithmSet.contains(algorithm) || cursor.hasNext()) { return false; }
+        this.signatureAlgorithm = algorithm;
+        cursor.leave(outerEnd);
+
+        if (!readSeAuditData(cursor)) { return false; }
+
+        if (!cursor.next(DerCursor.TAG_INTEGER) || !cursor.isValidInteger()) { return false; }
+        this.signatureCounter = cursor.bigIntegerValue();
+
+        if (!readTime(cursor)) { return false; }
+
+        int signatureStart = cursor.position;
+        if (!cursor.next(DerCursor.TAG_OCTET_STRING) || cursor.hasNext()) { return false; }
+        this.signatureValue = cursor.octets();
+
+        this.dtbsOffset = dtbsStart;
+        this.dtbsLength = signatureStart - dtbsStart;
+        return true;
+    }
+
+    /**
+     * Liest certifiedData mit dem DerCursor. Die Standardimplementierung unterstützt das nicht, die LogMessage wird
+     * dann mit BouncyCastle geparst.
+     * @return false, falls certifiedData nicht gelesen werden konnte.
+     */
+    boolean readCertifiedData(DerCursor cursor) {
+        return false;
+    }
+
+    /**
+     * Liest seAuditData mit dem DerCursor, siehe readCertifiedData.
+     */
+    boolean readSeAuditData(DerCursor cursor) {
+        return false;
+    }
+
+    private boolean readTime(DerCursor cursor) {
+        if (!cursor.next()) { return false; }
+        try {
+            switch (cursor.tag) {
+                case DerCursor.TAG_INTEGER:
+                    if (!cursor.isValidInteger()) { return false; }
+                    int time = (cursor.valueLength <= 4) ? cursor.intValue() : cursor.bigIntegerValue().intValue();
+                    this.logTime = new UnixLogTime(time);
+                    return true;
+                case DerCursor.TAG_UTC_TIME:
+                    this.logTime = new UtcLogTime(ASN1UTCTime.getInstance(cursor.encoded()));
+                    return true;
+                case DerCursor.TAG_GENERALIZED_TIME:
+                    this.logTime = new GeneralizedLogTime(ASN1GeneralizedTime.getInstance(cursor.encoded()));
+                    return true;
+                default:
+                    return false;
+            }
+        } catch (ParseException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void parseVersionNumber(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.versionElementNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof ASN1Integer)) {
@@ -250,10 +325,9 @@ public abstract class LogMessageImplementation implements LogMessage {
         if (this.version != 2) {
             throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.wrongVersionNumber"));
         }
-        dtbsStream.write(this.getEncodedValue(element));
     }
 
-    void parseCertifiedDataType(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    void parseCertifiedDataType(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.certifiedDataTypeNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof ASN1ObjectIdentifier)) {
@@ -265,11 +339,10 @@ public abstract class LogMessageImplementation implements LogMessage {
         try { this.certifiedDataType = oid.fromBytes(element.getEncoded()); } catch (oid.UnknownOidException e) {
             throw new CertifiedDataTypeParsingException(properties.getString("de.konfidas.ttc.messages.oidForCertifiedDataUnknown"), e);
         }
-        dtbsStream.write(this.getEncodedValue(element));
 
     }
 
-    private void parseSerialNumber(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    private void parseSerialNumber(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.serialNumberNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof ASN1OctetString)) {
@@ -279,11 +352,11 @@ public abstract class LogMessageImplementation implements LogMessage {
         ASN1Primitive element = logMessageIterator.next();
 
         this.serialNumber = ((ASN1OctetString) element).getOctets();
-        dtbsStream.write(this.serialNumber);
+        this.internedSerialNumber = SerialNumber.of(this.serialNumber);
 
     }
 
-    private void parseSignatureAlgorithm(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    private void parseSignatureAlgorithm(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) {
             throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.signatureAlgorithmNotFound"));
         }
@@ -301,7 +374,6 @@ public abstract class LogMessageImplementation implements LogMessage {
 
         if (element instanceof ASN1ObjectIdentifier) {
             this.signatureAlgorithm = element.toString();
-            dtbsStream.write(this.getEncodedValue(element));
 
             if (!Arrays.asList(allowedAlgorithms).contains(this.signatureAlgorithm)) {
                 throw new LogMessageParsingException(String.format(properties.getString("de.konfidas.ttc.messages.invalidOIDForSignatureAlgorithm"), this.signatureAlgorithm));
@@ -320,22 +392,21 @@ public abstract class LogMessageImplementation implements LogMessage {
 
     }
 
-    abstract void parseSeAuditData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException;
+    abstract void parseSeAuditData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException;
 
 
-    private void parseSignatureCounter(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    private void parseSignatureCounter(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.sigantureCounterNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof ASN1Integer)) { throw new LogMessageParsingException(String.format(properties.getString("de.konfidas.ttc.messages.sigantureCounterOfWrongType"), nextElement.getClass())); }
 
         ASN1Primitive element = logMessageIterator.next();
         this.signatureCounter = ((ASN1Integer) element).getValue();
-        dtbsStream.write(this.getEncodedValue(element));
 
     }
 
 
-    private void parseTime(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws IOException, LogMessageParsingException, ParseException {
+    private void parseTime(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws IOException, LogMessageParsingException, ParseException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.logTimeNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof ASN1Integer)&& !(nextElement instanceof ASN1UTCTime) && !(nextElement instanceof ASN1GeneralizedTime)) { throw new LogMessageParsingException(String.format(properties.getString("de.konfidas.ttc.messages.logTimeInvalidType"), nextElement.getClass())); }
@@ -344,29 +415,25 @@ public abstract class LogMessageImplementation implements LogMessage {
 
         if (element instanceof ASN1Integer) {
             this.logTime = new UnixLogTime(((ASN1Integer) element).getValue().intValue());
-            dtbsStream.write(this.getEncodedValue(element));
         } else if (element instanceof ASN1UTCTime) {
             this.logTime = new UtcLogTime(((ASN1UTCTime) element));
-            dtbsStream.write(this.getEncodedValue(element));
         } else if (element instanceof ASN1GeneralizedTime) {
             this.logTime = new GeneralizedLogTime((ASN1GeneralizedTime) element);
-            dtbsStream.write(this.getEncodedValue(element));
         }
     }
 
-    private void parseSignature(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    private void parseSignature(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.signatureNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof ASN1OctetString)) { throw new LogMessageParsingException(String.format(properties.getString("de.konfidas.ttc.messages.signatureWrongType"), nextElement.getClass())); }
 
         ASN1Primitive element = logMessageIterator.next();
         this.signatureValue = ((ASN1OctetString) element).getOctets();
-        dtbsStream.write(this.getEncodedValue(element));
 
     }
 
 
-    abstract void parseCertifiedData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException;
+    abstract void parseCertifiedData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException;
 
 
     public class LogMessageParsingException extends BadFormatForLogMessageException {
@@ -401,6 +468,11 @@ public abstract class LogMessageImplementation implements LogMessage {
     public static class SignatureCounterComparator implements Comparator<LogMessage>{
         @Override
         public int compare(LogMessage o1, LogMessage o2) {
+            long c1 = o1.getSignatureCounterAsLong();
+            long c2 = o2.getSignatureCounterAsLong();
+            if (c1 != SIGNATURE_COUNTER_OVERFLOW && c2 != SIGNATURE_COUNTER_OVERFLOW) {
+                return Long.compare(c1, c2);
+            }
             return o1.getSignatureCounter().compareTo(o2.getSignatureCounter());
         }
     }
@@ -410,10 +482,16 @@ public abstract class LogMessageImplementation implements LogMessage {
         return this.encoded;
     }
 
+    @Override
+    public long getContentDigest() {
+        return this.contentDigest;
+    }
+
     @Override
     public boolean equals(Object o){
         if(o instanceof LogMessage){
-            return Arrays.equals(this.getEncoded(), ((LogMessage) o).getEncoded());
+            // differing digests are cheaper to detect than differing content
+            return getContentDigest() == ((LogMessage) o).getContentDigest() && Arrays.equals(this.getEncoded(), ((LogMessage) o).getEncoded());
         }
 
         if(o instanceof byte[]){
@@ -425,7 +503,7 @@ public abstract class LogMessageImplementation implements LogMessage {
 
     @Override
     public int hashCode() {
-        return java.util.Arrays.hashCode(encoded);
+        return Long.hashCode(getContentDigest());
     }
 }
 
@@ -0,0 +1,229 @@
+package de.konfidas.ttc.messages;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * The positions of the top level elements of an encoded log message, i.e. of the elements of the outer SEQUENCE.
+ * The layout is determined in a single pass over tags and lengths, no element is decoded. For every element, the
+ * offset of its tag, the length of tag and length octets and the length of its value are recorded.
+ */
+public class LogMessageLayout {
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    // log messages have 8 to 16 top level elements, depending on the type and certifiedData
+    static final int INITIAL_CAPACITY = 16;
+
+    final byte[] content;
+    int size = 0;
+    int[] tags = new int[INITIAL_CAPACITY];
+    int[] offsets = new int[INITIAL_CAPACITY];
+    int[] headerLengths = new int[INITIAL_CAPACITY];
+    int[] lengths = new int[INITIAL_CAPACITY];
+
+    LogMessageLayout(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * Determines the layout of the given log message.
+     * @throws IOException if the content is not a constructed element, or if tags or lengths are malformed.
+     */
+    public static LogMessageLayout scan(byte[] content) throws IOException {
+        LogMessageLayout layout = new LogMessageLayout(content);
+        if (content.length < 2 || (content[0] & 0x20) == 0) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), 0));
+        }
+
+        int position = layout.skipTag(0);
+        int length = layout.readLength(position);
+        position += layout.lengthOfLength(position);
+        int end = (length < 0) ? content.length : position + length;
+        if (end > content.length) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), 0));
+        }
+
+        while (position < end) {
+            if (length < 0 && content[position] == 0 && position + 1 < end && content[position + 1] == 0) {
+                // end of contents of an indefinite length encoding
+                break;
+            }
+            int next = layout.skipElement(position, end);
+            layout.add(position, next);
+            position = next;
+        }
+        return layout;
+    }
+
+    void add(int offset, int end) throws IOException {
+        if (size == offsets.length) {
+            tags = Arrays.copyOf(tags, 2 * size);
+            offsets = Arrays.copyOf(offsets, 2 * size);
+            headerLengths = Arrays.copyOf(headerLengths, 2 * size);
+            lengths = Arrays.copyOf(lengths, 2 * size);
+        }
+        int valueOffset = skipTag(offset);
+        valueOffset += lengthOfLength(valueOffset);
+        tags[size] = content[offset] & 0xff;
+        offsets[size] = offset;
+        headerLengths[size] = valueOffset - offset;
+        lengths[size] = end - valueOffset;
+        size++;
+    }
+
+    int skipTag(int position) throws IOException {
+        if ((content[position] & 0x1f) != 0x1f) {
+            return position + 1;
+        }
+        // high tag number form: the tag number continues, as long as bit 8 is set
+        int i = position + 1;
+        while (i < content.length && (content[i] & 0x80) != 0) {
+            i++;
+        }
+        if (i >= content.length) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+        }
+        return i + 1;
+    }
+
+    int lengthOfLength(int position) throws IOException {
+        if (position >= content.length) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+        }
+        int first = content[position] & 0xff;
+        return (first < 0x80) ? 1 : 1 + (first & 0x7f);
+    }
+
+    /**
+     * @return the length, which is encoded at position, or -1 for the indefinite length encoding.
+     */
+    int readLength(int position) throws IOException {
+        if (position >= content.length) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+        }
+        int first = content[position] & 0xff;
+        if (first < 0x80) {
+            return first;
+        }
+        if (first == 0x80) {
+            return -1;
+        }
+        int numberOfLengthBytes = first & 0x7f;
+        if (numberOfLengthBytes > 4 || position + numberOfLengthBytes >= content.length) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+        }
+        long length = 0;
+        for (int i = 1; i <= numberOfLengthBytes; i++) {
+            length = (length << 8) | (content[position + i] & 0xff);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+        }
+        return (int) length;
+    }
+
+    /**
+     * @return the position directly after the element, which starts at position.
+     */
+    int skipElement(int position, int end) throws IOException {
+        boolean constructed = (content[position] & 0x20) != 0;
+        int valueOffset = skipTag(position);
+        int length = readLength(valueOffset);
+        valueOffset += lengthOfLength(valueOffset);
+
+        if (length >= 0) {
+            if ((long) valueOffset + length > end) {
+                throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+            }
+            return valueOffset + length;
+        }
+        if (!constructed) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+        }
+        // indefinite length: skip the inner elements up to the end of contents octets
+        int i = valueOffset;
+        while (i + 1 < end && !(content[i] == 0 && content[i + 1] == 0)) {
+            i = skipElement(i, end);
+        }
+        if (i + 1 >= end) {
+            throw new IOException(String.format(properties.getString("de.konfidas.ttc.messages.invalidDerEncoding"), position));
+        }
+        return i + 2;
+    }
+
+    /**
+     * @return the number of top level elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the first octet of the tag of the element, e.g. 0x02 for an INTEGER.
+     */
+    public int getTag(int element) {
+        return tags[element];
+    }
+
+    /**
+     * @return the position of the tag of the element.
+     */
+    public int getOffset(int element) {
+        return offsets[element];
+    }
+
+    /**
+     * @return the position of the value of the element.
+     */
+    public int getValueOffset(int element) {
+        return offsets[element] + headerLengths[element];
+    }
+
+    /**
+     * @return the length of the value of the element. For the indefinite length encoding, this includes the end of
+     * contents octets.
+     */
+    public int getValueLength(int element) {
+        return lengths[element];
+    }
+
+    /**
+     * @return the position directly after the element.
+     */
+    public int getEnd(int element) {
+        return getValueOffset(element) + lengths[element];
+    }
+
+    /**
+     * @return a copy of the value of the element.
+     */
+    public byte[] getValue(int element) {
+        return Arrays.copyOfRange(content, getValueOffset(element), getEnd(element));
+    }
+
+    /**
+     * @return a copy of the complete encoding (tag, length and value) of the element.
+     */
+    public byte[] getEncoded(int element) {
+        return Arrays.copyOfRange(content, offsets[element], getEnd(element));
+    }
+
+    /**
+     * The signed data of a log message is the encoding of all its elements except for the signatureValue, which is
+     * the last one. Hence, the data to be signed is a single region of the encoded log message.
+     * @return the position of the first byte of the data to be signed.
+     */
+    public int getDTBSOffset() {
+        return offsets[0];
+    }
+
+    /**
+     * @return the length of the data to be signed.
+     */
+    public int getDTBSLength() {
+        return offsets[size - 1] - offsets[0];
+    }
+}
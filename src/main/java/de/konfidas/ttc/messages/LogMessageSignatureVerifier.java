@@ -1,19 +1,19 @@
 package de.konfidas.ttc.messages;
 
 import de.konfidas.ttc.exceptions.LogMessageVerificationException;
-import org.apache.commons.codec.binary.Hex;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.operator.AlgorithmNameFinder;
 import org.bouncycastle.operator.DefaultAlgorithmNameFinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.*;
 import java.security.cert.X509Certificate;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LogMessageSignatureVerifier {
     final static Logger logger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
@@ -21,6 +21,17 @@ public class LogMessageSignatureVerifier {
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
     final Map<? extends String, ? extends X509Certificate> certs;
 
+    // Lookup of algorithm names is expensive and their result never changes, so it is shared between all verifiers.
+    static final ConcurrentHashMap<String, String> algorithmNames = new ConcurrentHashMap<>();
+    // Signature objects are not thread safe, hence every thread keeps its own instances, one per algorithm.
+    static final ThreadLocal<HashMap<String, Signature>> signatures = ThreadLocal.withInitial(HashMap::new);
+    // Public keys of the certificates, by the (upper case, hex encoded) serial number of the TSE.
+    final ConcurrentHashMap<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a verifier for log messages. A verifier may be used by several threads concurrently.
+     * @param certs certificates of the TSEs, by the upper case, hex encoded serial number of the TSE.
+     */
     public LogMessageSignatureVerifier(Map<? extends String, ? extends X509Certificate> certs){
         this.certs = certs;
     }
@@ -33,25 +44,24 @@ public class LogMessageSignatureVerifier {
             throw new LogMessageVerificationException(properties.getString("de.konfidas.ttc.messages.noMessageFound"), null);
         }
 
-        byte[] serial = msg.getSerialNumber();
-        X509Certificate cert = certs.get(Hex.encodeHexString(msg.getSerialNumber()).toUpperCase(Locale.ROOT));
+        SerialNumber serial = msg.getInternedSerialNumber();
+        PublicKey publicKey = getPublicKey(serial.toUpperCaseHexString());
 
-        if(cert == null){
-            throw new CertificateNotFoundException(String.format(properties.getString("de.konfidas.ttc.messages.failedToIdentifyCertForSerial"), Hex.encodeHexString(serial)));
+        if(publicKey == null){
+            throw new CertificateNotFoundException(String.format(properties.getString("de.konfidas.ttc.messages.failedToIdentifyCertForSerial"), serial.toHexString()));
         }
 
         try {
-            ASN1ObjectIdentifier algoIdentifier = new ASN1ObjectIdentifier(msg.getSignatureAlgorithm());
-            AlgorithmNameFinder nameFinder = new DefaultAlgorithmNameFinder();
-            String algoName = nameFinder.getAlgorithmName(algoIdentifier);
-
-            Signature st = Signature.getInstance(algoName, BouncyCastleProvider.PROVIDER_NAME);
-            st.initVerify(cert.getPublicKey());
+            Signature st = getSignature(getAlgorithmName(msg.getSignatureAlgorithm()));
+            st.initVerify(publicKey);
 
-            st.update(msg.getDTBS());
+            // the buffer is backed by the encoded log message, so the DTBS is not copied
+            st.update(msg.getDTBSBuffer());
 
             byte[] signatureValue = msg.getSignatureValue();
-            st.verify(signatureValue);
+            if (!st.verify(signatureValue)) {
+                throw new LogMessageVerificationException(properties.getString("de.konfidas.ttc.messages.signatureCouldNotBeVerified"));
+            }
             logger.debug("The signature of logMessage {} has been validated successfully.",msg);//NON-NLS
         } catch (NoSuchProviderException e) {
             throw new LogMessageVerificationException(properties.getString("de.konfidas.ttc.messages.bouncyCastleNotFound"), e);
@@ -64,6 +74,33 @@ public class LogMessageSignatureVerifier {
         }
     }
 
+    PublicKey getPublicKey(String serial){
+        PublicKey key = publicKeys.get(serial);
+        if(key == null){
+            X509Certificate cert = certs.get(serial);
+            if(cert == null){
+                return null;
+            }
+            key = cert.getPublicKey();
+            publicKeys.putIfAbsent(serial, key);
+        }
+        return key;
+    }
+
+    static String getAlgorithmName(String oid){
+        return algorithmNames.computeIfAbsent(oid, o -> new DefaultAlgorithmNameFinder().getAlgorithmName(new ASN1ObjectIdentifier(o)));
+    }
+
+    static Signature getSignature(String algoName) throws NoSuchProviderException, NoSuchAlgorithmException {
+        HashMap<String, Signature> threadSignatures = signatures.get();
+        Signature st = threadSignatures.get(algoName);
+        if(st == null){
+            st = Signature.getInstance(algoName, BouncyCastleProvider.PROVIDER_NAME);
+            threadSignatures.put(algoName, st);
+        }
+        return st;
+    }
+
     public static class CertificateNotFoundException extends LogMessageVerificationException{
         public CertificateNotFoundException(String message) {
             super(message);
@@ -0,0 +1,129 @@
+package de.konfidas.ttc.messages;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The serial number of a TSE. Serial numbers are interned: there is only one instance for each distinct serial
+ * number, which is created, when the first log message with that serial number is parsed. Each instance gets a
+ * small id, which is unique within the JVM. The ids are assigned consecutively starting at 0, so they can be used
+ * as index into an array, see SerialNumberTable.
+ *
+ * The hex encodings are created once, so they can be used as keys without encoding the serial number for every
+ * log message.
+ */
+public final class SerialNumber {
+    static final ConcurrentHashMap<Key, SerialNumber> registry = new ConcurrentHashMap<>();
+    static final CopyOnWriteArrayList<SerialNumber> byId = new CopyOnWriteArrayList<>();
+
+    final byte[] bytes;
+    final int id;
+    final String hex;
+    final String upperCaseHex;
+
+    SerialNumber(byte[] bytes, int id) {
+        this.bytes = bytes;
+        this.id = id;
+        this.hex = Hex.encodeHexString(bytes);
+        this.upperCaseHex = hex.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the interned instance of the given serial number, or null if the serial number is null.
+     */
+    public static SerialNumber of(byte[] serialNumber) {
+        if (null == serialNumber) {
+            return null;
+        }
+        Key key = new Key(serialNumber);
+        SerialNumber result = registry.get(key);
+        if (null == result) {
+            result = register(key);
+        }
+        return result;
+    }
+
+    static synchronized SerialNumber register(Key key) {
+        SerialNumber result = registry.get(key);
+        if (null == result) {
+            // the caller may modify its array, so the interned instance keeps a copy
+            byte[] bytes = key.bytes.clone();
+            result = new SerialNumber(bytes, byId.size());
+            byId.add(result);
+            registry.put(new Key(bytes), result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the serial number with the given id.
+     * @throws IndexOutOfBoundsException if there is no serial number with that id.
+     */
+    public static SerialNumber get(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @return the number of distinct serial numbers, i.e. all ids are smaller.
+     */
+    public static int count() {
+        return byId.size();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the serial number. The array is shared, so it must not be modified.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the lower case hex encoding, as used in the validation results.
+     */
+    public String toHexString() {
+        return hex;
+    }
+
+    /**
+     * @return the upper case hex encoding, as used in the file names of the certificates.
+     */
+    public String toUpperCaseHexString() {
+        return upperCaseHex;
+    }
+
+    @Override
+    public String toString() {
+        return hex;
+    }
+
+    /**
+     * Compares serial numbers by their content, to look up the interned instance.
+     */
+    static final class Key {
+        final byte[] bytes;
+        final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
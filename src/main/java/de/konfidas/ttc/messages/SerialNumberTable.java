@@ -0,0 +1,64 @@
+package de.konfidas.ttc.messages;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Maps serial numbers to values by an array, which is indexed by the id of the serial number. This avoids hashing
+ * for every log message.
+ *
+ * A value is set once and never replaced, so mutable state has to be kept inside the value. Then, the values of
+ * different serial numbers may be used by different threads concurrently.
+ */
+public class SerialNumberTable<V> {
+    volatile Object[] values = new Object[16];
+
+    /**
+     * @return the value of the given serial number, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(SerialNumber serialNumber) {
+        Object[] current = values;
+        int id = serialNumber.getId();
+        return (id < current.length) ? (V) current[id] : null;
+    }
+
+    /**
+     * @return the value of the given serial number. If there is none, it is created by the given supplier.
+     */
+    public V computeIfAbsent(SerialNumber serialNumber, Supplier<? extends V> supplier) {
+        V value = get(serialNumber);
+        return (null != value) ? value : create(serialNumber, supplier);
+    }
+
+    /**
+     * @return a copy of all values, in the order of the ids of their serial numbers.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<SerialNumber, V> toMap() {
+        Object[] current = values;
+        LinkedHashMap<SerialNumber, V> result = new LinkedHashMap<>();
+        for (int id = 0; id < current.length; id++) {
+            if (null != current[id]) {
+                result.put(SerialNumber.get(id), (V) current[id]);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized V create(SerialNumber serialNumber, Supplier<? extends V> supplier) {
+        Object[] current = values;
+        int id = serialNumber.getId();
+        if (id < current.length && null != current[id]) {
+            return (V) current[id];
+        }
+        Object[] updated = Arrays.copyOf(current, Math.max(current.length, Integer.highestOneBit(id) << 1));
+        V value = supplier.get();
+        updated[id] = value;
+        values = updated;
+        return value;
+    }
+}
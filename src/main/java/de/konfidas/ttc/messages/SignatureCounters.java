@@ -0,0 +1,133 @@
+package de.konfidas.ttc.messages;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Helpers to handle signature counters as primitive longs. Real signature counters fit into a long, so sorting and
+ * comparing them does not require BigIntegers. Counters, which do not fit, are reported as
+ * LogMessage.SIGNATURE_COUNTER_OVERFLOW, and the callers fall back to BigIntegers.
+ */
+public final class SignatureCounters {
+    // below this size, the radix sort does not pay off
+    static final int RADIX_SORT_THRESHOLD = 256;
+    static final int DIGIT_BITS = 16;
+    static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+
+    private SignatureCounters() {
+    }
+
+    /**
+     * @return the counter as long, or LogMessage.SIGNATURE_COUNTER_OVERFLOW if it is null or does not fit into a
+     * long.
+     */
+    public static long toLong(BigInteger counter) {
+        if (null == counter || counter.bitLength() > 63) {
+            return LogMessage.SIGNATURE_COUNTER_OVERFLOW;
+        }
+        return counter.longValue();
+    }
+
+    /**
+     * Sorts the log messages by signature counter. Like List.sort(), the sort is stable.
+     */
+    public static <T extends LogMessage> void sort(List<T> logMessages) {
+        sort(logMessages, LogMessage::getSignatureCounterAsLong, new LogMessageImplementation.SignatureCounterComparator());
+    }
+
+    /**
+     * Sorts the list stably by the given signature counters. If all counters fit into a long, a radix sort over the
+     * primitive counters is used. Otherwise, the list is sorted with the fallback comparator.
+     * @param counter returns the signature counter of an element, or LogMessage.SIGNATURE_COUNTER_OVERFLOW.
+     * @param fallback comparator, which orders the elements like their signature counters.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(List<T> list, ToLongFunction<? super T> counter, Comparator<? super T> fallback) {
+        int n = list.size();
+        if (n < RADIX_SORT_THRESHOLD) {
+            list.sort(fallback);
+            return;
+        }
+
+        long[] counters = new long[n];
+        int i = 0;
+        for (T t : list) {
+            long c = counter.applyAsLong(t);
+            if (c == LogMessage.SIGNATURE_COUNTER_OVERFLOW) {
+                list.sort(fallback);
+                return;
+            }
+            counters[i++] = c;
+        }
+        int[] order = sortedOrder(counters, n);
+
+        Object[] elements = list.toArray();
+        ListIterator<T> iterator = list.listIterator();
+        for (i = 0; i < n; i++) {
+            iterator.next();
+            iterator.set((T) elements[order[i]]);
+        }
+    }
+
+    /**
+     * Sorts the first n counters stably with a radix sort. The counters are not modified.
+     * @param counters signature counters, none of which is LogMessage.SIGNATURE_COUNTER_OVERFLOW.
+     * @return the indices of the counters in sorted order.
+     */
+    public static int[] sortedOrder(long[] counters, int n) {
+        long[] keys = new long[n];
+        long allOr = 0;
+        long allAnd = -1;
+        for (int i = 0; i < n; i++) {
+            // flipping the sign bit orders negative counters first, when the keys are compared unsigned
+            long key = counters[i] ^ Long.MIN_VALUE;
+            keys[i] = key;
+            allOr |= key;
+            allAnd &= key;
+        }
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        long[] keyBuffer = new long[n];
+        int[] orderBuffer = new int[n];
+        int[] positions = new int[DIGIT_MASK + 1];
+
+        // digits, which are the same for all keys, do not change the order, so their passes are skipped
+        long varyingBits = allOr ^ allAnd;
+        for (int shift = 0; shift < Long.SIZE; shift += DIGIT_BITS) {
+            if (((varyingBits >>> shift) & DIGIT_MASK) == 0) {
+                continue;
+            }
+
+            Arrays.fill(positions, 0);
+            for (int i = 0; i < n; i++) {
+                positions[(int) ((keys[i] >>> shift) & DIGIT_MASK)]++;
+            }
+            int position = 0;
+            for (int d = 0; d <= DIGIT_MASK; d++) {
+                int count = positions[d];
+                positions[d] = position;
+                position += count;
+            }
+            for (int i = 0; i < n; i++) {
+                int target = positions[(int) ((keys[i] >>> shift) & DIGIT_MASK)]++;
+                keyBuffer[target] = keys[i];
+                orderBuffer[target] = order[i];
+            }
+
+            long[] k = keys;
+            keys = keyBuffer;
+            keyBuffer = k;
+            int[] o = order;
+            order = orderBuffer;
+            orderBuffer = o;
+        }
+        return order;
+    }
+}
@@ -29,9 +29,9 @@ public abstract class SystemLogMessage extends LogMessageImplementation {
     }
 
     @Override
-    void parseCertifiedDataType(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    void parseCertifiedDataType(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
 
-        super.parseCertifiedDataType(dtbsStream,logMessageAsASN1List,logMessageIterator);
+        super.parseCertifiedDataType(logMessageAsASN1List,logMessageIterator);
         if(this.certifiedDataType != oid.id_SE_API_system_log){
             throw new LogMessageImplementation.CertifiedDataTypeParsingException(String.format(properties.getString("de.konfidas.ttc.messages.invalidCertifiedDataType2"),this.certifiedDataType.getName()), null);
         }
@@ -39,11 +39,11 @@ public abstract class SystemLogMessage extends LogMessageImplementation {
 
 
     @Override
-        void parseCertifiedData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+        void parseCertifiedData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
 
 //
-        parseOperationType(dtbsStream, logMessageAsASN1List, logMessageIterator);
-        parseSystemOperationDataElement(dtbsStream, logMessageAsASN1List, logMessageIterator);
+        parseOperationType(logMessageAsASN1List, logMessageIterator);
+        parseSystemOperationDataElement(logMessageAsASN1List, logMessageIterator);
         // systemOperationData has tag 0x81 (i.e. context-specific, not-constructed, but contains a constructed element
         // so BouncyCastle does not parse the content (because the tag does not signal, that there is ASN1 Structure within to parse.
         // for this reason, we have to manually parse the content, which we do here:
@@ -58,12 +58,12 @@ public abstract class SystemLogMessage extends LogMessageImplementation {
         // A clean solution would be, to fix the ASN1 definition of systemlogs and use a context-specific constructed tag here, i.e. 0xA1 instead of 0x81,
         // but this requires TR-03151 to be fixed.
 
-        parseAdditionalInternalData(dtbsStream, logMessageAsASN1List, logMessageIterator);
+        parseAdditionalInternalData(logMessageAsASN1List, logMessageIterator);
 
     }
 
 
-    void parseOperationType(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    void parseOperationType(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new OperationTypeParsingException(properties.getString("de.konfidas.ttc.messages.operationsTypeElementNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof DLTaggedObject)) {
@@ -77,12 +77,11 @@ public abstract class SystemLogMessage extends LogMessageImplementation {
             throw new OperationTypeParsingException(String.format(properties.getString("de.konfidas.ttc.messages.operationTypeNotFound"),tag));
         }
 
-        dtbsStream.write(element.getEncoded());
         operationType = element;
 
     }
 
-    void parseSystemOperationDataElement(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    void parseSystemOperationDataElement(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new SystemOperationDataParsingException(properties.getString("de.konfidas.ttc.message.systemOperationDataNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof DLTaggedObject)) {
@@ -96,13 +95,12 @@ public abstract class SystemLogMessage extends LogMessageImplementation {
             throw new SystemOperationDataParsingException(String.format(properties.getString("de.konfidas.ttc.message.systemOperationDataWrongExpectedElement"),tag));
         }
 
-        dtbsStream.write(element.getEncoded());
         systemOperationData = (DLTaggedObject) element;
     }
 
     protected abstract void parseSystemOperationDataContent(ASN1InputStream stream) throws SystemLogParsingException, IOException;
 
-    void parseAdditionalInternalData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+    void parseAdditionalInternalData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.additonalInternalDataNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
         if (!(nextElement instanceof DLTaggedObject)) {
@@ -120,12 +118,11 @@ public abstract class SystemLogMessage extends LogMessageImplementation {
         if (tag != 2){
             throw new SystemLogParsingException(String.format(properties.getString("de.konfidas.ttc.message.additionalInternalDataWrongElement"),tag));
         }
-        dtbsStream.write(element.getEncoded());
         additionalInternalData = element;
     }
 
     @Override
-    void parseSeAuditData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException {
+    void parseSeAuditData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException {
 
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.message.seAuditDataNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
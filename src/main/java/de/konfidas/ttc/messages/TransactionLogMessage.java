@@ -1,6 +1,5 @@
 package de.konfidas.ttc.messages;
 
-import de.konfidas.ttc.utilities.ByteArrayOutputStream;
 import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
 import de.konfidas.ttc.utilities.oid;
 import org.bouncycastle.asn1.*;
@@ -87,28 +86,59 @@ public class TransactionLogMessage extends LogMessageImplementation {
     }
 
     @Override
-    void parseCertifiedDataType(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
-//        void parseCertifiedDataType(ByteArrayOutputStream dtbsStream, Enumeration<ASN1Primitive> asn1Primitives) throws IOException, LogMessage.CertifiedDataTypeParsingException, ExtendLengthValueExceedsInteger {
-        super.parseCertifiedDataType(dtbsStream,logMessageAsASN1List,logMessageIterator);
+    void parseCertifiedDataType(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException {
+//        void parseCertifiedDataType(Enumeration<ASN1Primitive> asn1Primitives) throws IOException, LogMessage.CertifiedDataTypeParsingException, ExtendLengthValueExceedsInteger {
+        super.parseCertifiedDataType(logMessageAsASN1List,logMessageIterator);
         if(this.certifiedDataType != oid.id_SE_API_transaction_log){
             throw new LogMessageImplementation.CertifiedDataTypeParsingException(String.format(properties.getString("de.konfidas.ttc.messages.certifiedDataTypeWrongType"),this.certifiedDataType.getName()), null);
         }
     }
 
     @Override
-    void parseCertifiedData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
-        parseOperationType( dtbsStream, logMessageAsASN1List, logMessageIterator);
-        parseClientID( dtbsStream, logMessageAsASN1List, logMessageIterator);
-        parseProcessData( dtbsStream, logMessageAsASN1List, logMessageIterator);
-        parseProcessType( dtbsStream, logMessageAsASN1List, logMessageIterator);
-        parseAdditionalExternalData( dtbsStream, logMessageAsASN1List, logMessageIterator);
-        parseTransactionNumber( dtbsStream, logMessageAsASN1List, logMessageIterator);
-        parseAdditionalInternalData( dtbsStream, logMessageAsASN1List, logMessageIterator);
+    void parseCertifiedData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+        parseOperationType(logMessageAsASN1List, logMessageIterator);
+        parseClientID(logMessageAsASN1List, logMessageIterator);
+        parseProcessData(logMessageAsASN1List, logMessageIterator);
+        parseProcessType(logMessageAsASN1List, logMessageIterator);
+        parseAdditionalExternalData(logMessageAsASN1List, logMessageIterator);
+        parseTransactionNumber(logMessageAsASN1List, logMessageIterator);
+        parseAdditionalInternalData(logMessageAsASN1List, logMessageIterator);
 
 
     }
 
-    void parseOperationType(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+    @Override
+    boolean readCertifiedData(DerCursor cursor) {
+        if (this.certifiedDataType != oid.id_SE_API_transaction_log) { return false; }
+
+        // Die Elemente von certifiedData sind implizit getaggt, [0] bis [6]
+        if (!cursor.next(0x80)) { return false; }
+        setOperationType(cursor.printableString());
+        if (!cursor.next(0x81)) { return false; }
+        setClientID(cursor.printableString());
+        if (!cursor.next(0x82)) { return false; }
+        setProcessData(cursor.octets());
+        if (!cursor.next(0x83)) { return false; }
+        setProcessType(cursor.printableString());
+        if (cursor.next(0x84)) {
+            setAdditionalExternalData(cursor.octets());
+        }
+        if (!cursor.next(0x85) || !cursor.isValidInteger()) { return false; }
+        setTransactionNumber(cursor.bigIntegerValue());
+        if (cursor.next(0x86)) {
+            setAdditionalInternalData(cursor.octets());
+        }
+        return true;
+    }
+
+    @Override
+    boolean readSeAuditData(DerCursor cursor) {
+        // Transaction Logs haben kein seAuditData. Ein OCTET STRING an dieser Stelle führt dazu, dass der
+        // Signaturzähler nicht gefunden wird und die LogMessage mit BouncyCastle geparst wird.
+        return true;
+    }
+
+    void parseOperationType(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.certifiedDataNotFound")); }
 
         ASN1Primitive nextElement =  logMessageAsASN1List.get(logMessageIterator.nextIndex());
@@ -120,11 +150,10 @@ public class TransactionLogMessage extends LogMessageImplementation {
         DLTaggedObject element = (DLTaggedObject)logMessageIterator.next();
         DERPrintableString innerElement = DERPrintableString.getInstance(element,false);
         operationType = innerElement.toString();
-        dtbsStream.write(getEncodedValue(innerElement));
 
     }
 
-    void parseClientID(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+    void parseClientID(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.clientIDInCertifiedDataNotFound")); }
 
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
@@ -136,11 +165,10 @@ public class TransactionLogMessage extends LogMessageImplementation {
 
         DERPrintableString innerElement = DERPrintableString.getInstance(element,false);
         clientID = innerElement.toString();
-        dtbsStream.write(getEncodedValue(innerElement));
 
     }
 
-    void parseProcessData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+    void parseProcessData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.processDataInCertifiedDataNotFound")); }
 
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
@@ -153,11 +181,10 @@ public class TransactionLogMessage extends LogMessageImplementation {
         ASN1OctetString innerElement = ASN1OctetString.getInstance(element,false);
 
         processData = innerElement.getOctets();
-        dtbsStream.write(getEncodedValue(innerElement));
 
     }
 
-    void parseProcessType(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+    void parseProcessType(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.processTypeInCertifiedDataNotFound")); }
 
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
@@ -169,11 +196,10 @@ public class TransactionLogMessage extends LogMessageImplementation {
         DERPrintableString innerElement = DERPrintableString.getInstance(element, false);
 
         processType = innerElement.toString();
-        dtbsStream.write(getEncodedValue(innerElement));
 
     }
 
-    void parseAdditionalExternalData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+    void parseAdditionalExternalData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
 
         if (!logMessageIterator.hasNext()) {
             logger.debug(String.format("additionalExternalData in certifiedData not found for message: {}.",this.getFileName())); //NON-NLS
@@ -198,12 +224,11 @@ public class TransactionLogMessage extends LogMessageImplementation {
 //        DEROctetString innerElement = (DEROctetString) element.getObject();
 
         additionalExternalData = innerElement.getOctets();
-        dtbsStream.write(getEncodedValue(innerElement));
 
 
     }
 
-    void parseTransactionNumber(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+    void parseTransactionNumber(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.transactionNumberInCertifiedDataNotFound")); }
 
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
@@ -215,11 +240,10 @@ public class TransactionLogMessage extends LogMessageImplementation {
         ASN1Integer innerElement = ASN1Integer.getInstance(element,false);
 
         transactionNumber = innerElement.getValue();
-        dtbsStream.write(getEncodedValue(innerElement));
 
     }
 
-    void parseAdditionalInternalData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
+    void parseAdditionalInternalData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException, IOException{
         if (!logMessageIterator.hasNext()) {
 //            throw new LogMessageParsingException("additionalExternalData in certifiedData  not found");
 //TODO: Logging
@@ -247,12 +271,11 @@ return;
 //
 
         additionalInternalData = innerElement.getOctets();
-        dtbsStream.write(getEncodedValue(innerElement));
 
     }
 
     @Override
-    void parseSeAuditData(ByteArrayOutputStream dtbsStream, List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException {
+    void parseSeAuditData(List<ASN1Primitive> logMessageAsASN1List, ListIterator<ASN1Primitive> logMessageIterator) throws LogMessageParsingException {
 
         if (!logMessageIterator.hasNext()) { throw new LogMessageParsingException(properties.getString("de.konfidas.ttc.messages.seAuditDataNotFound")); }
         ASN1Primitive nextElement = logMessageAsASN1List.get(logMessageIterator.nextIndex());
@@ -0,0 +1,32 @@
+package de.konfidas.ttc.messages.logtime;
+
+/**
+ * A log time, which was read back from an index or a checkpoint. It keeps the type, the time in milliseconds and
+ * the textual representation of the original log time, but not its encoding.
+ */
+public class StoredLogTime extends LogTime {
+    final Type type;
+    final long time;
+    final String string;
+
+    public StoredLogTime(Type type, long time, String string) {
+        this.type = type;
+        this.time = time;
+        this.string = string;
+    }
+
+    @Override
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return string;
+    }
+}
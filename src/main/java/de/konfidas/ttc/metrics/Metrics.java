@@ -0,0 +1,226 @@
+package de.konfidas.ttc.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the time, throughput, allocation and errors of the phases of a run, e.g. parsing a TAR file, decoding
+ * log messages, each validator and each reporter. Classes, which are passed a Metrics instance, record their phases
+ * into it. Classes without Metrics instance record nothing and do not pay for it.
+ *
+ * Phases may run on several threads at once, so their times are summed up over all threads. The throughput of a
+ * phase is therefore its throughput per thread.
+ *
+ * Each timed section of a phase, which is not timed per item, is also emitted as a JFR event
+ * (de.konfidas.ttc.Phase), if a flight recording is running, e.g. with -XX:StartFlightRecording.
+ */
+public class Metrics {
+    // null, if the JVM can not measure allocations per thread
+    static final com.sun.management.ThreadMXBean threads = allocationMeasuringThreadMXBean();
+
+    final LinkedHashMap<String, Phase> phases = new LinkedHashMap<>();
+
+    /**
+     * @return the phase with the given name. It is created on first use. Its sections emit JFR events.
+     */
+    public Phase phase(String name) {
+        return phase(name, true);
+    }
+
+    /**
+     * @param emitsEvents false for phases, which are timed per item, e.g. per log message. Their sections are
+     *                    too many for JFR events. Only used, when the phase is created.
+     * @return the phase with the given name. It is created on first use.
+     */
+    public synchronized Phase phase(String name, boolean emitsEvents) {
+        return phases.computeIfAbsent(name, n -> new Phase(n, emitsEvents));
+    }
+
+    /**
+     * @return the phases in the order, in which they were used first.
+     */
+    public synchronized Collection<Phase> getPhases() {
+        return new ArrayList<>(phases.values());
+    }
+
+    static com.sun.management.ThreadMXBean allocationMeasuringThreadMXBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        } catch (UnsupportedOperationException | LinkageError e) {
+            // allocations are just not measured then
+        }
+        return null;
+    }
+
+    static long allocatedBytesOfCurrentThread() {
+        return (null == threads) ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * The accumulated measurements of one phase. All methods are thread safe.
+     */
+    public static class Phase {
+        final String name;
+        final boolean emitsEvents;
+        final LongAdder sections = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder items = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        Phase(String name, boolean emitsEvents) {
+            this.name = name;
+            this.emitsEvents = emitsEvents;
+        }
+
+        /**
+         * Starts a timed section of this phase. It has to be closed by the same thread, which started it, to
+         * measure its allocations.
+         */
+        public Timer start() {
+            return new Timer(this);
+        }
+
+        /**
+         * Adds time, which was measured by the caller, e.g. for sections, which are too short to be timed one by one.
+         */
+        public void addNanos(long nanos) {
+            this.nanos.add(nanos);
+        }
+
+        /**
+         * Adds processed items, usually log messages.
+         */
+        public void addItems(long items) {
+            this.items.add(items);
+        }
+
+        public void addBytes(long bytes) {
+            this.bytes.add(bytes);
+        }
+
+        public void addErrors(long errors) {
+            this.errors.add(errors);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSections() {
+            return sections.sum();
+        }
+
+        public long getNanos() {
+            return nanos.sum();
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+
+        public long getItems() {
+            return items.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * @return the items processed per second, or 0, if no time was measured.
+         */
+        public double getItemsPerSecond() {
+            long n = getNanos();
+            return (n == 0) ? 0 : getItems() * 1e9 / n;
+        }
+
+        /**
+         * @return the bytes allocated per item, or 0, if there are no items.
+         */
+        public long getAllocatedBytesPerItem() {
+            long i = getItems();
+            return (i == 0) ? 0 : getAllocatedBytes() / i;
+        }
+    }
+
+    /**
+     * A timed section of a phase. Items, bytes and errors added to the timer are added to the phase and to the
+     * JFR event of the section.
+     */
+    public static class Timer implements AutoCloseable {
+        final Phase phase;
+        final long startNanos;
+        final long startAllocatedBytes;
+        final PhaseEvent event;
+        long items = 0;
+        long bytes = 0;
+        long errors = 0;
+
+        Timer(Phase phase) {
+            this.phase = phase;
+            if (phase.emitsEvents) {
+                PhaseEvent e = new PhaseEvent();
+                if (e.isEnabled()) {
+                    e.begin();
+                    this.event = e;
+                } else {
+                    this.event = null;
+                }
+            } else {
+                this.event = null;
+            }
+            this.startAllocatedBytes = allocatedBytesOfCurrentThread();
+            this.startNanos = System.nanoTime();
+        }
+
+        public Timer addItems(long items) {
+            this.items += items;
+            return this;
+        }
+
+        public Timer addBytes(long bytes) {
+            this.bytes += bytes;
+            return this;
+        }
+
+        public Timer addErrors(long errors) {
+            this.errors += errors;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            phase.nanos.add(System.nanoTime() - startNanos);
+            phase.allocatedBytes.add(allocatedBytesOfCurrentThread() - startAllocatedBytes);
+            phase.sections.increment();
+            phase.items.add(items);
+            phase.bytes.add(bytes);
+            phase.errors.add(errors);
+            if (null != event) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.phase = phase.name;
+                    event.items = items;
+                    event.bytes = bytes;
+                    event.errors = errors;
+                    event.commit();
+                }
+            }
+        }
+    }
+}
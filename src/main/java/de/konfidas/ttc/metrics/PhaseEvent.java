@@ -0,0 +1,26 @@
+package de.konfidas.ttc.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * The JFR event of a timed section of a Metrics.Phase.
+ */
+@Name("de.konfidas.ttc.Phase") //NON-NLS
+@Label("TTC Phase") //NON-NLS
+@Category("TTC") //NON-NLS
+@Description("A timed section of a phase of the validation, e.g. parsing a TAR file or running a validator.") //NON-NLS
+@StackTrace(false)
+class PhaseEvent extends Event {
+    @Label("Phase") //NON-NLS
+    String phase;
+
+    @Label("Items") //NON-NLS
+    long items;
+
+    @Label("Bytes") //NON-NLS
+    @DataAmount
+    long bytes;
+
+    @Label("Errors") //NON-NLS
+    long errors;
+}
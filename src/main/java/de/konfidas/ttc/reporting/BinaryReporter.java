@@ -0,0 +1,120 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.SerialNumber;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.validation.ValidationErrorIndex;
+import de.konfidas.ttc.validation.ValidationResult;
+import de.konfidas.ttc.validation.Validator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Writes one compact binary record for each error of the validation, in the order of the ValidationResult. Other
+ * tools can read the report without parsing text.
+ *
+ * The report starts with the int MAGIC and the byte VERSION, followed by records. Each record starts with a tag
+ * byte. All numbers are big endian, as written by DataOutputStream. A length prefixed value is an int length
+ * followed by as many bytes, where the length -1 means null. Strings are UTF-8 encoded.
+ * <ul>
+ *     <li>TAG_CONSTANT: a length prefixed value, which gets the next id, starting with 0. Values, which repeat in
+ *     many records, are written only once as constant: the classes of errors and validators and serial numbers.</li>
+ *     <li>TAG_ERROR: the ids of the exception class, the validator and the serial number as int, -1 if not
+ *     known, followed by the length prefixed file name, signature counter (two's complement, as by
+ *     BigInteger.toByteArray()) and the description of the error, as by its toString().</li>
+ *     <li>TAG_END: the number of errors as int. It is the last record.</li>
+ * </ul>
+ * The serial number, file name and signature counter are null, if the error does not belong to a single log message.
+ */
+public class BinaryReporter implements Reporter<byte[]> {
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    public static final int MAGIC = 0x54544342; // "TTCB"
+    public static final byte VERSION = 1;
+    public static final byte TAG_END = 0;
+    public static final byte TAG_CONSTANT = 1;
+    public static final byte TAG_ERROR = 2;
+
+    /**
+     * Writes the report to the given stream. The stream is flushed, but not closed.
+     */
+    public void writeReport(OutputStream out, Collection<LogMessageArchive> logs, ValidationResult vResult) throws ReporterException {
+        ValidationErrorIndex index = vResult.getErrorIndex();
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, StreamingReporter.BUFFER_SIZE));
+        HashMap<Object, Integer> constants = new HashMap<>();
+        try {
+            data.writeInt(MAGIC);
+            data.writeByte(VERSION);
+            int numberOfErrors = 0;
+            for (ValidationException e : vResult.getValidationErrors()) {
+                LogMessage msg = (e instanceof LogMessageValidationException) ? ((LogMessageValidationException) e).getLogMessage() : null;
+                Validator validator = index.getValidator(e);
+                int exceptionClassId = constant(data, constants, e.getClass().getName());
+                int validatorId = (null == validator) ? -1 : constant(data, constants, validator.getClass().getName());
+                int serialNumberId = (null == msg) ? -1 : constant(data, constants, msg.getInternedSerialNumber());
+
+                data.writeByte(TAG_ERROR);
+                data.writeInt(exceptionClassId);
+                data.writeInt(validatorId);
+                data.writeInt(serialNumberId);
+                writeString(data, (null == msg) ? null : msg.getFileName());
+                writeBytes(data, (null == msg) ? null : msg.getSignatureCounter().toByteArray());
+                writeString(data, e.toString());
+                numberOfErrors++;
+            }
+            data.writeByte(TAG_END);
+            data.writeInt(numberOfErrors);
+            data.flush();
+        } catch (IOException e) {
+            throw new ReporterException(properties.getString("de.konfidas.ttc.reporting.errorCreatingReport"), e);
+        }
+    }
+
+    /**
+     * Creates the whole report in memory. Only meant for small reports, use writeReport() otherwise.
+     */
+    @Override
+    public byte[] createReport(Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitMessages) throws ReporterException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeReport(out, logs, vResult);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param value a String or a SerialNumber.
+     * @return the id of the constant. It is written first, if it was not written before.
+     */
+    static int constant(DataOutputStream data, HashMap<Object, Integer> constants, Object value) throws IOException {
+        Integer id = constants.get(value);
+        if (null == id) {
+            id = constants.size();
+            constants.put(value, id);
+            data.writeByte(TAG_CONSTANT);
+            writeBytes(data, (value instanceof String)
+                    ? ((String) value).getBytes(StandardCharsets.UTF_8)
+                    : ((SerialNumber) value).getBytes());
+        }
+        return id;
+    }
+
+    static void writeString(DataOutputStream data, String s) throws IOException {
+        writeBytes(data, (null == s) ? null : s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void writeBytes(DataOutputStream data, byte[] bytes) throws IOException {
+        if (null == bytes) {
+            data.writeInt(-1);
+            return;
+        }
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
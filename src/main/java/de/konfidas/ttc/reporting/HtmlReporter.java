@@ -4,7 +4,9 @@ import de.konfidas.ttc.exceptions.LogMessageValidationException;
 import de.konfidas.ttc.exceptions.ValidationException;
 import de.konfidas.ttc.messages.LogMessage;
 import de.konfidas.ttc.messages.TransactionLogMessage;
+import de.konfidas.ttc.metrics.Metrics;
 import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.validation.ValidationErrorIndex;
 import de.konfidas.ttc.validation.ValidationResult;
 import de.konfidas.ttc.validation.Validator;
 import org.apache.commons.codec.binary.Hex;
@@ -12,12 +14,13 @@ import java.io.*;
 import java.nio.file.Files;
 import java.util.*;
 
-public class HtmlReporter implements Reporter<String> {
+public class HtmlReporter implements StreamingReporter {
 
     static Locale locale = new Locale("de", "DE"); //NON-NLS
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale); //NON-NLS
     boolean skipLegitLogMessages;
     HashSet<Class<? extends ValidationException>> issuesToIgnore;
+    Metrics metrics;
 
     public HtmlReporter(){
         this.issuesToIgnore = new HashSet<>();
@@ -34,6 +37,15 @@ public class HtmlReporter implements Reporter<String> {
         return this;
     }
 
+    /**
+     * Adds a section with the given metrics to the report.
+     * @param metrics metrics to report, or null to omit the section.
+     */
+    public HtmlReporter setMetrics(Metrics metrics){
+        this.metrics = metrics;
+        return this;
+    }
+
     HtmlReporter ignoreIssue(Class<? extends ValidationException> t){
         issuesToIgnore.add(t);
         return this;
@@ -45,9 +57,9 @@ public class HtmlReporter implements Reporter<String> {
     }
 
     @Override
-    public String createReport(Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitLogMessages) throws ReporterException {
+    public void writeReport(Writer sw, Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitLogMessages) throws ReporterException {
         this.skipLegitLogMessages = skipLegitLogMessages;
-        try(StringWriter sw = new StringWriter()){
+        try {
             printHeader(sw);
 
             printTars(sw, logs);
@@ -55,54 +67,40 @@ public class HtmlReporter implements Reporter<String> {
 
             printErrorNum(sw, vResult.getValidationErrors());
 
-            printNonLogMessageValidationExceptions(sw, vResult.getValidationErrors());
+            printNonLogMessageValidationExceptions(sw, vResult.getErrorIndex().getGeneralErrors());
 
             printLogMessageDetails(sw, logs, vResult);
 
+            if (null != metrics) {
+                MetricsSection.writeHtml(sw, metrics);
+            }
+
             printFooter(sw);
-            return sw.toString();
         } catch (IOException e) {
             throw new ReporterException(properties.getString("de.konfidas.ttc.reporting.errorCreatingHTMLReport"),e);
         }
 
     }
 
-    void printNonLogMessageValidationExceptions(StringWriter sw, Collection<ValidationException> validationErrors) throws IOException {
+    void printNonLogMessageValidationExceptions(Writer sw, Collection<ValidationException> validationErrors) throws IOException {
         sw.write(properties.getString("de.konfidas.ttc.reporting.HtmlHeadlineGeneralErrors"));
-        long numberOfGeneralValidationExceptions = validationErrors.stream().filter(c -> !(c instanceof LogMessageValidationException)).count();
-        if (numberOfGeneralValidationExceptions>0)
+        if (!validationErrors.isEmpty())
             sw.write(properties.getString("de.konfidas.ttc.reporting.htmlReportIntroductionToIssues"));
         else
             sw.write(properties.getString("de.konfidas.ttc.reporting.htmlReportNone"));
 
         sw.write("<ul>");//NON-NLS
         for(ValidationException v : validationErrors){
-            if(!(v instanceof LogMessageValidationException)){
-
-                if(!issuesToIgnore.contains(v.getClass())) {
-                    sw.write("<li>" + v.toString() + "</li>");//NON-NLS
-                }
+            if(!issuesToIgnore.contains(v.getClass())) {
+                sw.write("<li>" + v.toString() + "</li>");//NON-NLS
             }
         }
         sw.write("</ul>");//NON-NLS
 
     }
 
-    void printLogMessageDetails(StringWriter sw, Collection<LogMessageArchive> logs, ValidationResult vResult) throws IOException {
-        HashMap<LogMessage, LinkedList<LogMessageValidationException>> map = new HashMap<>();
-        for(ValidationException e: vResult.getValidationErrors()){
-            if(e instanceof LogMessageValidationException){
-                if(!issuesToIgnore.contains(e.getClass())) {
-                    if (map.containsKey(((LogMessageValidationException) e).getLogMessage())) {
-                        map.get(((LogMessageValidationException) e).getLogMessage()).add((LogMessageValidationException) e);
-                    } else {
-                        LinkedList<LogMessageValidationException> l = new LinkedList<>();
-                        l.add((LogMessageValidationException) e);
-                        map.put(((LogMessageValidationException) e).getLogMessage(), l);
-                    }
-                }
-            }
-        }
+    void printLogMessageDetails(Writer sw, Collection<LogMessageArchive> logs, ValidationResult vResult) throws IOException {
+        ValidationErrorIndex index = vResult.getErrorIndex();
         sw.write(properties.getString("de.konfidas.ttc.reporting.htmlHeadlineForLogMessageErrors"));
 
         if(skipLegitLogMessages){
@@ -111,14 +109,15 @@ public class HtmlReporter implements Reporter<String> {
 
         for(LogMessageArchive tar : logs){
             for (LogMessage lm : tar.getSortedLogMessages()){
-                if(!map.containsKey(lm)){
+                List<LogMessageValidationException> errors = index.getErrors(lm, issuesToIgnore);
+                if(errors.isEmpty()){
                     if(!skipLegitLogMessages) {
                         sw.write(String.format(properties.getString("de.konfidas.ttc.reporting.logMessageIsValid"), lm.getFileName()));
                     }
                 }else{
                     sw.write(String.format(properties.getString("de.konfidas.ttc.reporting.introductionErrorsHTMLReport"), lm.getFileName()));
                     sw.write("<ul>");//NON-NLS
-                    for(LogMessageValidationException e : map.get(lm)) {
+                    for(LogMessageValidationException e : errors) {
                         sw.write("<li>" + e.toString() + "</li>");//NON-NLS
                     }
                     sw.write("</ul>");//NON-NLS
@@ -136,11 +135,11 @@ public class HtmlReporter implements Reporter<String> {
         }
     }
 
-    void printErrorNum(StringWriter sw, Collection<ValidationException> validationErrors) throws IOException {
+    void printErrorNum(Writer sw, Collection<ValidationException> validationErrors) throws IOException {
         sw.write(String.format(properties.getString("de.konfidas.ttc.reporting.introductionNumberOfErrors"),validationErrors.size()));
     }
 
-    void printTars(StringWriter sw, Collection<LogMessageArchive> logs) throws IOException {
+    void printTars(Writer sw, Collection<LogMessageArchive> logs) throws IOException {
         sw.write("<h1 id=\"logmessages\">Log Messages</h1>\n");//NON-NLS
         sw.write(properties.getString("de.konfidas.ttc.reporting.reportCoversTheFollowingArchives"));
         sw.write("<ul>");//NON-NLS
@@ -153,9 +152,9 @@ public class HtmlReporter implements Reporter<String> {
     }
 
 
-    void printValidators(StringWriter sw, Collection<Validator> validators) throws IOException {
+    void printValidators(Writer sw, Collection<Validator> validators) throws IOException {
         sw.write(properties.getString("de.konfidas.ttc.reporting.headlineValidators"));
-        sw.write(properties.getString("de.konfidas.ttc.reporting.reportUsedValidators "));
+        sw.write(properties.getString("de.konfidas.ttc.reporting.reportUsedValidators"));
         sw.write("<ul>");//NON-NLS
 
         for(Validator v: validators){
@@ -165,7 +164,7 @@ public class HtmlReporter implements Reporter<String> {
     }
 
 
-    static void printHeader(StringWriter sw) throws IOException {
+    static void printHeader(Writer sw) throws IOException {
         String fileName = "report.css";
         ClassLoader classLoader = ClassLoader.getSystemClassLoader();
         File file = new File(classLoader.getResource(fileName).getFile());
@@ -182,13 +181,13 @@ public class HtmlReporter implements Reporter<String> {
         sw.write("<div style=\"margin-left:25%;padding:1px;\">\n");//NON-NLS
     }
 
-    static void printFooter(StringWriter sw) throws IOException {
+    static void printFooter(Writer sw) throws IOException {
         sw.write("</div>");//NON-NLS
         sw.write("<script>var acc = document.getElementsByClassName(\"accordion\"); var i; for (i = 0; i < acc.length; i++) { acc[i].addEventListener(\"click\", function() { this.classList.toggle(\"active\"); var panel = this.nextElementSibling; if (panel.style.maxHeight) { panel.style.maxHeight = null; } else { panel.style.maxHeight = panel.scrollHeight + \"px\"; } }); }</script>");//NON-NLS
         sw.write("</body></html>");//NON-NLS
     }
 
-    static void printLogMessage(LogMessage msg, StringWriter sw) throws IOException {
+    static void printLogMessage(LogMessage msg, Writer sw) throws IOException {
 
         sw.write("<tr><td>version:</td><td>"+ msg.getVersion()+"</td></tr>");//NON-NLS
         sw.write("<tr><td>certifiedDataType:</td><td>"+ msg.getCertifiedDataType().toString()+"</td></tr>");//NON-NLS
@@ -206,7 +205,7 @@ public class HtmlReporter implements Reporter<String> {
     }
 
 
-    static void reportCertifiedDataOfTransactionLogMessage(TransactionLogMessage msg, StringWriter sw) throws IOException {
+    static void reportCertifiedDataOfTransactionLogMessage(TransactionLogMessage msg, Writer sw) throws IOException {
         sw.write("todo");//NON-NLS
 //        ReportTree certifiedDataReportTree = new ReportTree("certifiedData", "");
 //        certifiedDataReportTree.addChild(new ReportTree("operationType", ((TransactionLogMessage) msg).getOperationType()));
@@ -0,0 +1,65 @@
+package de.konfidas.ttc.reporting;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Helpers to write JSON without building it in memory first.
+ */
+final class Json {
+    static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //NON-NLS
+
+    private Json() {
+    }
+
+    /**
+     * Writes the given string as a quoted and escaped JSON string, or null.
+     */
+    static void writeString(Writer out, String s) throws IOException {
+        if (null == s) {
+            out.write("null"); //NON-NLS
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '<' && c != 0x2028 && c != 0x2029) {
+                continue;
+            }
+            out.write(s, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"': out.write("\\\""); break; //NON-NLS
+                case '\\': out.write("\\\\"); break; //NON-NLS
+                case '\n': out.write("\\n"); break; //NON-NLS
+                case '\r': out.write("\\r"); break; //NON-NLS
+                case '\t': out.write("\\t"); break; //NON-NLS
+                default:
+                    // also escapes '<', so that JSON can be embedded into HTML and JavaScript safely
+                    out.write((c > 0xff) ? "\\u" : "\\u00"); //NON-NLS
+                    writeHex(out, c);
+            }
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+
+    static void writeHex(Writer out, char c) throws IOException {
+        if (c > 0xff) {
+            out.write(HEX_DIGITS[(c >> 12) & 0xf]);
+            out.write(HEX_DIGITS[(c >> 8) & 0xf]);
+        }
+        out.write(HEX_DIGITS[(c >> 4) & 0xf]);
+        out.write(HEX_DIGITS[c & 0xf]);
+    }
+
+    /**
+     * Writes "name":value, where value is written as JSON string.
+     */
+    static void writeField(Writer out, String name, String value) throws IOException {
+        writeString(out, name);
+        out.write(':');
+        writeString(out, value);
+    }
+}
@@ -0,0 +1,62 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.validation.ValidationErrorIndex;
+import de.konfidas.ttc.validation.ValidationResult;
+import de.konfidas.ttc.validation.Validator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Writes one JSON object per line (JSON Lines) for each error of the validation, in the order of the
+ * ValidationResult. Each object has the fields
+ * <ul>
+ *     <li>fileName, serialNumber (hex) and signatureCounter of the log message, or null, if the error does not belong
+ *     to a single log message,</li>
+ *     <li>validator: the class of the validator, which found the error, or null, if it is not known,</li>
+ *     <li>exceptionClass: the class of the error and</li>
+ *     <li>message: the description of the error, as by its toString(), as its message is the same for many
+ *     errors.</li>
+ * </ul>
+ * Valid log messages are not reported, so skipLegitMessages has no effect.
+ */
+public class JsonLinesReporter implements StreamingReporter {
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    @Override
+    public void writeReport(Writer out, Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitMessages) throws ReporterException {
+        ValidationErrorIndex index = vResult.getErrorIndex();
+        try {
+            for (ValidationException e : vResult.getValidationErrors()) {
+                writeRecord(out, e, index.getValidator(e));
+            }
+        } catch (IOException e) {
+            throw new ReporterException(properties.getString("de.konfidas.ttc.reporting.errorCreatingReport"), e);
+        }
+    }
+
+    static void writeRecord(Writer out, ValidationException e, Validator validator) throws IOException {
+        LogMessage msg = (e instanceof LogMessageValidationException) ? ((LogMessageValidationException) e).getLogMessage() : null;
+        out.write('{');
+        Json.writeField(out, "fileName", (null == msg) ? null : msg.getFileName()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "serialNumber", (null == msg) ? null : msg.getInternedSerialNumber().toHexString()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "signatureCounter", (null == msg) ? null : msg.getSignatureCounter().toString()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "validator", (null == validator) ? null : validator.getClass().getName()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "exceptionClass", e.getClass().getName()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "message", e.toString()); //NON-NLS
+        out.write("}\n"); //NON-NLS
+    }
+}
@@ -0,0 +1,44 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The section of a report, which lists the phases of a Metrics instance, one line per phase.
+ */
+public final class MetricsSection {
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    private MetricsSection() {
+    }
+
+    public static String describe(Metrics.Phase phase) {
+        return String.format(properties.getString("de.konfidas.ttc.reporting.metricsPhase"), phase.getName(),
+                TimeUnit.NANOSECONDS.toMillis(phase.getNanos()), phase.getItems(), phase.getItemsPerSecond(),
+                phase.getBytes(), phase.getAllocatedBytesPerItem(), phase.getErrors());
+    }
+
+    static void writeText(Writer sw, Metrics metrics) throws IOException {
+        sw.write(properties.getString("de.konfidas.ttc.reporting.reportMetrics"));
+        sw.write(System.lineSeparator());
+        for (Metrics.Phase phase : metrics.getPhases()) {
+            sw.write("    " + describe(phase)); //NON-NLS
+            sw.write(System.lineSeparator());
+        }
+    }
+
+    static void writeHtml(Writer sw, Metrics metrics) throws IOException {
+        sw.write(properties.getString("de.konfidas.ttc.reporting.htmlHeadlineMetrics"));
+        sw.write("<ul>"); //NON-NLS
+        for (Metrics.Phase phase : metrics.getPhases()) {
+            sw.write("<li>" + PagedHtmlReporter.escape(describe(phase)) + "</li>"); //NON-NLS
+        }
+        sw.write("</ul>"); //NON-NLS
+    }
+}
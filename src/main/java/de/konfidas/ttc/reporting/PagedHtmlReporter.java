@@ -0,0 +1,363 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.validation.ValidationErrorIndex;
+import de.konfidas.ttc.validation.ValidationResult;
+import de.konfidas.ttc.validation.Validator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * An HTML report, which is split into multiple files, so that browsers can open it even for archives with millions
+ * of log messages. The report directory contains:
+ * <ul>
+ * <li>index.html, the summary: archives, validators with their number of errors, the number of errors of each
+ * exception class, the general errors and the list of pages.</li>
+ * <li>page-N.html, the log messages of page N in the order of getSortedLogMessages(), at most pageSize per page,
+ * with their errors.</li>
+ * <li>details-N.js, the content of the erroneous log messages of page N. It is only loaded, when the details of a
+ * log message are requested. The content is JSON, which is passed to a function, because browsers do not allow
+ * pages, which are opened from the file system, to fetch JSON files.</li>
+ * </ul>
+ * The pages are written while the log messages are iterated, so only a summary of each page is held in memory.
+ */
+public class PagedHtmlReporter implements Reporter<File> {
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale); //NON-NLS
+
+    static final int DEFAULT_PAGE_SIZE = 10000;
+    static final String INDEX_FILE = "index.html"; //NON-NLS
+    static final String CSS_FILE = "report.css"; //NON-NLS
+
+    final File directory;
+    int pageSize = DEFAULT_PAGE_SIZE;
+    boolean skipLegitLogMessages;
+    final HashSet<Class<? extends ValidationException>> issuesToIgnore = new HashSet<>();
+
+    /**
+     * @param directory the directory, to which the files of the report are written. It is created, if it does not
+     *                  exist.
+     */
+    public PagedHtmlReporter(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the maximum number of log messages per page.
+     * @return this reporter
+     */
+    public PagedHtmlReporter setPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive"); //NON-NLS
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    PagedHtmlReporter ignoreIssue(Class<? extends ValidationException> t) {
+        issuesToIgnore.add(t);
+        return this;
+    }
+
+    /**
+     * The summary of a page, which is kept for the index.
+     */
+    static class Page {
+        final int number;
+        String firstLogMessage;
+        String lastLogMessage;
+        int numberOfLogMessages = 0;
+        int numberOfErroneousLogMessages = 0;
+
+        Page(int number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * @return the index.html of the report.
+     */
+    @Override
+    public File createReport(Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitMessages) throws ReporterException {
+        this.skipLegitLogMessages = skipLegitMessages;
+        try {
+            Files.createDirectories(directory.toPath());
+            copyCss();
+
+            ValidationErrorIndex index = vResult.getErrorIndex();
+            List<Page> pages = writePages(logs, index);
+
+            File indexFile = new File(directory, INDEX_FILE);
+            try (Writer out = newWriter(indexFile)) {
+                writeIndex(out, logs, vResult, index, pages);
+            }
+            return indexFile;
+        } catch (IOException | UncheckedIOException e) {
+            throw new ReporterException(properties.getString("de.konfidas.ttc.reporting.errorCreatingHTMLReport"), e);
+        }
+    }
+
+    static String pageFileName(int page) {
+        return String.format("page-%d.html", page); //NON-NLS
+    }
+
+    static String detailsFileName(int page) {
+        return String.format("details-%d.js", page); //NON-NLS
+    }
+
+    Writer newWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), StreamingReporter.BUFFER_SIZE);
+    }
+
+    void copyCss() throws IOException {
+        try (InputStream css = PagedHtmlReporter.class.getResourceAsStream("/" + CSS_FILE)) { //NON-NLS
+            if (null != css) {
+                Files.copy(css, new File(directory, CSS_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    List<Page> writePages(Collection<LogMessageArchive> logs, ValidationErrorIndex index) throws IOException {
+        ArrayList<Page> pages = new ArrayList<>();
+        Page page = null;
+        Writer pageOut = null;
+        Writer detailsOut = null;
+        try {
+            LogMessageIterator messages = new LogMessageIterator(logs);
+            while (messages.hasNext()) {
+                LogMessage lm = messages.next();
+                if (null == page) {
+                    page = new Page(pages.size() + 1);
+                    pages.add(page);
+                    pageOut = newWriter(new File(directory, pageFileName(page.number)));
+                    detailsOut = newWriter(new File(directory, detailsFileName(page.number)));
+                    writePageHeader(pageOut, page);
+                    detailsOut.write("ttcDetails(["); //NON-NLS
+                }
+
+                writeLogMessage(pageOut, detailsOut, page, lm, index.getErrors(lm, issuesToIgnore));
+
+                if (page.numberOfLogMessages == pageSize || !messages.hasNext()) {
+                    detailsOut.write("]);"); //NON-NLS
+                    detailsOut.close();
+                    writePageFooter(pageOut, page, messages.hasNext());
+                    pageOut.close();
+                    page = null;
+                }
+            }
+        } finally {
+            if (null != page) {
+                pageOut.close();
+                detailsOut.close();
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Iterates the sorted log messages of all archives, one archive after another.
+     */
+    static class LogMessageIterator implements Iterator<LogMessage> {
+        final Iterator<LogMessageArchive> archives;
+        Iterator<? extends LogMessage> current = Collections.emptyIterator();
+
+        LogMessageIterator(Collection<LogMessageArchive> logs) {
+            this.archives = logs.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && archives.hasNext()) {
+                current = archives.next().getSortedLogMessages().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public LogMessage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+
+    void writeLogMessage(Writer pageOut, Writer detailsOut, Page page, LogMessage lm, List<LogMessageValidationException> errors) throws IOException {
+        if (0 == page.numberOfLogMessages) {
+            page.firstLogMessage = lm.getFileName();
+        }
+        page.lastLogMessage = lm.getFileName();
+        page.numberOfLogMessages++;
+
+        if (errors.isEmpty()) {
+            if (!skipLegitLogMessages) {
+                pageOut.write(String.format(properties.getString("de.konfidas.ttc.reporting.pagedReportLogMessageIsValid"), escape(lm.getFileName())));
+            }
+            return;
+        }
+
+        pageOut.write("<li><b>" + escape(lm.getFileName()) + "</b><ul>"); //NON-NLS
+        for (LogMessageValidationException e : errors) {
+            pageOut.write("<li>" + escape(e.toString()) + "</li>"); //NON-NLS
+        }
+        pageOut.write("</ul>"); //NON-NLS
+        pageOut.write(String.format("<button type=\"button\" class=\"accordion\" onclick=\"showDetails(this, %d)\">", page.numberOfErroneousLogMessages)); //NON-NLS
+        pageOut.write(properties.getString("de.konfidas.ttc.reporting.pagedReportShowDetails"));
+        pageOut.write("</button><div class=\"panel\"></div></li>\n"); //NON-NLS
+
+        if (page.numberOfErroneousLogMessages > 0) {
+            detailsOut.write(",\n"); //NON-NLS
+        }
+        writeDetails(detailsOut, lm);
+        page.numberOfErroneousLogMessages++;
+    }
+
+    /**
+     * Writes the fields of the log message as JSON object.
+     */
+    static void writeDetails(Writer out, LogMessage msg) throws IOException {
+        out.write('{');
+        Json.writeField(out, "fileName", msg.getFileName()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "version", Integer.toString(msg.getVersion())); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "certifiedDataType", String.valueOf(msg.getCertifiedDataType())); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "serialNumber", msg.getInternedSerialNumber().toHexString()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "signatureCounter", msg.getSignatureCounter().toString()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "LogTimeFormat", msg.getLogTime().getType().toString()); //NON-NLS
+        out.write(',');
+        Json.writeField(out, "LogTime", msg.getLogTime().toString()); //NON-NLS
+        out.write('}');
+    }
+
+    void writePageHeader(Writer out, Page page) throws IOException {
+        out.write("<html><head><meta charset=\"utf-8\"><title>Report</title>"); //NON-NLS
+        out.write("<link rel=\"stylesheet\" href=\"" + CSS_FILE + "\">"); //NON-NLS
+        out.write("<script>\n"); //NON-NLS
+        // the details are loaded, when they are requested first
+        out.write("var details = null; var pending = [];\n"); //NON-NLS
+        out.write("function ttcDetails(d) { details = d; pending.forEach(function(p) { render(p[0], p[1]); }); pending = []; }\n"); //NON-NLS
+        out.write("function showDetails(button, i) { if (details) { render(button, i); return; } pending.push([button, i]);"); //NON-NLS
+        out.write(" if (pending.length == 1) { var s = document.createElement('script'); s.src = '" + detailsFileName(page.number) + "'; document.head.appendChild(s); } }\n"); //NON-NLS
+        out.write("function render(button, i) { var panel = button.nextElementSibling; if (panel.firstChild) { panel.innerHTML = ''; panel.style.maxHeight = null; return; }"); //NON-NLS
+        out.write(" var table = document.createElement('table'); var d = details[i];"); //NON-NLS
+        out.write(" for (var k in d) { var row = table.insertRow(); row.insertCell().textContent = k + ':'; row.insertCell().textContent = d[k]; }"); //NON-NLS
+        out.write(" panel.appendChild(table); panel.style.maxHeight = panel.scrollHeight + 'px'; }\n"); //NON-NLS
+        out.write("</script></head><body><div style=\"padding:1px;\">\n"); //NON-NLS
+        writeNavigation(out, page.number, false);
+        out.write(String.format(properties.getString("de.konfidas.ttc.reporting.pagedReportPageHeadline"), page.number));
+        if (skipLegitLogMessages) {
+            out.write(properties.getString("de.konfidas.ttc.reporting.htmlReportLegitMessagesWereSkipped"));
+        }
+        out.write("<ul>\n"); //NON-NLS
+    }
+
+    void writePageFooter(Writer out, Page page, boolean hasNextPage) throws IOException {
+        out.write("</ul>\n"); //NON-NLS
+        writeNavigation(out, page.number, hasNextPage);
+        out.write("</div></body></html>"); //NON-NLS
+    }
+
+    /**
+     * The header of a page is written, before it is known, whether there is a next page. So only the footer links to
+     * the next page.
+     */
+    static void writeNavigation(Writer out, int page, boolean hasNextPage) throws IOException {
+        out.write("<p><a href=\"" + INDEX_FILE + "\">" + properties.getString("de.konfidas.ttc.reporting.pagedReportBackToIndex") + "</a>"); //NON-NLS
+        if (page > 1) {
+            out.write(" | <a href=\"" + pageFileName(page - 1) + "\">" + properties.getString("de.konfidas.ttc.reporting.pagedReportPreviousPage") + "</a>"); //NON-NLS
+        }
+        if (hasNextPage) {
+            out.write(" | <a href=\"" + pageFileName(page + 1) + "\">" + properties.getString("de.konfidas.ttc.reporting.pagedReportNextPage") + "</a>"); //NON-NLS
+        }
+        out.write("</p>\n"); //NON-NLS
+    }
+
+    void writeIndex(Writer out, Collection<LogMessageArchive> logs, ValidationResult vResult, ValidationErrorIndex index, List<Page> pages) throws IOException {
+        out.write("<html><head><meta charset=\"utf-8\"><title>Report</title>"); //NON-NLS
+        out.write("<link rel=\"stylesheet\" href=\"" + CSS_FILE + "\">"); //NON-NLS
+        out.write("</head><body><div style=\"padding:1px;\">\n"); //NON-NLS
+
+        out.write("<h1 id=\"logmessages\">Log Messages</h1>\n"); //NON-NLS
+        out.write(properties.getString("de.konfidas.ttc.reporting.reportCoversTheFollowingArchives"));
+        out.write("<ul>"); //NON-NLS
+        for (LogMessageArchive l : logs) {
+            out.write("<li>" + escape(l.getFileName()) + "</li>"); //NON-NLS
+        }
+        out.write("</ul>\n"); //NON-NLS
+
+        out.write(properties.getString("de.konfidas.ttc.reporting.headlineValidators"));
+        out.write(properties.getString("de.konfidas.ttc.reporting.reportUsedValidators"));
+        out.write("<ul>"); //NON-NLS
+        for (Validator v : vResult.getValidators()) {
+            Integer count = index.getErrorCountsByValidator().get(v);
+            out.write("<li>" + escape(v.getClass().getName()) + ((null == count) ? "" : ": " + count) + "</li>"); //NON-NLS
+        }
+        out.write("</ul>\n"); //NON-NLS
+
+        out.write(String.format(properties.getString("de.konfidas.ttc.reporting.pagedReportNumberOfErrors"), index.getNumberOfErrors(), index.getNumberOfLogMessagesWithErrors()));
+        out.write("<ul>"); //NON-NLS
+        for (Map.Entry<Class<? extends ValidationException>, Integer> e : index.getErrorCountsByClass().entrySet()) {
+            out.write("<li>" + escape(e.getKey().getName()) + ": " + e.getValue() + "</li>"); //NON-NLS
+        }
+        out.write("</ul>\n"); //NON-NLS
+
+        out.write(properties.getString("de.konfidas.ttc.reporting.HtmlHeadlineGeneralErrors"));
+        out.write(properties.getString(index.getGeneralErrors().isEmpty() ? "de.konfidas.ttc.reporting.htmlReportNone" : "de.konfidas.ttc.reporting.htmlReportIntroductionToIssues"));
+        out.write("<ul>"); //NON-NLS
+        for (ValidationException v : index.getGeneralErrors()) {
+            if (!issuesToIgnore.contains(v.getClass())) {
+                out.write("<li>" + escape(v.toString()) + "</li>"); //NON-NLS
+            }
+        }
+        out.write("</ul>\n"); //NON-NLS
+
+        out.write(properties.getString("de.konfidas.ttc.reporting.pagedReportPagesHeadline"));
+        out.write("<ul>"); //NON-NLS
+        for (Page page : pages) {
+            out.write("<li><a href=\"" + pageFileName(page.number) + "\">"); //NON-NLS
+            out.write(String.format(properties.getString("de.konfidas.ttc.reporting.pagedReportPageEntry"), page.number,
+                    escape(page.firstLogMessage), escape(page.lastLogMessage), page.numberOfLogMessages, page.numberOfErroneousLogMessages));
+            out.write("</a></li>\n"); //NON-NLS
+        }
+        out.write("</ul>\n"); //NON-NLS
+        out.write("</div></body></html>"); //NON-NLS
+    }
+
+    static String escape(String s) {
+        if (null == s) {
+            return ""; //NON-NLS
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<': replacement = "&lt;"; break; //NON-NLS
+                case '>': replacement = "&gt;"; break; //NON-NLS
+                case '&': replacement = "&amp;"; break; //NON-NLS
+                case '"': replacement = "&quot;"; break; //NON-NLS
+                default: replacement = null;
+            }
+            if (null != replacement) {
+                if (null == sb) {
+                    sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+                }
+                sb.append(replacement);
+            } else if (null != sb) {
+                sb.append(c);
+            }
+        }
+        return (null == sb) ? s : sb.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.validation.ValidationResult;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * A Reporter, which writes its report piece by piece to a Writer, instead of creating the whole report in memory.
+ * The size of a report is then not limited by the heap, e.g. for archives with millions of valid log messages.
+ */
+public interface StreamingReporter extends Reporter<String> {
+    // the report is written to the underlying stream in chunks of this size
+    int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes the report to the given writer. The writer is neither flushed nor closed.
+     */
+    void writeReport(Writer out, Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitMessages) throws ReporterException;
+
+    /**
+     * Writes the report UTF-8 encoded to the given stream. The stream is flushed, but not closed.
+     */
+    default void writeReport(OutputStream out, Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitMessages) throws ReporterException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writeReport(writer, logs, vResult, skipLegitMessages);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            ResourceBundle properties = ResourceBundle.getBundle("ttc", new Locale("de", "DE"));//NON-NLS
+            throw new ReporterException(properties.getString("de.konfidas.ttc.reporting.errorCreatingReport"), e);
+        }
+    }
+
+    /**
+     * Creates the whole report in memory. Only meant for small reports, use writeReport() otherwise.
+     */
+    @Override
+    default String createReport(Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitMessages) throws ReporterException {
+        StringWriter sw = new StringWriter();
+        writeReport(sw, logs, vResult, skipLegitMessages);
+        return sw.toString();
+    }
+}
@@ -3,19 +3,22 @@ package de.konfidas.ttc.reporting;
 import de.konfidas.ttc.exceptions.LogMessageValidationException;
 import de.konfidas.ttc.exceptions.ValidationException;
 import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.metrics.Metrics;
 import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.validation.ValidationErrorIndex;
 import de.konfidas.ttc.validation.ValidationResult;
 import de.konfidas.ttc.validation.Validator;
 
 import java.io.*;
 import java.util.*;
 
-public class TextReporter implements Reporter<String> {
+public class TextReporter implements StreamingReporter {
     static Locale locale = new Locale("de", "DE"); //NON-NLS
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
 
     boolean skipLegitLogMessages;
     HashSet<Class<? extends ValidationException>> issuesToIgnore;
+    Metrics metrics;
 
     public TextReporter(){
         this.issuesToIgnore = new HashSet<>();
@@ -32,6 +35,15 @@ public class TextReporter implements Reporter<String> {
         return this;
     }
 
+    /**
+     * Adds a section with the given metrics to the report.
+     * @param metrics metrics to report, or null to omit the section.
+     */
+    public TextReporter setMetrics(Metrics metrics){
+        this.metrics = metrics;
+        return this;
+    }
+
     TextReporter ignoreIssue(Class<? extends ValidationException> t){
         issuesToIgnore.add(t);
         return this;
@@ -43,55 +55,41 @@ public class TextReporter implements Reporter<String> {
     }
 
     @Override
-    public String createReport(Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitLogMessages) throws ReporterException {
+    public void writeReport(Writer sw, Collection<LogMessageArchive> logs, ValidationResult vResult, Boolean skipLegitLogMessages) throws ReporterException {
         this.skipLegitLogMessages = skipLegitLogMessages;
-        try(StringWriter sw = new StringWriter();){
+        try {
 
             printTars(sw, logs);
             printValidators(sw,vResult.getValidators());
 
             printErrorNum(sw, vResult.getValidationErrors());
 
-            printNonLogMessageValidationExceptions(sw, vResult.getValidationErrors());
+            printNonLogMessageValidationExceptions(sw, vResult.getErrorIndex().getGeneralErrors());
 
             printLogMessageDetails(sw, logs, vResult);
 
-            return sw.toString();
+            if (null != metrics) {
+                MetricsSection.writeText(sw, metrics);
+            }
         } catch (IOException e) {
             throw new ReporterException(properties.getString("de.konfidas.ttc.reporting.errorCreatingReport"),e);
         }
 
     }
 
-    void printNonLogMessageValidationExceptions(StringWriter sw, Collection<ValidationException> validationErrors) throws IOException {
+    void printNonLogMessageValidationExceptions(Writer sw, Collection<ValidationException> validationErrors) throws IOException {
         sw.write(properties.getString("de.konfidas.ttc.reporting.introductionGeneralErrors"));
         sw.write(System.lineSeparator());
         for(ValidationException v : validationErrors){
-            if(!(v instanceof LogMessageValidationException)){
-
-                if(!issuesToIgnore.contains(v.getClass())) {
-                    sw.write("    "+ v.toString());
-                }
+            if(!issuesToIgnore.contains(v.getClass())) {
+                sw.write("    "+ v.toString());
             }
         }
 
     }
 
-    void printLogMessageDetails(StringWriter sw, Collection<LogMessageArchive> logs, ValidationResult vResult) throws IOException {
-        HashMap<LogMessage, LinkedList<LogMessageValidationException>> map = new HashMap<>();
-        for(ValidationException e: vResult.getValidationErrors()){
-            if(e instanceof LogMessageValidationException){
-                if(!issuesToIgnore.contains(e.getClass())) {
-                    if (map.containsKey(((LogMessageValidationException) e).getLogMessage())) {
-                        map.get(((LogMessageValidationException) e).getLogMessage()).add((LogMessageValidationException) e);
-                    } else {
-                        LinkedList<LogMessageValidationException> l = new LinkedList<>();
-                        l.add((LogMessageValidationException) e);
-                        map.put(((LogMessageValidationException) e).getLogMessage(), l);
-                    }
-                }
-            }
-        }
+    void printLogMessageDetails(Writer sw, Collection<LogMessageArchive> logs, ValidationResult vResult) throws IOException {
+        ValidationErrorIndex index = vResult.getErrorIndex();
         sw.write(properties.getString("de.konfidas.ttc.reporting.introductionSpecificErrors"));
         sw.write(System.lineSeparator());
 
@@ -102,7 +100,8 @@ public class TextReporter implements Reporter<String> {
 
         for(LogMessageArchive tar : logs){
             for (LogMessage lm : tar.getSortedLogMessages()){
-                if(!map.containsKey(lm)){
+                List<LogMessageValidationException> errors = index.getErrors(lm, issuesToIgnore);
+                if(errors.isEmpty()){
                     if(!skipLegitLogMessages) {
                         sw.write(String.format(properties.getString("de.konfidas.ttc.reporting.testReporterLegitMessage"), lm.getFileName()));
                         sw.write(System.lineSeparator());
@@ -111,7 +110,7 @@ public class TextReporter implements Reporter<String> {
                     else{
                     sw.write("    "+lm.getFileName()+":");
                     sw.write(System.lineSeparator());
-                    for(LogMessageValidationException e : map.get(lm)) {
+                    for(LogMessageValidationException e : errors) {
                         sw.write("        " + e.toString());//NON-NLS
                         sw.write(System.lineSeparator());
                     }
@@ -121,12 +120,12 @@ public class TextReporter implements Reporter<String> {
         }
     }
 
-    void printErrorNum(StringWriter sw, Collection<ValidationException> validationErrors) throws IOException {
+    void printErrorNum(Writer sw, Collection<ValidationException> validationErrors) throws IOException {
         sw.write(String.format(properties.getString("de.konfidas.ttc.reporting.numberOfErrorsFound"),validationErrors.size()));
         sw.write(System.lineSeparator());
     }
 
-    void printTars(StringWriter sw, Collection<LogMessageArchive> logs) throws IOException {
+    void printTars(Writer sw, Collection<LogMessageArchive> logs) throws IOException {
         sw.write(properties.getString("de.konfidas.ttc.reporting.reportCoversTheFollowingArchives"));
         sw.write(System.lineSeparator());
 
@@ -138,7 +137,7 @@ public class TextReporter implements Reporter<String> {
     }
 
 
-    void printValidators(StringWriter sw, Collection<Validator> validators) throws IOException {
+    void printValidators(Writer sw, Collection<Validator> validators) throws IOException {
         sw.write(properties.getString("de.konfidas.ttc.reporting.reportUsedValidators"));
         sw.write(System.lineSeparator());
 
@@ -1,24 +1,125 @@
 package de.konfidas.ttc.tars;
 
+import de.konfidas.ttc.exceptions.BadFormatForTARException;
 import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageId;
 import de.konfidas.ttc.messages.LogMessageImplementation;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.security.cert.X509Certificate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
+/**
+ * Combines multiple archives, e.g. overlapping exports of the same TSE. Log messages, which are contained in
+ * more than one archive or more than once in the same archive, are only kept once. The dropped copies are
+ * available from getDuplicates(), so that they can be reported, see DuplicateLogMessageValidator.
+ *
+ * The log messages of the archives are not copied: the aggregated archive is a k-way merge over the sorted log
+ * messages of its archives, which is repeated on every iteration.
+ */
 public class AggregatedLogMessageArchive implements LogMessageArchive {
     final LinkedList<LogMessageArchive> archives = new LinkedList<>();
     static Locale locale = new Locale("de", "DE");//NON-NLS
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
 
-    ArrayList<LogMessage> sortedLogMessages;
-    ArrayList<LogMessage> logMessages;
+    MergedLogMessages sortedLogMessages;
+    // counted by scan()
+    int numberOfLogMessages = -1;
+    ArrayList<Duplicate> duplicates;
     HashMap<String, X509Certificate> clientCertificates;
     HashMap<String, X509Certificate> intermediateCertificates;
 
+    /**
+     * Loads an archive from a TAR file.
+     */
+    public interface ArchiveLoader {
+        LogMessageArchive load(File tarFile) throws IOException, BadFormatForTARException;
+    }
+
+    /**
+     * Creates an aggregated archive of the given TAR files, which are parsed by a LogMessageArchiveImplementation
+     * with default settings.
+     */
+    public static AggregatedLogMessageArchive fromFiles(List<File> tarFiles) throws IOException, BadFormatForTARException {
+        return fromFiles(tarFiles, LogMessageArchiveImplementation::new);
+    }
+
+    /**
+     * Creates an aggregated archive of the given TAR files. The archives are added in the order of the files.
+     * @param loader creates the archive of a TAR file, e.g. a streaming LogMessageArchiveImplementation, so that the
+     *               log messages are not held in memory.
+     */
+    public static AggregatedLogMessageArchive fromFiles(List<File> tarFiles, ArchiveLoader loader) throws IOException, BadFormatForTARException {
+        AggregatedLogMessageArchive result = new AggregatedLogMessageArchive();
+        for (File tarFile : tarFiles) {
+            result.addArchive(loader.load(tarFile));
+        }
+        return result;
+    }
+
+    /**
+     * Creates an aggregated archive of the given TAR files, which are loaded concurrently. The archives are added in
+     * the order of the files nevertheless. If files can not be loaded, the exception of the first of them is
+     * thrown.
+     * @param executor runs the loader. As the loader may wait for tasks of its own, e.g. a LogMessageArchiveImplementation
+     *                 with a parser executor, it must not share a bounded executor with them. If null, the files are
+     *                 loaded one after another.
+     */
+    public static AggregatedLogMessageArchive fromFiles(List<File> tarFiles, ArchiveLoader loader, Executor executor) throws IOException, BadFormatForTARException {
+        if (null == executor) {
+            return fromFiles(tarFiles, loader);
+        }
+
+        ArrayList<CompletableFuture<LogMessageArchive>> loading = new ArrayList<>();
+        for (File tarFile : tarFiles) {
+            loading.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return loader.load(tarFile);
+                } catch (IOException | BadFormatForTARException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        AggregatedLogMessageArchive result = new AggregatedLogMessageArchive();
+        for (CompletableFuture<LogMessageArchive> archive : loading) {
+            result.addArchive(awaitArchive(archive));
+        }
+        return result;
+    }
+
+    static LogMessageArchive awaitArchive(CompletableFuture<LogMessageArchive> future) throws IOException, BadFormatForTARException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(properties.getString("de.konfidas.ttc.tars.parsingInterrupted"));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BadFormatForTARException) {
+                throw (BadFormatForTARException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
     @Override
-    public Map<String, X509Certificate> getIntermediateCertificates() {
+    public synchronized Map<String, X509Certificate> getIntermediateCertificates() {
         if (null == intermediateCertificates) {
             intermediateCertificates = new HashMap<>();
             archives.stream().map(c -> c.getIntermediateCertificates()).forEach(intermediateCertificates::putAll);
@@ -32,7 +133,7 @@ public class AggregatedLogMessageArchive implements LogMessageArchive {
     }
 
     @Override
-    public Map<String, X509Certificate> getClientCertificates() {
+    public synchronized Map<String, X509Certificate> getClientCertificates() {
         if (null == clientCertificates) {
             clientCertificates = new HashMap<>();
             archives.stream().map(c -> c.getClientCertificates()).forEach(clientCertificates::putAll);
@@ -46,41 +147,280 @@ public class AggregatedLogMessageArchive implements LogMessageArchive {
 
     }
 
+    /**
+     * @return the merged view on all log messages, see getSortedLogMessages().
+     */
     @Override
-    public Collection<LogMessage> getLogMessages() {
-        if (null == logMessages) {
-            logMessages = archives.stream().map(c -> c.getLogMessages())
-                    .flatMap(Collection::stream)
-                    .unordered()
-                    .distinct()
-                    .collect(Collectors.toCollection(ArrayList::new));
+    public synchronized List<LogMessage> getLogMessages() {
+        return getSortedLogMessages();
+    }
 
+    /**
+     * @return the log messages, which were dropped, because the same log message was found before. The order is
+     * the order of getSortedLogMessages(), and for equal signature counters the order of the archives.
+     */
+    public synchronized List<Duplicate> getDuplicates() {
+        if (null == duplicates) {
+            scan();
         }
-        return logMessages;
+        return duplicates;
     }
 
-    public AggregatedLogMessageArchive addArchive(LogMessageArchive a) {
+    /**
+     * Iterates the merged log messages once, to count them and to collect the duplicates.
+     */
+    void scan() {
+        ArrayList<Duplicate> found = new ArrayList<>();
+        MergingIterator iterator = new MergingIterator(new ArrayList<>(archives), found);
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        numberOfLogMessages = count;
+        duplicates = found;
+    }
+
+    /**
+     * Log messages, which are duplicates, have the same signature counter, so they are next to each other in the
+     * merged order. Hence, the merge only keeps the keys of the current signature counter: each log message is
+     * hashed once, and only log messages with equal keys are compared by their full content. This keeps merging
+     * overlapping exports linear.
+     */
+    class MergingIterator implements ListIterator<LogMessage> {
+        final PriorityQueue<Source> sources = new PriorityQueue<>(SOURCE_ORDER);
+        // the log messages of the current signature counter, which were not dropped
+        final HashMap<LogMessageId, Kept> currentSignatureCounter = new HashMap<>();
+        LogMessageId currentKey;
+        // collects the dropped log messages, if not null
+        final List<Duplicate> duplicates;
+        LogMessage next;
+        int index = 0;
+
+        MergingIterator(List<LogMessageArchive> archives, List<Duplicate> duplicates) {
+            this.duplicates = duplicates;
+            int i = 0;
+            for (LogMessageArchive archive : archives) {
+                Source source = new Source(archive, i++);
+                if (source.advance()) {
+                    sources.add(source);
+                }
+            }
+            next = findNext();
+        }
+
+        LogMessage findNext() {
+            while (!sources.isEmpty()) {
+                Source source = sources.poll();
+                LogMessage msg = source.current;
+                LogMessageArchive archive = source.archive;
+                if (source.advance()) {
+                    sources.add(source);
+                }
+
+                LogMessageId key = LogMessageId.of(msg);
+                if (null == currentKey || !currentKey.hasSameSignatureCounter(key)) {
+                    currentSignatureCounter.clear();
+                    currentKey = key;
+                }
+                Kept kept = currentSignatureCounter.putIfAbsent(key, new Kept(msg, archive));
+                if (null == kept) {
+                    return msg;
+                }
+                if (Arrays.equals(kept.msg.getEncoded(), msg.getEncoded())) {
+                    if (null != duplicates) {
+                        duplicates.add(new Duplicate(kept.msg, kept.archive, msg, archive));
+                    }
+                } else {
+                    // the digests collide, but the log messages differ. Both are kept, and the validators report
+                    // them, as they have the same signature counter.
+                    return msg;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public LogMessage next() {
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+            LogMessage result = next;
+            next = findNext();
+            index++;
+            return result;
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LogMessage previous() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(LogMessage logMessage) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(LogMessage logMessage) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static final Comparator<LogMessage> SIGNATURE_COUNTER_ORDER = new LogMessageImplementation.SignatureCounterComparator();
+    // equal signature counters are taken in the order of the archives, which keeps the merge stable
+    static final Comparator<Source> SOURCE_ORDER = Comparator.<Source, LogMessage>comparing(s -> s.current, SIGNATURE_COUNTER_ORDER).thenComparingInt(s -> s.index);
+
+    /**
+     * The sorted log messages of one archive, which are merged.
+     */
+    static class Source {
+        final LogMessageArchive archive;
+        final int index;
+        final Iterator<? extends LogMessage> iterator;
+        LogMessage current;
+
+        Source(LogMessageArchive archive, int index) {
+            this.archive = archive;
+            this.index = index;
+            this.iterator = archive.getSortedLogMessages().iterator();
+        }
+
+        boolean advance() {
+            current = iterator.hasNext() ? iterator.next() : null;
+            return null != current;
+        }
+    }
+
+    static class Kept {
+        final LogMessage msg;
+        final LogMessageArchive archive;
+
+        Kept(LogMessage msg, LogMessageArchive archive) {
+            this.msg = msg;
+            this.archive = archive;
+        }
+    }
+
+    /**
+     * A log message, which was dropped, because the same log message was found before.
+     */
+    public static class Duplicate {
+        final LogMessage original;
+        final LogMessageArchive originalArchive;
+        final LogMessage duplicate;
+        final LogMessageArchive duplicateArchive;
+
+        Duplicate(LogMessage original, LogMessageArchive originalArchive, LogMessage duplicate, LogMessageArchive duplicateArchive) {
+            this.original = original;
+            this.originalArchive = originalArchive;
+            this.duplicate = duplicate;
+            this.duplicateArchive = duplicateArchive;
+        }
+
+        /**
+         * @return the log message, which is kept.
+         */
+        public LogMessage getOriginal() {
+            return original;
+        }
+
+        public LogMessageArchive getOriginalArchive() {
+            return originalArchive;
+        }
+
+        /**
+         * @return the dropped log message.
+         */
+        public LogMessage getDuplicate() {
+            return duplicate;
+        }
+
+        public LogMessageArchive getDuplicateArchive() {
+            return duplicateArchive;
+        }
+    }
+
+    public synchronized AggregatedLogMessageArchive addArchive(LogMessageArchive a) {
         this.archives.add(a);
 
         // invalidate cache:
         sortedLogMessages = null;
-        logMessages = null;
+        numberOfLogMessages = -1;
+        duplicates = null;
         clientCertificates = null;
         intermediateCertificates = null;
 
         return this;
     }
 
+    /**
+     * The log messages are not copied. Instead, every iteration merges the sorted log messages of the archives,
+     * which are already sorted by signature counter, and drops the duplicates.
+     * @return a view on the merged log messages. Only iterating forward is supported.
+     */
     @Override
-    public ArrayList<LogMessage> getSortedLogMessages() {
+    public synchronized List<LogMessage> getSortedLogMessages() {
         if (null == sortedLogMessages) {
-            sortedLogMessages = new ArrayList<>(getLogMessages());
-            sortedLogMessages.sort(new LogMessageImplementation.SignatureCounterComparator());
+            sortedLogMessages = new MergedLogMessages(new ArrayList<>(archives));
         }
 
         return sortedLogMessages;
     }
 
+    class MergedLogMessages extends AbstractSequentialList<LogMessage> {
+        // the archives, when the view was created
+        final List<LogMessageArchive> archives;
+
+        MergedLogMessages(List<LogMessageArchive> archives) {
+            this.archives = archives;
+        }
+
+        @Override
+        public ListIterator<LogMessage> listIterator(int index) {
+            MergingIterator iterator = new MergingIterator(archives, null);
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator;
+        }
+
+        @Override
+        public int size() {
+            synchronized (AggregatedLogMessageArchive.this) {
+                if (numberOfLogMessages < 0) {
+                    scan();
+                }
+                return numberOfLogMessages;
+            }
+        }
+    }
+
     @Override
     public String getFileName() {
         StringBuilder sb = new StringBuilder();
@@ -90,4 +430,27 @@ public class AggregatedLogMessageArchive implements LogMessageArchive {
         }
         return sb.toString();
     }
+
+    /**
+     * @return true, if all aggregated archives hold their log messages in memory.
+     */
+    @Override
+    public boolean isInMemory() {
+        for (LogMessageArchive a : archives) {
+            if (!a.isInMemory()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes all archives.
+     */
+    @Override
+    public void close() {
+        for (LogMessageArchive a : archives) {
+            a.close();
+        }
+    }
 }
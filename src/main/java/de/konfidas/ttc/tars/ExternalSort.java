@@ -0,0 +1,267 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.messages.SignatureCounters;
+
+import java.io.*;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Sorts the log messages of a TAR file by signature counter with a fixed memory budget. Instead of the log messages,
+ * only a compact record of each is sorted: its signature counter, its position in the TAR file, the offset of its
+ * entry and the size of its content. The file name is not part of the record, it is read from the header of the
+ * entry again, when the log message is read.
+ *
+ * At most maxRecordsInMemory records are held in memory. Whenever the buffer is full, it is sorted and spilled to a
+ * temporary file, called a run. In the end, the runs are merged while they are read. Records with the same
+ * signature counter keep the order of the TAR file, like the sort in memory. If all records fit into memory, no
+ * temporary file is written.
+ */
+class ExternalSort implements Closeable {
+    static final String RUN_PREFIX = "ttc-sort"; //NON-NLS
+    static final String RUN_SUFFIX = ".run"; //NON-NLS
+
+    /**
+     * The record of one log message.
+     */
+    static final class Record {
+        final long signatureCounter;
+        // the position of the log message in the TAR file, to keep the order of equal signature counters
+        final long sequence;
+        // the offset of the first header of the entry in the TAR file
+        final long offset;
+        // the size of the content of the entry
+        final int size;
+
+        Record(long signatureCounter, long sequence, long offset, int size) {
+            this.signatureCounter = signatureCounter;
+            this.sequence = sequence;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    /**
+     * An iterator over the sorted records, which has to be closed, if it is not exhausted.
+     */
+    interface RecordIterator extends Iterator<Record>, Closeable {
+        @Override
+        void close();
+    }
+
+    static final Comparator<Record> ORDER = Comparator.<Record>comparingLong(r -> r.signatureCounter).thenComparingLong(r -> r.sequence);
+
+    final long[] signatureCounters;
+    final long[] offsets;
+    final int[] sizes;
+    int buffered = 0;
+    // the sequence of the first record in the buffer
+    long firstSequence = 0;
+
+    final ArrayList<File> runs = new ArrayList<>();
+    // the sorted order of the buffer, if no run was spilled
+    int[] order;
+
+    ExternalSort(int maxRecordsInMemory) {
+        signatureCounters = new long[maxRecordsInMemory];
+        offsets = new long[maxRecordsInMemory];
+        sizes = new int[maxRecordsInMemory];
+    }
+
+    /**
+     * Adds the record of the next log message of the TAR file.
+     * @param signatureCounter must not be LogMessage.SIGNATURE_COUNTER_OVERFLOW.
+     * @param offset the offset of the first header of the entry.
+     * @param size the size of the content of the entry.
+     */
+    void add(long signatureCounter, long offset, int size) throws IOException {
+        if (buffered == signatureCounters.length) {
+            spill();
+        }
+        signatureCounters[buffered] = signatureCounter;
+        offsets[buffered] = offset;
+        sizes[buffered] = size;
+        buffered++;
+    }
+
+    /**
+     * Sorts the buffer and writes it to a new run.
+     */
+    void spill() throws IOException {
+        int[] sorted = SignatureCounters.sortedOrder(signatureCounters, buffered);
+        File run = Files.createTempFile(RUN_PREFIX, RUN_SUFFIX).toFile();
+        run.deleteOnExit();
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16))) {
+            out.writeInt(buffered);
+            for (int i : sorted) {
+                out.writeLong(signatureCounters[i]);
+                out.writeLong(firstSequence + i);
+                out.writeLong(offsets[i]);
+                out.writeInt(sizes[i]);
+            }
+        }
+        firstSequence += buffered;
+        buffered = 0;
+    }
+
+    /**
+     * Called after the last record was added.
+     */
+    void finish() throws IOException {
+        if (runs.isEmpty()) {
+            order = SignatureCounters.sortedOrder(signatureCounters, buffered);
+        } else if (buffered > 0) {
+            spill();
+        }
+    }
+
+    /**
+     * @return the records in sorted order. Every iterator reads the runs from the beginning.
+     */
+    RecordIterator iterator() {
+        if (null != order) {
+            return new BufferIterator();
+        }
+        return new MergingIterator();
+    }
+
+    /**
+     * Deletes the runs.
+     */
+    @Override
+    public void close() {
+        for (File run : runs) {
+            if (!run.delete()) {
+                run.deleteOnExit();
+            }
+        }
+        runs.clear();
+    }
+
+    static void closeAll(Collection<Closeable> streams) throws IOException {
+        IOException failure = null;
+        for (Closeable stream : streams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    class BufferIterator implements RecordIterator {
+        int next = 0;
+
+        @Override
+        public void close() {
+            next = buffered;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < buffered;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int i = order[next++];
+            return new Record(signatureCounters[i], i, offsets[i], sizes[i]);
+        }
+    }
+
+    /**
+     * Reads one run.
+     */
+    static class RunReader {
+        final DataInputStream in;
+        int remaining;
+        Record current;
+
+        RunReader(File run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), 1 << 16));
+            remaining = in.readInt();
+        }
+
+        /**
+         * @return false, if the run is exhausted. It is closed then.
+         */
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                in.close();
+                return false;
+            }
+            remaining--;
+            current = new Record(in.readLong(), in.readLong(), in.readLong(), in.readInt());
+            return true;
+        }
+    }
+
+    /**
+     * Merges the runs. Each run is already sorted, so only the current record of each run has to be compared.
+     * The runs are closed, as soon as they are exhausted or fail, when the iterator is closed, or else when it is
+     * garbage collected.
+     */
+    class MergingIterator implements RecordIterator {
+        final PriorityQueue<RunReader> readers = new PriorityQueue<>((a, b) -> ORDER.compare(a.current, b.current));
+        final ArrayList<Closeable> streams = new ArrayList<>();
+        final Cleaner.Cleanable cleanable;
+
+        MergingIterator() {
+            ArrayList<Closeable> opened = streams;
+            cleanable = ResourceCloser.register(this, () -> closeAll(opened));
+            try {
+                for (File run : runs) {
+                    RunReader reader = new RunReader(run);
+                    streams.add(reader.in);
+                    if (reader.advance()) {
+                        readers.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Closes all runs. The iterator has no next record afterwards.
+         */
+        @Override
+        public void close() {
+            readers.clear();
+            cleanable.clean();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !readers.isEmpty();
+        }
+
+        @Override
+        public Record next() {
+            RunReader reader = readers.poll();
+            if (null == reader) {
+                throw new NoSuchElementException();
+            }
+            Record result = reader.current;
+            try {
+                if (reader.advance()) {
+                    readers.add(reader);
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageFactory;
+import de.konfidas.ttc.messages.SerialNumber;
+import de.konfidas.ttc.messages.logtime.LogTime;
+import de.konfidas.ttc.messages.logtime.StoredLogTime;
+import de.konfidas.ttc.utilities.oid;
+import org.bouncycastle.asn1.ASN1Primitive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A log message, which was found in a SidecarIndex. File name, serial number, signature counter and log time are
+ * taken from the index. All other fields require the log message to be read from the TAR file and parsed, which
+ * is done on first access. The parsed log message is only softly referenced.
+ */
+public class IndexedLogMessage implements LogMessage {
+    // shared by all log messages of the archive, so a full decode does not open the TAR file again
+    final SharedTarFile tarFile;
+    final SidecarIndex.Entry entry;
+    final LogTime logTime;
+    SoftReference<LogMessage> logMessage = new SoftReference<>(null);
+
+    IndexedLogMessage(SharedTarFile tarFile, SidecarIndex.Entry entry) {
+        this.tarFile = tarFile;
+        this.entry = entry;
+        this.logTime = new StoredLogTime(entry.logTimeType, entry.logTime, entry.logTimeString);
+    }
+
+    /**
+     * @return the fully parsed log message.
+     * @throws LogMessageArchiveImplementation.LogMessageStreamException if the log message can not be parsed.
+     */
+    public synchronized LogMessage getLogMessage() {
+        LogMessage msg = logMessage.get();
+        if (null == msg) {
+            try {
+                msg = LogMessageFactory.createLogMessage(entry.fileName, tarFile.read(entry.offset, (int) entry.size));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (BadFormatForLogMessageException e) {
+                throw new LogMessageArchiveImplementation.LogMessageStreamException(e);
+            }
+            logMessage = new SoftReference<>(msg);
+        }
+        return msg;
+    }
+
+    /**
+     * @return the name of the class, the log message is parsed to, e.g. de.konfidas.ttc.messages.AuditLogMessage.
+     */
+    public String getMessageType() {
+        return entry.messageType;
+    }
+
+    @Override
+    public LogTime getLogTime() {
+        return logTime;
+    }
+
+    @Override
+    public BigInteger getSignatureCounter() {
+        return entry.signatureCounter;
+    }
+
+    @Override
+    public byte[] getSerialNumber() {
+        return entry.serialNumber;
+    }
+
+    @Override
+    public SerialNumber getInternedSerialNumber() {
+        return entry.internedSerialNumber;
+    }
+
+    @Override
+    public String getFileName() {
+        return entry.fileName;
+    }
+
+    @Override
+    public String getSignatureAlgorithm() {
+        return getLogMessage().getSignatureAlgorithm();
+    }
+
+    @Override
+    public byte[] getDTBS() {
+        return getLogMessage().getDTBS();
+    }
+
+    @Override
+    public ByteBuffer getDTBSBuffer() {
+        return getLogMessage().getDTBSBuffer();
+    }
+
+    @Override
+    public byte[] getSignatureValue() {
+        return getLogMessage().getSignatureValue();
+    }
+
+    @Override
+    public int getVersion() {
+        return getLogMessage().getVersion();
+    }
+
+    @Override
+    public oid getCertifiedDataType() {
+        return getLogMessage().getCertifiedDataType();
+    }
+
+    @Override
+    public Collection<ASN1Primitive> getSignatureAlgorithmParameters() {
+        return getLogMessage().getSignatureAlgorithmParameters();
+    }
+
+    @Override
+    public byte[] getSeAuditData() {
+        return getLogMessage().getSeAuditData();
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        return getLogMessage().getEncoded();
+    }
+
+    @Override
+    public long getContentDigest() {
+        return entry.contentHash;
+    }
+
+    @Override
+    public String toString() {
+        return entry.fileName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LogMessage) {
+            // the digest is taken from the index, so differing log messages are detected without reading them
+            return ((LogMessage) o).getContentDigest() == entry.contentHash && Arrays.equals(this.getEncoded(), ((LogMessage) o).getEncoded());
+        }
+        if (o instanceof byte[]) {
+            return Arrays.equals(this.getEncoded(), (byte[]) o);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(entry.contentHash);
+    }
+}
@@ -2,11 +2,12 @@ package de.konfidas.ttc.tars;
 
 import de.konfidas.ttc.messages.LogMessage;
 
+import java.io.Closeable;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
 import java.util.Map;
 
-public interface LogMessageArchive {
+public interface LogMessageArchive extends Closeable {
     Map<? extends String, ? extends X509Certificate> getIntermediateCertificates();
     Map<? extends String, ? extends X509Certificate> getClientCertificates();
     Collection<? extends LogMessage> getLogMessages();
@@ -17,7 +18,26 @@ public interface LogMessageArchive {
      * with increasing signature counter. Note that this is non-deterministic, because the order of log messages
      * with the same signature counter is not prescribed. The same signature counter can occur in a valid LogMessageArchive multiple
      * times for different serial numbers.
+     * Validators may run concurrently on the same archive, so implementations have to compute the sorted
+     * log messages in a thread safe manner.
      * @return a collection of all Log Messages of the Archive, sorted by increasing Signature Counter.
      */
     Collection<? extends LogMessage> getSortedLogMessages();
+
+    /**
+     * @return true, if the log messages are held in memory, so that references to all of them can be collected,
+     * e.g. to group them by serial number. False for archives, which read their log messages on demand to bound
+     * the memory needed.
+     */
+    default boolean isInMemory() {
+        return true;
+    }
+
+    /**
+     * Releases the temporary files of the archive, e.g. those of an external sort. Has to be called, when the
+     * archive is no longer needed, i.e. after validation and reporting.
+     */
+    @Override
+    default void close() {
+    }
 }
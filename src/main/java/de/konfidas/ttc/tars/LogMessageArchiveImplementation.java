@@ -2,26 +2,39 @@ package de.konfidas.ttc.tars;
 
 import de.konfidas.ttc.exceptions.*;
 import de.konfidas.ttc.messages.LogMessageFactory;
+import de.konfidas.ttc.messages.LogMessageFileName;
 import de.konfidas.ttc.messages.LogMessage;
 import de.konfidas.ttc.messages.LogMessageImplementation;
+import de.konfidas.ttc.messages.SignatureCounters;
+import de.konfidas.ttc.metrics.Metrics;
 import de.konfidas.ttc.utilities.CertificateHelper;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.ResourceBundle;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 public class LogMessageArchiveImplementation implements LogMessageArchive {
@@ -29,12 +42,42 @@ public class LogMessageArchiveImplementation implements LogMessageArchive {
 
     static Locale locale = new Locale("de", "DE"); //NON-NLS
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+    public static final String PARSE_PHASE = "parse"; //NON-NLS
+    public static final String DECODE_PHASE = "decode"; //NON-NLS
     final ArrayList<LogMessage> all_log_messages = new ArrayList<>();
     final HashMap<String, X509Certificate> allClientCertificates = new HashMap<>();
     final HashMap<String, X509Certificate> allIntermediateCertificates = new HashMap<>();
     Boolean infoCSVPresent = false;
     String filename;
 
+    // In streaming mode, log messages are not kept in memory. Instead, every iteration over getLogMessages()
+    // reads the TAR file again and hands out one LogMessage at a time.
+    boolean streaming = false;
+    File tarFile;
+    int numberOfLogMessages = 0;
+
+    // If an executor is set, log messages are decoded by its threads, while parse() keeps reading the TAR file.
+    // At most parserQueueSize decoded (or pending) log messages are buffered.
+    ExecutorService parserExecutor;
+    int parserQueueSize = 256;
+
+    // If set, an index of the log messages is stored next to the TAR file and used by later calls to parse().
+    boolean useSidecarIndex = false;
+    // the TAR file, from which the IndexedLogMessages read their content, if the SidecarIndex was used
+    SharedTarFile sharedTarFile;
+
+    // If set, log messages are created as LazyLogMessages, which decode their fields only on access.
+    boolean lazyParsing = false;
+
+    // In streaming mode, the log messages are sorted by an ExternalSort, which holds at most this many records.
+    int maxSortRecordsInMemory = 1 << 20;
+    // deletes the runs of the ExternalSort, when close() is called or the archive is garbage collected
+    Cleaner.Cleanable externalSortCleanable;
+
+    // If set, parse() and the decoding of each log message are recorded into it.
+    Metrics metrics;
+    Metrics.Phase decodePhase;
+
     public LogMessageArchiveImplementation() throws IOException, BadFormatForTARException {
         this(null);
 
@@ -43,91 +86,355 @@ public class LogMessageArchiveImplementation implements LogMessageArchive {
     public LogMessageArchiveImplementation(File tarFile) throws IOException, BadFormatForTARException {
 
         if( null != tarFile){
-            this.filename= tarFile.getName();
             this.parse(tarFile);
         }
     }
 
+    /**
+     * Enables the streaming mode. In streaming mode, parse() only loads the certificates and info.csv of the TAR
+     * file. The log messages are decoded on the fly, whenever getLogMessages() is iterated, so the memory needed
+     * does not depend on the size of the archive. Has to be set before parse() is called.
+     * @param streaming true, if log messages shall be streamed from the TAR file.
+     * @return this archive
+     */
+    public LogMessageArchiveImplementation setStreaming(boolean streaming){
+        this.streaming = streaming;
+        return this;
+    }
+
+    public boolean isStreaming(){
+        return streaming;
+    }
+
+    @Override
+    public boolean isInMemory(){
+        return !streaming;
+    }
+
+    /**
+     * Sets an executor, which is used by parse() to decode the log messages in parallel. The TAR file itself is
+     * still read by the calling thread. The order of getLogMessages() is the order of the TAR file, regardless
+     * of the executor. The executor is not shut down by this class. Has no effect in streaming mode.
+     * @param parserExecutor executor to decode log messages with, or null to decode them in the calling thread.
+     * @return this archive
+     */
+    public LogMessageArchiveImplementation setParserExecutor(ExecutorService parserExecutor){
+        this.parserExecutor = parserExecutor;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of log messages, which are read from the TAR file but not yet added to this archive.
+     * If the limit is reached, reading the TAR file blocks until the oldest pending log message is decoded.
+     * @param parserQueueSize maximum number of pending log messages, at least 1.
+     * @return this archive
+     */
+    public LogMessageArchiveImplementation setParserQueueSize(int parserQueueSize){
+        if (parserQueueSize < 1) {
+            throw new IllegalArgumentException("parserQueueSize must be positive"); //NON-NLS
+        }
+        this.parserQueueSize = parserQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets the memory budget for sorting in streaming mode. getSortedLogMessages() then holds at most the given
+     * number of compact records in memory, and spills the rest to temporary files. Has no effect, if streaming
+     * mode is not enabled.
+     * @param maxSortRecordsInMemory maximum number of records in memory, at least 1.
+     * @return this archive
+     */
+    public LogMessageArchiveImplementation setMaxSortRecordsInMemory(int maxSortRecordsInMemory){
+        if (maxSortRecordsInMemory < 1) {
+            throw new IllegalArgumentException("maxSortRecordsInMemory must be positive"); //NON-NLS
+        }
+        this.maxSortRecordsInMemory = maxSortRecordsInMemory;
+        return this;
+    }
+
+    /**
+     * Enables the use of a SidecarIndex. If a valid index exists for the TAR file, parse() does not parse the log
+     * messages, but creates IndexedLogMessages from the index. These are only parsed, if fields are accessed which
+     * are not part of the index. If there is no valid index, parse() parses the TAR file as usual and writes a new
+     * index. Has no effect in streaming mode.
+     * @param useSidecarIndex true, if a SidecarIndex shall be used and written.
+     * @return this archive
+     */
+    public LogMessageArchiveImplementation setUseSidecarIndex(boolean useSidecarIndex){
+        this.useSidecarIndex = useSidecarIndex;
+        return this;
+    }
+
+    /**
+     * Enables lazy parsing. Log messages are then created as LazyLogMessages, which only record the positions of
+     * their elements and decode fields, when they are accessed. This is faster, if the validators only need
+     * serial number, signature counter or log time. Has to be set before parse() is called.
+     * @param lazyParsing true, if log messages shall be decoded lazily.
+     * @return this archive
+     */
+    public LogMessageArchiveImplementation setLazyParsing(boolean lazyParsing){
+        this.lazyParsing = lazyParsing;
+        return this;
+    }
+
+    /**
+     * Records the time spent in parse(), the number of log messages and bytes read into the phase PARSE_PHASE, and
+     * the time and allocations of decoding each log message into the phase DECODE_PHASE of the given metrics.
+     * @param metrics metrics to record into, or null to record nothing.
+     * @return this archive
+     */
+    public LogMessageArchiveImplementation setMetrics(Metrics metrics){
+        this.metrics = metrics;
+        this.decodePhase = (null == metrics) ? null : metrics.phase(DECODE_PHASE, false);
+        return this;
+    }
+
+    LogMessage createLogMessage(LogMessageFileName fileName, byte[] content) throws BadFormatForLogMessageException {
+        if (null == decodePhase) {
+            return decodeLogMessage(fileName, content);
+        }
+        try (Metrics.Timer timer = decodePhase.start()) {
+            timer.addItems(1).addBytes(content.length);
+            return decodeLogMessage(fileName, content);
+        }
+    }
+
+    LogMessage decodeLogMessage(LogMessageFileName fileName, byte[] content) throws BadFormatForLogMessageException {
+        if (lazyParsing) {
+            return LogMessageFactory.createLazyLogMessage(fileName.getName(), content);
+        }
+        return LogMessageFactory.createLogMessage(fileName, content);
+    }
+
     public HashMap<String, X509Certificate> getIntermediateCertificates(){return allIntermediateCertificates;}
     public HashMap<String, X509Certificate> getClientCertificates(){return allClientCertificates;}
 
-    public void parse(File tarFile) throws IOException, BadFormatForTARException{
+    public LogMessageArchiveImplementation parse(File tarFile) throws IOException, BadFormatForTARException{
+        if (null == metrics) {
+            return parseTarFile(tarFile);
+        }
+        try (Metrics.Timer timer = metrics.phase(PARSE_PHASE).start()) {
+            parseTarFile(tarFile);
+            timer.addItems(numberOfLogMessages).addBytes(tarFile.length());
+        }
+        return this;
+    }
+
+    LogMessageArchiveImplementation parseTarFile(File tarFile) throws IOException, BadFormatForTARException{
+        this.tarFile = tarFile;
+        this.filename = tarFile.getName();
+
         /********************************************************************
          ** Wir lesen nun einmal durch das TAR Archiv (ohne es zu entpacken)*
          ********************************************************************/
-        try(TarArchiveInputStream myTarFile = new TarArchiveInputStream(new FileInputStream(tarFile))) {
+        final boolean writeIndex = useSidecarIndex && !streaming;
+        if (writeIndex && parseWithSidecarIndex()) {
+            if (!infoCSVPresent){throw new BadFormatForTARException(properties.getString("de.konfidas.ttc.tars.infoCSVNotFound"),null);}
+            return this;
+        }
+
+        ArrayDeque<Future<LogMessage>> pending = new ArrayDeque<>();
+        ArrayList<long[]> logMessagePositions = new ArrayList<>();
+        try(InputStream tarStream = writeIndex ? new SidecarIndex.HashingInputStream(new FileInputStream(tarFile)) : new FileInputStream(tarFile);
+            TarArchiveInputStream myTarFile = new TarArchiveInputStream(tarStream)) {
             TarArchiveEntry entry;
             String individualFileName;
-            int offset;
 
             while ((entry = myTarFile.getNextTarEntry()) != null) {
                 /* Get the name of the file */
                 individualFileName = entry.getName();
-
-                /* Get Size of the file and create a byte array for the size */
-                byte[] content = new byte[(int) entry.getSize()];
-                offset = 0;
-
-                myTarFile.read(content, offset, content.length - offset);
-
                 logger.debug("Will now process {}", individualFileName); //NON-NLS
 
-                if (individualFileName.matches("^(Gent_|Unixt_|Utc_).+_Sig-\\d+_Log-.+log") ) {//NON-NLS
-                    all_log_messages.add(LogMessageFactory.createLogMessage(individualFileName,content));
-                }
-
-                /**************
-                 ** info.csv *
-                 *************/
-                else if (individualFileName.matches("^info.csv")) {//NON-NLS
-                    logger.debug("found info.csv. Start processing now.");//NON-NLS
-                    infoCSVPresent = true;
-                    String info_string = new String(content, StandardCharsets.UTF_8);
-                    logger.debug("Description in info.csv: {}", StringUtils.substringsBetween(info_string, "description:\",\"", "\"," )[0]);//NON-NLS
-                    logger.debug("Manufacturer in info.csv: {}", StringUtils.substringsBetween(info_string, "manufacturer:\",\"", "\"," )[0]);//NON-NLS
-                    logger.debug("Version in info.csv: {}", StringUtils.substringsBetween(info_string, "version:\",\"", "\"" )[0]);//NON-NLS
-                }
-                /*********************
-                 ** CVC Certificate *
-                 ********************/
-                else if (individualFileName.contains("CVC")) {
-                    logger.debug("{} seems to be a CVC certificate. Will process it now.", individualFileName);//NON-NLS
-                    //FIXME: Not supported
-
-                }
-                /**********************
-                 ** X.509 Certificate *
-                 **********************/
-                else if (individualFileName.contains("X509")) {//NON-NLS
-                    logger.debug("{} seems to be an X.509 certificate. Will process it now.", individualFileName);//NON-NLS
-                    try {
-                        X509Certificate cer = CertificateHelper.loadCertificate(content);
-                        // Prüfe die Eigenschaften des Zertifikats gegen den Dateinamen
-                        boolean[] keyUsage = cer.getKeyUsage();
-                        if (keyUsage == null || !keyUsage[5]) {
-                            allClientCertificates.put(individualFileName.split("_")[0].toUpperCase(), cer);
-                        } else {
-                            allIntermediateCertificates.put(individualFileName.split("_")[0].toUpperCase(), cer);
+                LogMessageFileName logMessageFileName = LogMessageFileName.parse(individualFileName);
+                if (null != logMessageFileName) {
+                    numberOfLogMessages++;
+                    if (streaming) {
+                        continue;
+                    }
+                    if (writeIndex) {
+                        logMessagePositions.add(new long[]{myTarFile.getBytesRead(), entry.getSize()});
+                    }
+                    if (null == parserExecutor) {
+                        all_log_messages.add(createLogMessage(logMessageFileName, readContent(myTarFile, entry)));
+                    }
+                    else {
+                        if (pending.size() >= parserQueueSize) {
+                            all_log_messages.add(awaitLogMessage(pending.poll()));
                         }
-                    } catch (CertificateLoadException e) {
-                        //TODO: Throw error
-                        logger.error("Error loading certificate {}", individualFileName);//NON-NLS
+                        final byte[] content = readContent(myTarFile, entry);
+                        pending.add(parserExecutor.submit(() -> createLogMessage(logMessageFileName, content)));
                     }
-                } else {
-                    //TODO:throw error
-                    logger.error("{} should not be in the TAR file. Will be ignored.", individualFileName);//NON-NLS
                 }
+                else {
+                    processEntry(individualFileName, readContent(myTarFile, entry));
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                all_log_messages.add(awaitLogMessage(pending.poll()));
+            }
+
+            if (writeIndex) {
+                byte[] hash = ((SidecarIndex.HashingInputStream) tarStream).finish();
+                SidecarIndex.create(tarFile, hash, all_log_messages, logMessagePositions).write(tarFile);
             }
         }
         catch (FileNotFoundException | BadFormatForLogMessageException e) {
+            pending.forEach(f -> f.cancel(true));
             e.printStackTrace();
             System.exit(1);
         }
 
         if (!infoCSVPresent){throw new BadFormatForTARException(properties.getString("de.konfidas.ttc.tars.infoCSVNotFound"),null);}
+        return this;
+    }
+
+    /**
+     * Reads certificates and info.csv from the TAR file and takes the log messages from its SidecarIndex.
+     * @return false, if there is no valid index. In this case, nothing has been added to this archive.
+     */
+    boolean parseWithSidecarIndex() throws IOException {
+        SidecarIndex index = SidecarIndex.read(tarFile);
+        if (null == index) {
+            return false;
+        }
+
+        int logMessagesFound = 0;
+        byte[] hash;
+        try(SidecarIndex.HashingInputStream tarStream = new SidecarIndex.HashingInputStream(new FileInputStream(tarFile));
+            TarArchiveInputStream myTarFile = new TarArchiveInputStream(tarStream)) {
+            TarArchiveEntry entry;
+            while ((entry = myTarFile.getNextTarEntry()) != null) {
+                if (isLogMessageFileName(entry.getName())) {
+                    logMessagesFound++;
+                }
+                else {
+                    processEntry(entry.getName(), readContent(myTarFile, entry));
+                }
+            }
+            hash = tarStream.finish();
+        }
+
+        if (!index.matchesHash(hash) || logMessagesFound != index.entries.size()) {
+            logger.info("Index of {} is outdated and will be rebuilt.", filename); //NON-NLS
+            allClientCertificates.clear();
+            allIntermediateCertificates.clear();
+            infoCSVPresent = false;
+            return false;
+        }
+
+        logger.debug("Using index of {} with {} log messages.", filename, logMessagesFound); //NON-NLS
+        sharedTarFile = new SharedTarFile(tarFile);
+        for (SidecarIndex.Entry e : index.entries) {
+            all_log_messages.add(new IndexedLogMessage(sharedTarFile, e));
+        }
+        numberOfLogMessages = logMessagesFound;
+        return true;
+    }
+
+    /**
+     * Waits for a log message, which is decoded by the parserExecutor. Exceptions thrown while decoding are
+     * passed on to the caller.
+     */
+    static LogMessage awaitLogMessage(Future<LogMessage> future) throws BadFormatForLogMessageException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(properties.getString("de.konfidas.ttc.tars.parsingInterrupted"));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BadFormatForLogMessageException) {
+                throw (BadFormatForLogMessageException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    static boolean isLogMessageFileName(String individualFileName){
+        return null != LogMessageFileName.parse(individualFileName);
+    }
+
+    static boolean isInfoCsvFileName(String individualFileName){
+        return "info.csv".equals(individualFileName); //NON-NLS
+    }
+
+    static byte[] readContent(TarArchiveInputStream tarStream, TarArchiveEntry entry) throws IOException {
+        /* Get Size of the file and create a byte array for the size */
+        byte[] content = new byte[(int) entry.getSize()];
+        IOUtils.readFully(tarStream, content);
+        return content;
+    }
+
+    /**
+     * Processes all entries of the TAR file, which are not log messages, i.e. info.csv and the certificates.
+     */
+    void processEntry(String individualFileName, byte[] content){
+        /**************
+         ** info.csv *
+         *************/
+        if (isInfoCsvFileName(individualFileName)) {//NON-NLS
+            infoCSVPresent = true;
+            processInfoCsv(content);
+        }
+        /*********************
+         ** CVC Certificate *
+         ********************/
+        else if (individualFileName.contains("CVC")) {
+            logger.debug("{} seems to be a CVC certificate. Will process it now.", individualFileName);//NON-NLS
+            //FIXME: Not supported
+
+        }
+        /**********************
+         ** X.509 Certificate *
+         **********************/
+        else if (individualFileName.contains("X509")) {//NON-NLS
+            processX509Certificate(individualFileName, content, allClientCertificates, allIntermediateCertificates);
+        } else {
+            //TODO:throw error
+            logger.error("{} should not be in the TAR file. Will be ignored.", individualFileName);//NON-NLS
+        }
     }
 
-    public ArrayList<LogMessage> getLogMessages(){
+    static void processInfoCsv(byte[] content){
+        logger.debug("found info.csv. Start processing now.");//NON-NLS
+        String info_string = new String(content, StandardCharsets.UTF_8);
+        logger.debug("Description in info.csv: {}", StringUtils.substringsBetween(info_string, "description:\",\"", "\"," )[0]);//NON-NLS
+        logger.debug("Manufacturer in info.csv: {}", StringUtils.substringsBetween(info_string, "manufacturer:\",\"", "\"," )[0]);//NON-NLS
+        logger.debug("Version in info.csv: {}", StringUtils.substringsBetween(info_string, "version:\",\"", "\"" )[0]);//NON-NLS
+    }
+
+    /**
+     * Loads an X.509 certificate and stores it either as client or as intermediate certificate, depending on
+     * its key usage. The key is the part of the file name before the first underscore.
+     */
+    static void processX509Certificate(String individualFileName, byte[] content, Map<String, X509Certificate> clientCertificates, Map<String, X509Certificate> intermediateCertificates){
+        logger.debug("{} seems to be an X.509 certificate. Will process it now.", individualFileName);//NON-NLS
+        try {
+            X509Certificate cer = CertificateHelper.loadCertificate(content);
+            // Prüfe die Eigenschaften des Zertifikats gegen den Dateinamen
+            boolean[] keyUsage = cer.getKeyUsage();
+            if (keyUsage == null || !keyUsage[5]) {
+                clientCertificates.put(individualFileName.split("_")[0].toUpperCase(), cer);
+            } else {
+                intermediateCertificates.put(individualFileName.split("_")[0].toUpperCase(), cer);
+            }
+        } catch (CertificateLoadException e) {
+            //TODO: Throw error
+            logger.error("Error loading certificate {}", individualFileName);//NON-NLS
+        }
+    }
+
+    public Collection<LogMessage> getLogMessages(){
+        if(streaming){
+            return new StreamedLogMessages();
+        }
         return this.all_log_messages;
     }
 
@@ -136,15 +443,312 @@ public class LogMessageArchiveImplementation implements LogMessageArchive {
         return filename;
     }
 
-    ArrayList<LogMessage> sortedLogMessages;
+    List<LogMessage> sortedLogMessages;
 
-    public ArrayList<LogMessage> getSortedLogMessages(){
+    /**
+     * In streaming mode, the log messages are sorted by an ExternalSort with a fixed memory budget, and the result
+     * is a view, which reads the log messages from the TAR file in sorted order on every iteration. Only
+     * signature counters, which do not fit into a long, require all log messages to be sorted in memory. The
+     * temporary files of the ExternalSort are deleted by close().
+     */
+    public synchronized List<LogMessage> getSortedLogMessages(){
         if(null == sortedLogMessages){
-            sortedLogMessages = new ArrayList<>(getLogMessages());
-            sortedLogMessages.sort(new LogMessageImplementation.SignatureCounterComparator());
+            if(streaming){
+                ExternalSort externalSort = createExternalSort();
+                if(null != externalSort){
+                    externalSortCleanable = ResourceCloser.register(this, externalSort);
+                    sortedLogMessages = new SortedStreamedLogMessages(externalSort);
+                    return sortedLogMessages;
+                }
+            }
+            ArrayList<LogMessage> sorted = new ArrayList<>(getLogMessages());
+            SignatureCounters.sort(sorted);
+            sortedLogMessages = sorted;
         }
 
         return sortedLogMessages;
     }
 
+    /**
+     * Deletes the temporary files of the ExternalSort, which sorts the log messages in streaming mode, and closes
+     * the TAR file, from which the log messages of a SidecarIndex are read. A sorted view, which was returned by
+     * getSortedLogMessages() before, must not be iterated afterwards. A later call to getSortedLogMessages() sorts
+     * the log messages again, and log messages of the SidecarIndex open the TAR file again, when they are decoded.
+     */
+    @Override
+    public synchronized void close() {
+        if (null != sharedTarFile) {
+            sharedTarFile.close();
+        }
+        if (null != externalSortCleanable) {
+            externalSortCleanable.clean();
+            externalSortCleanable = null;
+            sortedLogMessages = null;
+        }
+    }
+
+    /**
+     * Reads the TAR file and sorts the records of its log messages.
+     * @return the sorted records, or null if a signature counter does not fit into a long.
+     */
+    ExternalSort createExternalSort(){
+        ExternalSort sort = new ExternalSort(Math.max(1, Math.min(maxSortRecordsInMemory, numberOfLogMessages)));
+        try (TarArchiveInputStream tarStream = new TarArchiveInputStream(new FileInputStream(tarFile))) {
+            TarArchiveEntry entry;
+            long headerOffset = 0;
+            while ((entry = tarStream.getNextTarEntry()) != null) {
+                long offset = headerOffset;
+                // the headers of the next entry follow the content of this one, which is padded to full records
+                headerOffset = tarStream.getBytesRead() + (entry.getSize() + TarConstants.DEFAULT_RCDSIZE - 1) / TarConstants.DEFAULT_RCDSIZE * TarConstants.DEFAULT_RCDSIZE;
+                if (!isLogMessageFileName(entry.getName())) {
+                    continue;
+                }
+                byte[] content = readContent(tarStream, entry);
+                // only the signature counter is decoded
+                long signatureCounter = LogMessageFactory.createLazyLogMessage(entry.getName(), content).getSignatureCounterAsLong();
+                if (signatureCounter == LogMessage.SIGNATURE_COUNTER_OVERFLOW) {
+                    sort.close();
+                    return null;
+                }
+                sort.add(signatureCounter, offset, content.length);
+            }
+            sort.finish();
+            return sort;
+        } catch (IOException e) {
+            sort.close();
+            throw new UncheckedIOException(e);
+        } catch (BadFormatForLogMessageException e) {
+            sort.close();
+            throw new LogMessageStreamException(e);
+        }
+    }
+
+    /**
+     * The sorted view on the log messages of the TAR file, used in streaming mode. Each iterator merges the runs of
+     * the ExternalSort and reads the log messages from the TAR file. Only iterating forward is supported. The files
+     * of an iterator are closed, as soon as it is exhausted or fails, when it is closed, or else when it is garbage
+     * collected.
+     */
+    class SortedStreamedLogMessages extends AbstractSequentialList<LogMessage> {
+        final ExternalSort externalSort;
+
+        SortedStreamedLogMessages(ExternalSort externalSort) {
+            this.externalSort = externalSort;
+        }
+
+        @Override
+        public LogMessage get(int index) {
+            if (index < 0 || index >= numberOfLogMessages) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            try (SortedStreamedLogMessageIterator iterator = listIterator(index)) {
+                return iterator.next();
+            }
+        }
+
+        @Override
+        public SortedStreamedLogMessageIterator listIterator(int index) {
+            SortedStreamedLogMessageIterator iterator = new SortedStreamedLogMessageIterator(externalSort.iterator());
+            try {
+                for (int i = 0; i < index; i++) {
+                    iterator.next();
+                }
+            } catch (RuntimeException e) {
+                iterator.close();
+                throw e;
+            }
+            return iterator;
+        }
+
+        @Override
+        public int size() {
+            return numberOfLogMessages;
+        }
+    }
+
+    class SortedStreamedLogMessageIterator implements ListIterator<LogMessage>, Closeable {
+        final ExternalSort.RecordIterator records;
+        final FileChannel file;
+        final Cleaner.Cleanable cleanable;
+        int index = 0;
+
+        SortedStreamedLogMessageIterator(ExternalSort.RecordIterator records){
+            this.records = records;
+            try {
+                file = FileChannel.open(tarFile.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                records.close();
+                throw new UncheckedIOException(e);
+            }
+            cleanable = ResourceCloser.register(this, () -> ExternalSort.closeAll(Arrays.asList(file, records)));
+            closeIfExhausted();
+        }
+
+        void closeIfExhausted(){
+            if (!records.hasNext()) {
+                close();
+            }
+        }
+
+        /**
+         * Closes the TAR file and the runs. The iterator has no next element afterwards.
+         */
+        @Override
+        public void close() {
+            records.close();
+            cleanable.clean();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return records.hasNext();
+        }
+
+        @Override
+        public LogMessage next() {
+            try {
+                ExternalSort.Record record = records.next();
+                // the file name is read from the header of the entry, the stream is not closed to keep the file open
+                file.position(record.offset);
+                TarArchiveInputStream entryStream = new TarArchiveInputStream(Channels.newInputStream(file));
+                TarArchiveEntry entry = entryStream.getNextTarEntry();
+                byte[] content = new byte[record.size];
+                IOUtils.readFully(entryStream, content);
+                index++;
+                closeIfExhausted();
+                return createLogMessage(LogMessageFileName.parse(entry.getName()), content);
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            } catch (UncheckedIOException e) {
+                close();
+                throw e;
+            } catch (BadFormatForLogMessageException e) {
+                close();
+                throw new LogMessageStreamException(e);
+            }
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LogMessage previous() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(LogMessage logMessage) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(LogMessage logMessage) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A view on the log messages of the TAR file, used in streaming mode. Each iterator reads the TAR file
+     * from the beginning and decodes the log messages one at a time. The underlying file is closed, as soon as
+     * the iterator is exhausted or fails, when the iterator is closed, or else when it is garbage collected.
+     */
+    class StreamedLogMessages extends AbstractCollection<LogMessage> {
+        @Override
+        public Iterator<LogMessage> iterator() {
+            return new StreamedLogMessageIterator();
+        }
+
+        @Override
+        public int size() {
+            return numberOfLogMessages;
+        }
+    }
+
+    class StreamedLogMessageIterator implements Iterator<LogMessage>, Closeable {
+        final TarArchiveInputStream tarStream;
+        final Cleaner.Cleanable cleanable;
+        LogMessage next;
+
+        StreamedLogMessageIterator(){
+            try {
+                tarStream = new TarArchiveInputStream(new FileInputStream(tarFile));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+            cleanable = ResourceCloser.register(this, tarStream);
+            advance();
+        }
+
+        void advance(){
+            next = null;
+            try {
+                TarArchiveEntry entry;
+                while ((entry = tarStream.getNextTarEntry()) != null) {
+                    LogMessageFileName fileName = LogMessageFileName.parse(entry.getName());
+                    if (null != fileName) {
+                        next = createLogMessage(fileName, readContent(tarStream, entry));
+                        return;
+                    }
+                }
+                close();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            } catch (BadFormatForLogMessageException e) {
+                close();
+                throw new LogMessageStreamException(e);
+            }
+        }
+
+        /**
+         * Closes the TAR file. The iterator has no next element afterwards.
+         */
+        @Override
+        public void close() {
+            next = null;
+            cleanable.clean();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public LogMessage next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            LogMessage result = next;
+            advance();
+            return result;
+        }
+    }
+
+    /**
+     * Thrown while iterating the log messages of an archive in streaming mode, if a log message can not be parsed.
+     */
+    public static class LogMessageStreamException extends RuntimeException {
+        public LogMessageStreamException(BadFormatForLogMessageException cause) {
+            super(cause);
+        }
+    }
 }
@@ -0,0 +1,466 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
+import de.konfidas.ttc.exceptions.BadFormatForTARException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageFactory;
+import de.konfidas.ttc.messages.LogMessageFileName;
+import de.konfidas.ttc.messages.SignatureCounters;
+import de.konfidas.ttc.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+/**
+ * A LogMessageArchive, which maps the TAR file into memory instead of reading it. On creation, only the 512 byte
+ * headers of the TAR file are read and an index of all entries is built. Log messages are decoded from the mapped
+ * file whenever they are accessed, certificates on the first call to getClientCertificates() or
+ * getIntermediateCertificates().
+ */
+public class MappedLogMessageArchive implements LogMessageArchive {
+    final static Logger logger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    static final int BLOCK_SIZE = 512;
+    // Size of the regions, in which the TAR file is mapped. Has to be a multiple of BLOCK_SIZE.
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    final String filename;
+    final ByteBuffer[] segments;
+    final ArrayList<Entry> logMessageEntries = new ArrayList<>();
+    final ArrayList<Entry> certificateEntries = new ArrayList<>();
+    final ArrayList<Entry> otherEntries = new ArrayList<>();
+
+    HashMap<String, X509Certificate> allClientCertificates;
+    HashMap<String, X509Certificate> allIntermediateCertificates;
+    List<Entry> sortedLogMessageEntries;
+    // the log message entries sorted by the signature counter in their file names, to look up ranges
+    List<Entry> fileNameSortedLogMessageEntries;
+    boolean lazyParsing = false;
+    // If set, the decoding of each log message is recorded into it.
+    Metrics.Phase decodePhase;
+
+    /**
+     * An entry of the TAR file, i.e. its name and the position of its content in the TAR file.
+     */
+    public static class Entry {
+        final String name;
+        final long offset;
+        final long size;
+        // the signature counter decoded from the log message, set when the log messages are sorted first. The
+        // counter in the file name is not used for sorting, as it may differ from the one in the log message.
+        BigInteger signatureCounter;
+        // the signature counter in the file name of a log message, set by the scan of the headers
+        BigInteger fileNameSignatureCounter;
+
+        Entry(String name, long offset, long size) {
+            this.name = name;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    public MappedLogMessageArchive(File tarFile) throws IOException, BadFormatForTARException {
+        this(tarFile, null);
+    }
+
+    /**
+     * Maps the TAR file and builds the index of its entries. The time spent on the index, the number of log messages
+     * and the size of the TAR file are recorded into the phase LogMessageArchiveImplementation.PARSE_PHASE of the
+     * given metrics, the decoding of log messages as by setMetrics().
+     * @param metrics metrics to record into, or null to record nothing.
+     */
+    public MappedLogMessageArchive(File tarFile, Metrics metrics) throws IOException, BadFormatForTARException {
+        this.filename = tarFile.getName();
+        setMetrics(metrics);
+
+        try (FileChannel channel = FileChannel.open(tarFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            segments = new ByteBuffer[(int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT_SIZE;
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, fileSize - start));
+                segments[i] = segment;
+            }
+            if (null == metrics) {
+                buildIndex(fileSize);
+                return;
+            }
+            try (Metrics.Timer timer = metrics.phase(LogMessageArchiveImplementation.PARSE_PHASE).start()) {
+                buildIndex(fileSize);
+                timer.addItems(logMessageEntries.size()).addBytes(fileSize);
+            }
+        }
+    }
+
+    /**
+     * Enables lazy parsing. Log messages are then decoded as LazyLogMessages, see
+     * LogMessageArchiveImplementation.setLazyParsing().
+     * @return this archive
+     */
+    public MappedLogMessageArchive setLazyParsing(boolean lazyParsing) {
+        this.lazyParsing = lazyParsing;
+        return this;
+    }
+
+    /**
+     * Records the time and allocations of decoding each log message into the phase
+     * LogMessageArchiveImplementation.DECODE_PHASE of the given metrics. As log messages are decoded on every access,
+     * each access is recorded. To record the index as well, pass the metrics to the constructor.
+     * @param metrics metrics to record into, or null to record nothing.
+     * @return this archive
+     */
+    public MappedLogMessageArchive setMetrics(Metrics metrics) {
+        this.decodePhase = (null == metrics) ? null : metrics.phase(LogMessageArchiveImplementation.DECODE_PHASE, false);
+        return this;
+    }
+
+    void buildIndex(long fileSize) throws BadFormatForTARException {
+        boolean infoCSVPresent = false;
+        String longName = null;
+        long offset = 0;
+
+        while (offset + BLOCK_SIZE <= fileSize) {
+            byte[] header = read(offset, BLOCK_SIZE);
+            if (header[0] == 0) {
+                // end of archive
+                break;
+            }
+
+            long size = parseSize(header);
+            long dataOffset = offset + BLOCK_SIZE;
+            if (size < 0 || dataOffset + size > fileSize) {
+                throw new BadFormatForTARException(String.format(properties.getString("de.konfidas.ttc.tars.invalidTarHeader"), offset), null);
+            }
+            byte type = header[156];
+
+            if (type == 'L') {
+                // GNU long name: the content is the name of the next entry
+                longName = trimNul(read(dataOffset, (int) size));
+            }
+            else if (type == 'x') {
+                // pax extended header: we are only interested in the path
+                String path = parsePaxPath(read(dataOffset, (int) size));
+                if (null != path) {
+                    longName = path;
+                }
+            }
+            else if (type == '0' || type == 0) {
+                String name = (null != longName) ? longName : parseName(header);
+                longName = null;
+                logger.debug("Will now process {}", name); //NON-NLS
+
+                LogMessageFileName fileName = LogMessageFileName.parse(name);
+                Entry entry = new Entry(name, dataOffset, size);
+                if (null != fileName) {
+                    entry.fileNameSignatureCounter = fileName.getSignatureCounter();
+                    logMessageEntries.add(entry);
+                }
+                else if (name.contains("X509")) {//NON-NLS
+                    certificateEntries.add(entry);
+                }
+                else {
+                    if (LogMessageArchiveImplementation.isInfoCsvFileName(name)) {//NON-NLS
+                        infoCSVPresent = true;
+                        LogMessageArchiveImplementation.processInfoCsv(read(dataOffset, (int) size));
+                    }
+                    else if (!name.contains("CVC")) {
+                        logger.error("{} should not be in the TAR file. Will be ignored.", name);//NON-NLS
+                    }
+                    otherEntries.add(entry);
+                }
+            }
+            else {
+                longName = null;
+            }
+
+            offset = dataOffset + ((size + BLOCK_SIZE - 1) / BLOCK_SIZE) * BLOCK_SIZE;
+        }
+
+        if (!infoCSVPresent){throw new BadFormatForTARException(properties.getString("de.konfidas.ttc.tars.infoCSVNotFound"),null);}
+    }
+
+    static long parseSize(byte[] header) {
+        if ((header[124] & 0x80) != 0) {
+            // base-256 encoding, used for entries larger than 8 GB
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xff);
+            }
+            return size;
+        }
+        long size = 0;
+        for (int i = 124; i < 136; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (size != 0) break;
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                return -1;
+            }
+            size = (size << 3) + (b - '0');
+        }
+        return size;
+    }
+
+    static String parseName(byte[] header) {
+        String name = trimNul(Arrays.copyOfRange(header, 0, 100));
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r';
+        if (ustar && header[345] != 0) {
+            name = trimNul(Arrays.copyOfRange(header, 345, 500)) + "/" + name;
+        }
+        return name;
+    }
+
+    static String parsePaxPath(byte[] content) {
+        // records look like "<length> <key>=<value>\n"
+        String records = new String(content, StandardCharsets.UTF_8);
+        for (String record : records.split("\n")) {
+            int blank = record.indexOf(' ');
+            if (blank >= 0 && record.startsWith("path=", blank + 1)) {//NON-NLS
+                return record.substring(blank + 6);
+            }
+        }
+        return null;
+    }
+
+    static String trimNul(byte[] bytes) {
+        int length = 0;
+        while (length < bytes.length && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies a region of the mapped TAR file into a new array. The region may span several segments.
+     */
+    byte[] read(long offset, int length) {
+        byte[] result = new byte[length];
+        int done = 0;
+        while (done < length) {
+            long position = offset + done;
+            ByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)].duplicate();
+            int positionInSegment = (int) (position % SEGMENT_SIZE);
+            int chunk = Math.min(length - done, segment.limit() - positionInSegment);
+            segment.position(positionInSegment);
+            segment.get(result, done, chunk);
+            done += chunk;
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the log message, which is stored at the given entry.
+     * @throws LogMessageArchiveImplementation.LogMessageStreamException if the log message can not be parsed.
+     */
+    LogMessage decode(Entry entry) {
+        if (null == decodePhase) {
+            return decodeLogMessage(entry);
+        }
+        try (Metrics.Timer timer = decodePhase.start()) {
+            timer.addItems(1).addBytes(entry.size);
+            return decodeLogMessage(entry);
+        }
+    }
+
+    LogMessage decodeLogMessage(Entry entry) {
+        try {
+            byte[] content = read(entry.offset, (int) entry.size);
+            if (lazyParsing) {
+                return LogMessageFactory.createLazyLogMessage(entry.name, content);
+            }
+            return LogMessageFactory.createLogMessage(entry.name, content);
+        } catch (BadFormatForLogMessageException e) {
+            throw new LogMessageArchiveImplementation.LogMessageStreamException(e);
+        }
+    }
+
+    /**
+     * @return the index of all log messages in this archive, in the order of the TAR file.
+     */
+    public List<Entry> getLogMessageEntries() {
+        return Collections.unmodifiableList(logMessageEntries);
+    }
+
+    /**
+     * @return the index of all certificates in this archive, in the order of the TAR file.
+     */
+    public List<Entry> getCertificateEntries() {
+        return Collections.unmodifiableList(certificateEntries);
+    }
+
+    void loadCertificates() {
+        allClientCertificates = new HashMap<>();
+        allIntermediateCertificates = new HashMap<>();
+        for (Entry entry : certificateEntries) {
+            LogMessageArchiveImplementation.processX509Certificate(entry.name, read(entry.offset, (int) entry.size), allClientCertificates, allIntermediateCertificates);
+        }
+    }
+
+    @Override
+    public Map<String, X509Certificate> getIntermediateCertificates() {
+        if (null == allIntermediateCertificates) {
+            loadCertificates();
+        }
+        return allIntermediateCertificates;
+    }
+
+    @Override
+    public Map<String, X509Certificate> getClientCertificates() {
+        if (null == allClientCertificates) {
+            loadCertificates();
+        }
+        return allClientCertificates;
+    }
+
+    /**
+     * @return a view on all log messages in the order of the TAR file. Log messages are decoded on every access.
+     */
+    @Override
+    public List<LogMessage> getLogMessages() {
+        return new DecodingList(logMessageEntries);
+    }
+
+    /**
+     * Returns a view on all log messages, sorted by signature counter like the other archives. Only the index is
+     * sorted, log messages are decoded on every access. For the first sort, the signature counter of each log
+     * message is decoded lazily, the other fields are not.
+     */
+    @Override
+    public List<LogMessage> getSortedLogMessages() {
+        return new DecodingList(getSortedLogMessageEntries());
+    }
+
+    /**
+     * Returns all log messages with a signature counter between from and to (both inclusive), sorted by signature
+     * counter. The range is looked up by the signature counters in the file names, which the scan of the headers
+     * already knows, so only the log messages in the range are decoded. Their decoded signature counters are checked,
+     * and log messages, whose counter is outside the range despite their file name, are left out. A log message,
+     * whose file name names a counter outside the range, is not found, see LogMessageFileNameValidator.
+     * @throws LogMessageArchiveImplementation.LogMessageStreamException if a log message can not be parsed.
+     */
+    public List<LogMessage> getLogMessages(BigInteger from, BigInteger to) {
+        List<Entry> sorted = getFileNameSortedLogMessageEntries();
+        int start = lowerBound(sorted, from);
+        int end = lowerBound(sorted, to.add(BigInteger.ONE));
+        ArrayList<LogMessage> result = new ArrayList<>();
+        for (Entry entry : sorted.subList(start, Math.max(start, end))) {
+            LogMessage msg = decode(entry);
+            BigInteger counter = msg.getSignatureCounter();
+            if (counter.compareTo(from) >= 0 && counter.compareTo(to) <= 0) {
+                result.add(msg);
+            }
+        }
+        SignatureCounters.sort(result);
+        return result;
+    }
+
+    synchronized List<Entry> getFileNameSortedLogMessageEntries() {
+        if (null == fileNameSortedLogMessageEntries) {
+            ArrayList<Entry> sorted = new ArrayList<>(logMessageEntries);
+            SignatureCounters.sort(sorted, e -> SignatureCounters.toLong(e.fileNameSignatureCounter), Comparator.comparing(e -> e.fileNameSignatureCounter));
+            fileNameSortedLogMessageEntries = sorted;
+        }
+        return fileNameSortedLogMessageEntries;
+    }
+
+    synchronized List<Entry> getSortedLogMessageEntries() {
+        if (null == sortedLogMessageEntries) {
+            ArrayList<Entry> sorted = new ArrayList<>(logMessageEntries);
+            for (Entry entry : sorted) {
+                entry.signatureCounter = decodeSignatureCounter(entry);
+            }
+            SignatureCounters.sort(sorted, e -> SignatureCounters.toLong(getSignatureCounter(e)), Comparator.comparing(MappedLogMessageArchive::getSignatureCounter));
+            sortedLogMessageEntries = sorted;
+        }
+        return sortedLogMessageEntries;
+    }
+
+    /**
+     * @throws LogMessageArchiveImplementation.LogMessageStreamException if the log message can not be parsed.
+     */
+    BigInteger decodeSignatureCounter(Entry entry) {
+        try {
+            return LogMessageFactory.createLazyLogMessage(entry.name, read(entry.offset, (int) entry.size)).getSignatureCounter();
+        } catch (BadFormatForLogMessageException e) {
+            throw new LogMessageArchiveImplementation.LogMessageStreamException(e);
+        }
+    }
+
+    /**
+     * @param sorted entries sorted by the signature counters in their file names.
+     */
+    static int lowerBound(List<Entry> sorted, BigInteger counter) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted.get(mid).fileNameSignatureCounter.compareTo(counter) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static BigInteger getSignatureCounter(Entry entry) {
+        return (null == entry.signatureCounter) ? BigInteger.ZERO : entry.signatureCounter;
+    }
+
+    @Override
+    public String getFileName() {
+        return filename;
+    }
+
+    /**
+     * @return false, as log messages are decoded on every access.
+     */
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+    class DecodingList extends AbstractList<LogMessage> implements RandomAccess {
+        final List<Entry> entries;
+
+        DecodingList(List<Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public LogMessage get(int index) {
+            return decode(entries.get(index));
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+    }
+}
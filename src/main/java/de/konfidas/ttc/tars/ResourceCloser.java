@@ -0,0 +1,32 @@
+package de.konfidas.ttc.tars;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+
+/**
+ * Closes the files of iterators, which are not iterated to their end, e.g. because a validator threw an exception
+ * or only the first elements were needed. Such iterators are closed, when they are garbage collected, or earlier,
+ * if they are closed explicitly.
+ */
+final class ResourceCloser {
+    static final Cleaner cleaner = Cleaner.create();
+
+    private ResourceCloser() {
+    }
+
+    /**
+     * Registers the resource of the given owner. The resource must not refer to its owner, otherwise the owner is
+     * never garbage collected.
+     * @return the cleanable, which closes the resource at most once. Call clean() on it to close it explicitly.
+     */
+    static Cleaner.Cleanable register(Object owner, Closeable resource) {
+        return cleaner.register(owner, () -> {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                // the resource is no longer used, so there is nothing left to handle
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package de.konfidas.ttc.tars;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A TAR file, which is opened once and shared by all log messages of an archive, which read their content on
+ * demand. Reads are positional, so they may happen concurrently. The file is opened on the first read, and closed
+ * by close() or when it is no longer referenced. A read after close() opens it again.
+ */
+class SharedTarFile implements Closeable {
+    final File tarFile;
+    FileChannel channel;
+    Cleaner.Cleanable cleanable;
+
+    SharedTarFile(File tarFile) {
+        this.tarFile = tarFile;
+    }
+
+    synchronized FileChannel channel() throws IOException {
+        // an interrupted reader closes the channel for all readers, so it is opened again then
+        if (null == channel || !channel.isOpen()) {
+            close();
+            channel = FileChannel.open(tarFile.toPath(), StandardOpenOption.READ);
+            cleanable = ResourceCloser.register(this, channel);
+        }
+        return channel;
+    }
+
+    /**
+     * @return size bytes of the TAR file, starting at offset.
+     */
+    byte[] read(long offset, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        try {
+            readFully(channel(), buffer, offset);
+        } catch (ClosedChannelException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            // closed by another, interrupted reader
+            buffer.clear();
+            readFully(channel(), buffer, offset);
+        }
+        return buffer.array();
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (null != cleanable) {
+            cleanable.clean();
+            cleanable = null;
+            channel = null;
+        }
+    }
+}
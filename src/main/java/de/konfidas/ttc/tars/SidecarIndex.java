@@ -0,0 +1,314 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.messages.LazyLogMessage;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.SerialNumber;
+import de.konfidas.ttc.messages.logtime.LogTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A compact binary index of the log messages of a TAR file, which is stored next to the TAR file. For every log
+ * message, it holds the position in the TAR file, serial number, signature counter, log time, type of the message
+ * and a hash of its content. The index is only valid, as long as size, modification time and SHA-256 hash of the
+ * TAR file match the values stored in the index.
+ */
+public class SidecarIndex {
+    final static Logger logger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+
+    static final String FILE_SUFFIX = ".ttcidx"; //NON-NLS
+    static final int MAGIC = 0x54544349; // "TTCI"
+    // version 2 stores the XXH64 hash of the content instead of its SHA-256 prefix
+    static final int VERSION = 2;
+    static final String HASH_ALGORITHM = "SHA-256"; //NON-NLS
+
+    final long tarSize;
+    final long tarModified;
+    final byte[] tarHash;
+    final ArrayList<Entry> entries;
+
+    /**
+     * The indexed information about a single log message.
+     */
+    public static class Entry {
+        final String fileName;
+        final long offset;
+        final long size;
+        final byte[] serialNumber;
+        final SerialNumber internedSerialNumber;
+        final BigInteger signatureCounter;
+        final LogTime.Type logTimeType;
+        final long logTime;
+        final String logTimeString;
+        final String messageType;
+        final long contentHash;
+
+        Entry(String fileName, long offset, long size, byte[] serialNumber, BigInteger signatureCounter, LogTime.Type logTimeType, long logTime, String logTimeString, String messageType, long contentHash) {
+            this.fileName = fileName;
+            this.offset = offset;
+            this.size = size;
+            this.serialNumber = serialNumber;
+            this.internedSerialNumber = SerialNumber.of(serialNumber);
+            this.signatureCounter = signatureCounter;
+            this.logTimeType = logTimeType;
+            this.logTime = logTime;
+            this.logTimeString = logTimeString;
+            this.messageType = messageType;
+            this.contentHash = contentHash;
+        }
+
+        Entry(LogMessage msg, long offset, long size) {
+            this(msg.getFileName(), offset, size, msg.getSerialNumber(), msg.getSignatureCounter(),
+                    msg.getLogTime().getType(), msg.getLogTime().getTime(), msg.getLogTime().toString(),
+                    messageTypeOf(msg), contentHash(msg));
+        }
+
+        static String messageTypeOf(LogMessage msg) {
+            if (msg instanceof LazyLogMessage) {
+                return ((LazyLogMessage) msg).getLogMessage().getClass().getName();
+            }
+            return msg.getClass().getName();
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getMessageType() {
+            return messageType;
+        }
+
+        public long getContentHash() {
+            return contentHash;
+        }
+    }
+
+    SidecarIndex(long tarSize, long tarModified, byte[] tarHash, ArrayList<Entry> entries) {
+        this.tarSize = tarSize;
+        this.tarModified = tarModified;
+        this.tarHash = tarHash;
+        this.entries = entries;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public static File indexFileFor(File tarFile) {
+        return new File(tarFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * The hash of the content of a log message, i.e. its ContentDigest.
+     */
+    static long contentHash(LogMessage msg) {
+        return msg.getContentDigest();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    boolean matchesHash(byte[] hash) {
+        return Arrays.equals(tarHash, hash);
+    }
+
+    /**
+     * Reads the index of the given TAR file.
+     * @return the index, or null if there is no index, it can not be read, or size or modification time of the
+     * TAR file do not match. The hash of the TAR file has to be checked by the caller, because it requires to read
+     * the whole TAR file.
+     */
+    public static SidecarIndex read(File tarFile) {
+        File indexFile = indexFileFor(tarFile);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.debug("Ignoring index {} with unknown format.", indexFile); //NON-NLS
+                return null;
+            }
+            long tarSize = in.readLong();
+            long tarModified = in.readLong();
+            byte[] tarHash = new byte[in.readUnsignedByte()];
+            in.readFully(tarHash);
+            if (tarFile.length() != tarSize || Files.getLastModifiedTime(tarFile.toPath()).toMillis() != tarModified) {
+                logger.debug("Index {} is outdated.", indexFile); //NON-NLS
+                return null;
+            }
+
+            String[] messageTypes = new String[in.readInt()];
+            for (int i = 0; i < messageTypes.length; i++) {
+                messageTypes[i] = in.readUTF();
+            }
+            byte[][] serialNumbers = new byte[in.readInt()][];
+            for (int i = 0; i < serialNumbers.length; i++) {
+                serialNumbers[i] = readBytes(in);
+            }
+
+            int numberOfEntries = in.readInt();
+            ArrayList<Entry> entries = new ArrayList<>(numberOfEntries);
+            LogTime.Type[] logTimeTypes = LogTime.Type.values();
+            for (int i = 0; i < numberOfEntries; i++) {
+                String fileName = in.readUTF();
+                long offset = in.readLong();
+                long size = in.readLong();
+                byte[] serialNumber = serialNumbers[in.readInt()];
+                BigInteger signatureCounter = new BigInteger(readBytes(in));
+                LogTime.Type logTimeType = logTimeTypes[in.readUnsignedByte()];
+                long logTime = in.readLong();
+                String logTimeString = in.readUTF();
+                String messageType = messageTypes[in.readInt()];
+                long contentHash = in.readLong();
+                entries.add(new Entry(fileName, offset, size, serialNumber, signatureCounter, logTimeType, logTime, logTimeString, messageType, contentHash));
+            }
+
+            return new SidecarIndex(tarSize, tarModified, tarHash, entries);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read index {}: {}", indexFile, e.getMessage()); //NON-NLS
+            return null;
+        }
+    }
+
+    /**
+     * Writes this index next to the given TAR file. Failing to write the index is not an error, it is only logged.
+     */
+    public void write(File tarFile) {
+        File indexFile = indexFileFor(tarFile);
+        LinkedHashMap<String, Integer> messageTypes = new LinkedHashMap<>();
+        LinkedHashMap<String, Integer> serialNumbers = new LinkedHashMap<>();
+        ArrayList<byte[]> serialNumberValues = new ArrayList<>();
+        for (Entry e : entries) {
+            messageTypes.putIfAbsent(e.messageType, messageTypes.size());
+            String serial = e.internedSerialNumber.toHexString();
+            if (null == serialNumbers.putIfAbsent(serial, serialNumbers.size())) {
+                serialNumberValues.add(e.serialNumber);
+            }
+        }
+
+        // the index is written to a temporary file first, so a crash never leaves a truncated index
+        File tmp = new File(indexFile.getPath() + ".tmp"); //NON-NLS
+        try {
+            writeEntries(tmp, messageTypes, serialNumbers, serialNumberValues);
+            Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not write index {}: {}", indexFile, e.getMessage()); //NON-NLS
+            if (!tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+    void writeEntries(File file, Map<String, Integer> messageTypes, Map<String, Integer> serialNumbers, List<byte[]> serialNumberValues) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(tarSize);
+            out.writeLong(tarModified);
+            out.writeByte(tarHash.length);
+            out.write(tarHash);
+
+            out.writeInt(messageTypes.size());
+            for (String type : messageTypes.keySet()) {
+                out.writeUTF(type);
+            }
+            out.writeInt(serialNumberValues.size());
+            for (byte[] serial : serialNumberValues) {
+                writeBytes(out, serial);
+            }
+
+            out.writeInt(entries.size());
+            for (Entry e : entries) {
+                out.writeUTF(e.fileName);
+                out.writeLong(e.offset);
+                out.writeLong(e.size);
+                out.writeInt(serialNumbers.get(e.internedSerialNumber.toHexString()));
+                writeBytes(out, e.signatureCounter.toByteArray());
+                out.writeByte(e.logTimeType.ordinal());
+                out.writeLong(e.logTime);
+                out.writeUTF(e.logTimeString);
+                out.writeInt(messageTypes.get(e.messageType));
+                out.writeLong(e.contentHash);
+            }
+        }
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] result = new byte[in.readInt()];
+        in.readFully(result);
+        return result;
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Creates an index for the given TAR file.
+     * @param tarHash SHA-256 hash of the TAR file.
+     * @param logMessages all log messages of the TAR file.
+     * @param offsets positions of the log messages in the TAR file, in the same order as logMessages.
+     */
+    static SidecarIndex create(File tarFile, byte[] tarHash, List<LogMessage> logMessages, List<long[]> offsets) throws IOException {
+        ArrayList<Entry> entries = new ArrayList<>(logMessages.size());
+        for (int i = 0; i < logMessages.size(); i++) {
+            entries.add(new Entry(logMessages.get(i), offsets.get(i)[0], offsets.get(i)[1]));
+        }
+        return new SidecarIndex(tarFile.length(), Files.getLastModifiedTime(tarFile.toPath()).toMillis(), tarHash, entries);
+    }
+
+    /**
+     * A stream, which calculates the SHA-256 hash of all bytes, including the skipped ones.
+     */
+    static class HashingInputStream extends DigestInputStream {
+        HashingInputStream(InputStream in) {
+            super(in, newDigest());
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[8192];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        /**
+         * Reads the rest of the stream and returns the hash of all bytes.
+         */
+        byte[] finish() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer) >= 0) {
+                // only needed for the hash
+            }
+            return getMessageDigest().digest();
+        }
+    }
+}
@@ -14,6 +14,9 @@ public enum oid {
     id_SE_API_system_log     ( Hex.decode("06 09 04 00 7F 00 07 03 07 01 02".replace("\\\\s+","")), "0.4.0.127.0.7.3.7.1.2", "id-SE-API-system-log"),//NON-NLS
     id_SE_API_SE_audit_log   ( Hex.decode("06 09 04 00 7F 00 07 03 07 01 03".replace("\\\\s+","")), "0.4.0.127.0.7.3.7.1.3", "id-SE-API-SE-audit-log");//NON-NLS
 
+    // values() copies the array on every call
+    static final oid[] VALUES = values();
+
     final byte[] encoded;
     final String readable;
     final String name;
@@ -46,9 +49,22 @@ public enum oid {
         throw new UnknownOidException(MessageFormat.format("Unknown OID:", Hex.toHexString(encoded)));//NON-NLS
     }
 
+    /**
+     * Like fromBytes(byte[]), but compares a region of an array, so that no copy of the OID is needed.
+     * @return the OID, or null if it is unknown.
+     */
+    public static oid fromBytes(byte[] data, int offset, int length) {
+        for (oid oid : VALUES) {
+            if (Arrays.equals(oid.encoded, 0, oid.encoded.length, data, offset, offset + length)) {
+                return oid;
+            }
+        }
+        return null;
+    }
+
     public static class UnknownOidException extends BadFormatForLogMessageException {
         public UnknownOidException(String message) {
             super(message);
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
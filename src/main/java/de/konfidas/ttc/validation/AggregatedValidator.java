@@ -1,21 +1,81 @@
 package de.konfidas.ttc.validation;
 
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.SerialNumber;
+import de.konfidas.ttc.messages.SignatureCounters;
+import de.konfidas.ttc.metrics.Metrics;
 import de.konfidas.ttc.tars.LogMessageArchive;
-import java.util.Collection;
-import java.util.LinkedList;
 
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs multiple validators on an archive. The LogMessageValidators are fused: the log messages of the archive are
+ * traversed only once, and each log message is passed to the visitors of all of them. If one of them requires the
+ * sorted log messages, all of them see the sorted log messages.
+ *
+ * If an executor is set, the fused pass and all other validators run concurrently on it. A validator can be added
+ * with dependencies, i.e. validators, which have to be finished before it starts. A LogMessageValidator with
+ * dependencies is not fused. The results are always appended in the order, in which the validators were added, so
+ * the result does not depend on the order, in which the validators finish.
+ *
+ * LogMessageValidators, which are partitioned by serial number, are not passed the log messages of the whole
+ * archive. Instead, the log messages are grouped by serial number once, and each group is sorted and validated on
+ * its own, concurrently if an executor is set. To bound the number of tasks, the groups are batched into at most
+ * PARTITION_TASKS_PER_THREAD tasks per thread of the executor. The errors of a validator are appended in the order of the serial
+ * numbers. In that case, LogMessageValidators, which are not partitioned but require the sorted log messages, get
+ * a pass of their own. Archives, which do not hold their log messages in memory, are not partitioned, so that
+ * validating them does not hold all log messages in memory either.
+ */
 public class AggregatedValidator implements Validator{
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+    public static final String VALIDATE_PHASE = "validate"; //NON-NLS
+    public static final String VALIDATOR_PHASE_PREFIX = "validator "; //NON-NLS
+    // more tasks than threads, so that threads, which finish their small serial numbers early, take over others
+    static final int PARTITION_TASKS_PER_THREAD = 4;
+
     final Collection<Validator> validators;
+    final IdentityHashMap<Validator, List<Validator>> dependencies = new IdentityHashMap<>();
+    ExecutorService executor;
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    Metrics metrics;
 
     public AggregatedValidator(){
         this.validators = new LinkedList<>();
     }
 
     public AggregatedValidator add(Validator v){
+        return add(v, new Validator[0]);
+    }
+
+    /**
+     * Adds a validator, which must not start before the given validators have finished.
+     * @param dependsOn validators, which have been added before.
+     */
+    public AggregatedValidator add(Validator v, Validator... dependsOn){
+        for(Validator d : dependsOn){
+            if(!this.validators.contains(d)){
+                throw new IllegalArgumentException(properties.getString("de.konfidas.ttc.validation.unknownDependency"));
+            }
+        }
+
         if(v instanceof  AggregatedValidator){
-            this.validators.addAll(((AggregatedValidator) v).validators);
+            AggregatedValidator aggregated = (AggregatedValidator) v;
+            for(Validator inner : aggregated.validators){
+                ArrayList<Validator> innerDependencies = new ArrayList<>(aggregated.dependencies.getOrDefault(inner, Collections.emptyList()));
+                innerDependencies.addAll(Arrays.asList(dependsOn));
+                add(inner, innerDependencies.toArray(new Validator[0]));
+            }
         }else {
             this.validators.add(v);
+            if(dependsOn.length > 0){
+                this.dependencies.computeIfAbsent(v, k -> new ArrayList<>()).addAll(Arrays.asList(dependsOn));
+            }
         }
 
         return this;
@@ -28,13 +88,307 @@ public class AggregatedValidator implements Validator{
         }
     }
 
+    /**
+     * Runs the validators concurrently on the given executor. The executor is not shut down by this class.
+     * Validators, which block on tasks of their own executor, e.g. a parallel LogMessageSignatureValidator, should
+     * not share a bounded executor with this class.
+     * @param executor executor to run the validators on, or null to run them one after another.
+     */
+    public AggregatedValidator setExecutor(ExecutorService executor){
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Runs the validators concurrently on the given executor, see setExecutor(ExecutorService).
+     * @param parallelism the number of threads of the executor. The log messages of the serial numbers are
+     *                    validated in at most PARTITION_TASKS_PER_THREAD tasks per thread.
+     */
+    public AggregatedValidator setExecutor(ExecutorService executor, int parallelism){
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive"); //NON-NLS
+        }
+        this.parallelism = parallelism;
+        return setExecutor(executor);
+    }
+
+    /**
+     * Records the time and errors of the whole validation into the phase VALIDATE_PHASE, and of each validator into
+     * the phase VALIDATOR_PHASE_PREFIX followed by the simple name of its class. The time of a fused
+     * LogMessageValidator is the time spent in its visitors, its items are the log messages it visited.
+     * @param metrics metrics to record into, or null to record nothing.
+     */
+    public AggregatedValidator setMetrics(Metrics metrics){
+        this.metrics = metrics;
+        return this;
+    }
+
+    static String phaseName(Validator v){
+        return VALIDATOR_PHASE_PREFIX + v.getClass().getSimpleName();
+    }
+
     @Override
     public ValidationResult validate(LogMessageArchive tar) {
-                ValidationResultImpl result = new ValidationResultImpl();
+        if(null == metrics){
+            return validateAll(tar);
+        }
+        try(Metrics.Timer timer = metrics.phase(VALIDATE_PHASE).start()){
+            ValidationResult result = validateAll(tar);
+            timer.addErrors(result.getValidationErrors().size());
+            return result;
+        }
+    }
+
+    ValidationResult validateAll(LogMessageArchive tar) {
+        Executor runner = (null == executor) ? Runnable::run : executor;
+
+        Set<Validator> fused = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(Validator v : validators){
+            if(v instanceof LogMessageValidator && !dependencies.containsKey(v)){
+                fused.add(v);
+            }
+        }
+        CompletableFuture<Map<Validator, Collection<ValidationException>>> fusedPass = fused.isEmpty()
+                ? CompletableFuture.completedFuture(Collections.emptyMap())
+                : validateLogMessages(tar, fused, runner);
+
+        // dependencies are always added before the validators depending on them, so their futures already exist
+        IdentityHashMap<Validator, CompletableFuture<ValidationResult>> results = new IdentityHashMap<>();
         for(Validator v : validators){
-            result.append(v.validate(tar));
+            if(results.containsKey(v)){
+                continue;
+            }
+            if(fused.contains(v)){
+                results.put(v, fusedPass.thenApply(errors -> new ValidationResultImpl().append(Collections.singleton(v), errors.get(v))));
+            }else {
+                CompletableFuture<?>[] before = dependencies.getOrDefault(v, Collections.emptyList()).stream()
+                        .map(results::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                results.put(v, CompletableFuture.allOf(before).thenApplyAsync(x -> validate(v, tar), runner));
+            }
+        }
+
+        ValidationResultImpl result = new ValidationResultImpl();
+        for(Validator v : validators){
+            result.append(join(results.get(v)));
         }
 
         return result;
     }
+
+    ValidationResult validate(Validator v, LogMessageArchive tar) {
+        if(null == metrics){
+            return v.validate(tar);
+        }
+        try(Metrics.Timer timer = metrics.phase(phaseName(v)).start()){
+            ValidationResult result = v.validate(tar);
+            timer.addErrors(result.getValidationErrors().size());
+            return result;
+        }
+    }
+
+    LogMessageValidator.Visitor createVisitor(LogMessageValidator validator, LogMessageArchive tar) {
+        LogMessageValidator.Visitor visitor = validator.createVisitor(tar);
+        return (null == metrics) ? visitor : new TimedVisitor(visitor, metrics.phase(phaseName(validator)));
+    }
+
+    static ValidationResult join(CompletableFuture<ValidationResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the given LogMessageValidators with as few passes over the log messages as possible.
+     * @return the errors found by each LogMessageValidator.
+     */
+    CompletableFuture<Map<Validator, Collection<ValidationException>>> validateLogMessages(LogMessageArchive tar, Collection<Validator> fused, Executor runner) {
+        ArrayList<LogMessageValidator> partitioned = new ArrayList<>();
+        ArrayList<LogMessageValidator> unsorted = new ArrayList<>();
+        ArrayList<LogMessageValidator> sorted = new ArrayList<>();
+        // grouping by serial number collects all log messages, so archives, which bound their memory, are validated
+        // in a single pass over the sorted log messages instead
+        boolean partitionable = tar.isInMemory();
+        for(Validator v : fused){
+            LogMessageValidator validator = (LogMessageValidator) v;
+            if(partitionable && validator.isPartitionedBySerialNumber()){
+                partitioned.add(validator);
+            }else if(validator.requiresSortedLogMessages()){
+                sorted.add(validator);
+            }else{
+                unsorted.add(validator);
+            }
+        }
+
+        if(partitioned.isEmpty()){
+            unsorted.addAll(sorted);
+            return CompletableFuture.supplyAsync(() -> validateLogMessages(tar, unsorted, sorted.isEmpty() ? tar.getLogMessages() : tar.getSortedLogMessages()), runner);
+        }
+
+        CompletableFuture<Map<Validator, Collection<ValidationException>>> sortedPass = sorted.isEmpty()
+                ? CompletableFuture.completedFuture(Collections.emptyMap())
+                : CompletableFuture.supplyAsync(() -> validateLogMessages(tar, sorted, tar.getSortedLogMessages()), runner);
+
+        // the unsorted validators are run during the pass, which groups the log messages
+        IdentityHashMap<Validator, Collection<ValidationException>> unsortedErrors = new IdentityHashMap<>();
+        return CompletableFuture.supplyAsync(() -> partition(tar, unsorted, unsortedErrors), runner)
+                .thenCompose(partitions -> validatePartitions(tar, partitioned, partitions, runner))
+                .thenCombine(sortedPass, (errors, sortedErrors) -> {
+                    errors.putAll(unsortedErrors);
+                    errors.putAll(sortedErrors);
+                    return errors;
+                });
+    }
+
+    /**
+     * Passes the given log messages to a new visitor of each of the given validators.
+     * @return the errors found by each validator.
+     */
+    Map<Validator, Collection<ValidationException>> validateLogMessages(LogMessageArchive tar, Collection<LogMessageValidator> validators, Collection<? extends LogMessage> logMessages) {
+        IdentityHashMap<Validator, LogMessageValidator.Visitor> visitors = new IdentityHashMap<>();
+        for(LogMessageValidator validator : validators){
+            visitors.put(validator, createVisitor(validator, tar));
+        }
+
+        LogMessageValidator.Visitor[] all = visitors.values().toArray(new LogMessageValidator.Visitor[0]);
+        if(all.length > 0){
+            for(LogMessage msg : logMessages){
+                for(LogMessageValidator.Visitor visitor : all){
+                    visitor.visit(msg);
+                }
+            }
+        }
+
+        return finish(visitors);
+    }
+
+    static IdentityHashMap<Validator, Collection<ValidationException>> finish(Map<Validator, LogMessageValidator.Visitor> visitors) {
+        IdentityHashMap<Validator, Collection<ValidationException>> errors = new IdentityHashMap<>();
+        for(Map.Entry<Validator, LogMessageValidator.Visitor> entry : visitors.entrySet()){
+            errors.put(entry.getKey(), entry.getValue().finish());
+        }
+        return errors;
+    }
+
+    /**
+     * Groups the log messages of the archive by serial number, and passes them to the given validators on the way.
+     * @param errors receives the errors found by the given validators.
+     * @return the log messages of each serial number, ordered by serial number.
+     */
+    SortedMap<String, List<LogMessage>> partition(LogMessageArchive tar, Collection<LogMessageValidator> validators, Map<Validator, Collection<ValidationException>> errors) {
+        IdentityHashMap<Validator, LogMessageValidator.Visitor> visitors = new IdentityHashMap<>();
+        for(LogMessageValidator validator : validators){
+            visitors.put(validator, createVisitor(validator, tar));
+        }
+        LogMessageValidator.Visitor[] all = visitors.values().toArray(new LogMessageValidator.Visitor[0]);
+
+        // serial numbers are interned, so they are compared by identity
+        IdentityHashMap<SerialNumber, List<LogMessage>> partitions = new IdentityHashMap<>();
+        for(LogMessage msg : tar.getLogMessages()){
+            for(LogMessageValidator.Visitor visitor : all){
+                visitor.visit(msg);
+            }
+            partitions.computeIfAbsent(msg.getInternedSerialNumber(), k -> new ArrayList<>()).add(msg);
+        }
+
+        errors.putAll(finish(visitors));
+        TreeMap<String, List<LogMessage>> ordered = new TreeMap<>();
+        for(Map.Entry<SerialNumber, List<LogMessage>> partition : partitions.entrySet()){
+            ordered.put(partition.getKey().toHexString(), partition.getValue());
+        }
+        return ordered;
+    }
+
+    /**
+     * Validates the log messages of each serial number on their own. Consecutive serial numbers are batched into
+     * one task, so that there are at most PARTITION_TASKS_PER_THREAD tasks per thread.
+     * @return the errors found by each validator, in the order of the serial numbers.
+     */
+    CompletableFuture<Map<Validator, Collection<ValidationException>>> validatePartitions(LogMessageArchive tar, Collection<LogMessageValidator> validators, SortedMap<String, List<LogMessage>> partitions, Executor runner) {
+        ArrayList<List<LogMessage>> ordered = new ArrayList<>(partitions.values());
+        int tasks = (null == executor) ? 1 : Math.min(ordered.size(), parallelism * PARTITION_TASKS_PER_THREAD);
+
+        ArrayList<CompletableFuture<Map<Validator, Collection<ValidationException>>>> results = new ArrayList<>();
+        for(int task = 0; task < tasks; task++){
+            List<List<LogMessage>> batch = ordered.subList(task * ordered.size() / tasks, (task + 1) * ordered.size() / tasks);
+            results.add(CompletableFuture.supplyAsync(() -> validateBatch(tar, validators, batch), runner));
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).thenApply(x -> {
+            IdentityHashMap<Validator, Collection<ValidationException>> errors = new IdentityHashMap<>();
+            for(LogMessageValidator validator : validators){
+                ArrayList<ValidationException> merged = new ArrayList<>();
+                for(CompletableFuture<Map<Validator, Collection<ValidationException>>> result : results){
+                    merged.addAll(result.join().get(validator));
+                }
+                errors.put(validator, merged);
+            }
+            return errors;
+        });
+    }
+
+    /**
+     * Validates the log messages of some serial numbers one after another.
+     * @return the errors found by each validator, in the order of the serial numbers.
+     */
+    Map<Validator, Collection<ValidationException>> validateBatch(LogMessageArchive tar, Collection<LogMessageValidator> validators, List<List<LogMessage>> batch) {
+        boolean sorted = validators.stream().anyMatch(LogMessageValidator::requiresSortedLogMessages);
+        IdentityHashMap<Validator, Collection<ValidationException>> errors = new IdentityHashMap<>();
+        for(LogMessageValidator validator : validators){
+            errors.put(validator, new ArrayList<>());
+        }
+        for(List<LogMessage> partition : batch){
+            if(sorted){
+                // like getSortedLogMessages(), the sort is stable
+                SignatureCounters.sort(partition);
+            }
+            Map<Validator, Collection<ValidationException>> found = validateLogMessages(tar, validators, partition);
+            for(LogMessageValidator validator : validators){
+                errors.get(validator).addAll(found.get(validator));
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Times a visitor of a fused pass. The validators of a fused pass share the traversal of the log messages, so
+     * each visit is timed on its own. The time is added to the phase, when the visitor is finished.
+     */
+    static class TimedVisitor implements LogMessageValidator.Visitor {
+        final LogMessageValidator.Visitor visitor;
+        final Metrics.Phase phase;
+        long nanos = 0;
+        long items = 0;
+
+        TimedVisitor(LogMessageValidator.Visitor visitor, Metrics.Phase phase) {
+            this.visitor = visitor;
+            this.phase = phase;
+        }
+
+        @Override
+        public void visit(LogMessage msg) {
+            long start = System.nanoTime();
+            visitor.visit(msg);
+            nanos += System.nanoTime() - start;
+            items++;
+        }
+
+        @Override
+        public Collection<ValidationException> finish() {
+            phase.addNanos(nanos);
+            try(Metrics.Timer timer = phase.start()){
+                Collection<ValidationException> errors = visitor.finish();
+                timer.addItems(items).addErrors(errors.size());
+                return errors;
+            }
+        }
+    }
 }
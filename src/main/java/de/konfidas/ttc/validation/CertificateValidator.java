@@ -2,16 +2,21 @@ package de.konfidas.ttc.validation;
 
 import de.konfidas.ttc.exceptions.ValidationException;
 import de.konfidas.ttc.tars.LogMessageArchive;
+import org.apache.commons.codec.binary.Hex;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.cert.*;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class CertificateValidator implements Validator {
+public class CertificateValidator implements CheckpointedValidator {
 
     static Locale locale = new Locale("de", "DE");//NON-NLS
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
@@ -21,6 +26,10 @@ public class CertificateValidator implements Validator {
     final Set<TrustAnchor> trustedCerts;
     final  Collection<CRL> crls;
     boolean enableRevocationChecking;
+    // fingerprints of the trust store and of the certificates, which were validated successfully against it before.
+    // They are not validated again, unless revocation checking is enabled.
+    final Set<String> validatedCertificates = new HashSet<>();
+    String trustStoreFingerprint;
 
 
     public CertificateValidator(Collection<X509Certificate> trustedCerts){
@@ -44,8 +53,15 @@ public class CertificateValidator implements Validator {
 
         for (X509Certificate cert : tar.getClientCertificates().values()) {
             try {
+                String fingerprint = trustStoreFingerprint() + "/" + fingerprint(cert); //NON-NLS
+                if (!enableRevocationChecking && validatedCertificates.contains(fingerprint)) {
+                    continue;
+                }
                 logger.debug(properties.getString("de.konfidas.ttc.validation.checkingCert"), cert.getSerialNumber());
                 checkCert(cert, trustedCerts, new ArrayList<>(tar.getIntermediateCertificates().values()), crls);
+                if (!enableRevocationChecking) {
+                    validatedCertificates.add(fingerprint);
+                }
             }catch (Exception e) {
                 errors.add(new CertificateValidationException(cert, e));
             }
@@ -54,6 +70,53 @@ public class CertificateValidator implements Validator {
         return new ValidationResultImpl().append(Collections.singleton(this), errors);
     }
 
+    static String fingerprint(X509Certificate cert) throws NoSuchAlgorithmException, CertificateEncodingException {
+        return Hex.encodeHexString(MessageDigest.getInstance("SHA-256").digest(cert.getEncoded()));//NON-NLS
+    }
+
+    /**
+     * @return the SHA-256 fingerprint over the sorted fingerprints of the trusted certificates. A certificate, which
+     * was validated against one trust store, is validated again against another one.
+     */
+    String trustStoreFingerprint() throws NoSuchAlgorithmException, CertificateEncodingException {
+        if (null == trustStoreFingerprint) {
+            TreeSet<String> fingerprints = new TreeSet<>();
+            for (TrustAnchor anchor : trustedCerts) {
+                fingerprints.add(fingerprint(anchor.getTrustedCert()));
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");//NON-NLS
+            for (String fingerprint : fingerprints) {
+                digest.update(fingerprint.getBytes(StandardCharsets.US_ASCII));
+            }
+            trustStoreFingerprint = Hex.encodeHexString(digest.digest());
+        }
+        return trustStoreFingerprint;
+    }
+
+    /**
+     * Saves the fingerprints of the certificates, which were validated successfully, together with the fingerprint of
+     * the trust store they were validated against. Certificates are only saved, if revocation checking is disabled, so
+     * a restored checkpoint never skips a revocation check.
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeInt(validatedCertificates.size());
+        for (String fingerprint : new TreeSet<>(validatedCertificates)) {
+            out.writeUTF(fingerprint);
+        }
+    }
+
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        int numberOfCertificates = in.readInt();
+        for (int i = 0; i < numberOfCertificates; i++) {
+            String fingerprint = in.readUTF();
+            if (!enableRevocationChecking) {
+                validatedCertificates.add(fingerprint);
+            }
+        }
+    }
+
     public void checkCert(X509Certificate certToCheck, Set<TrustAnchor> trustedCerts, List<X509Certificate> intermediateCerts, Collection<CRL> crls) throws
             NoSuchAlgorithmException, InvalidAlgorithmParameterException, NoSuchProviderException, CertPathValidatorException, CertificateException {
 
@@ -0,0 +1,31 @@
+package de.konfidas.ttc.validation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A Validator, whose state can be saved to a ValidatorCheckpoint and restored from it. This way, a sequence of
+ * exports does not have to be validated in one run: the state after the last export is saved, and the next run
+ * only validates the newer exports, starting from the saved state.
+ *
+ * Only the state needed to validate later exports is saved. Log messages are not saved, so exceptions, which
+ * refer to a log message of an earlier export, do not have that log message.
+ */
+public interface CheckpointedValidator extends Validator {
+
+    /**
+     * @return the name of the section of the checkpoint, which holds the state of this validator.
+     */
+    default String getCheckpointName() {
+        return getClass().getName();
+    }
+
+    void writeCheckpoint(DataOutput out) throws IOException;
+
+    /**
+     * Restores the state of this validator from the checkpoint. It is called on a new validator, before any
+     * archive is validated.
+     */
+    void readCheckpoint(DataInput in) throws IOException;
+}
@@ -0,0 +1,48 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.tars.AggregatedLogMessageArchive;
+import de.konfidas.ttc.tars.LogMessageArchive;
+
+import java.util.*;
+
+/**
+ * Reports the log messages, which an AggregatedLogMessageArchive dropped, because the same log message is contained
+ * in more than one of its archives, or more than once in the same archive. Other archives have no duplicates.
+ */
+public class DuplicateLogMessageValidator implements Validator {
+    static Locale locale = new Locale("de", "DE");//NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    @Override
+    public ValidationResult validate(LogMessageArchive tar) {
+        LinkedList<ValidationException> errors = new LinkedList<>();
+
+        if (tar instanceof AggregatedLogMessageArchive) {
+            for (AggregatedLogMessageArchive.Duplicate duplicate : ((AggregatedLogMessageArchive) tar).getDuplicates()) {
+                errors.add(new DuplicateLogMessageException(duplicate));
+            }
+        }
+        return new ValidationResultImpl().append(Collections.singleton(this), errors);
+    }
+
+    public static class DuplicateLogMessageException extends LogMessageValidationException {
+        final AggregatedLogMessageArchive.Duplicate duplicate;
+
+        public DuplicateLogMessageException(AggregatedLogMessageArchive.Duplicate duplicate) {
+            super(duplicate.getDuplicate());
+            this.duplicate = duplicate;
+        }
+
+        public AggregatedLogMessageArchive.Duplicate getDuplicate() {
+            return duplicate;
+        }
+
+        @Override
+        public String toString(){
+            return String.format(properties.getString("de.konfidas.ttc.validation.errorDuplicateLogMessage"),
+                    duplicate.getDuplicate().getFileName(), duplicate.getDuplicateArchive().getFileName(), duplicate.getOriginalArchive().getFileName());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageFileName;
+import de.konfidas.ttc.tars.LogMessageArchive;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Checks, that the signature counter in the file name of a log message is the signature counter inside the
+ * log message.
+ */
+public class LogMessageFileNameValidator implements LogMessageValidator {
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    @Override
+    public boolean requiresSortedLogMessages() {
+        return false;
+    }
+
+    @Override
+    public Visitor createVisitor(LogMessageArchive tar) {
+        LinkedList<ValidationException> result = new LinkedList<>();
+
+        return new Visitor() {
+            @Override
+            public void visit(LogMessage msg) {
+                LogMessageFileName fileName = LogMessageFileName.parse(msg.getFileName());
+                if (null == fileName) {
+                    // the archive only contains log messages with valid names
+                    return;
+                }
+
+                BigInteger counterInFileName = fileName.getSignatureCounter();
+                BigInteger counterInLogMessage = msg.getSignatureCounter();
+                if (!counterInFileName.equals(counterInLogMessage)) {
+                    result.add(new SignatureCounterMismatchException(msg, counterInFileName, counterInLogMessage));
+                }
+            }
+
+            @Override
+            public Collection<ValidationException> finish() {
+                return result;
+            }
+        };
+    }
+
+    public static class SignatureCounterMismatchException extends LogMessageValidationException {
+        final BigInteger counterInFileName;
+        final BigInteger counterInLogMessage;
+
+        public SignatureCounterMismatchException(LogMessage msg, BigInteger counterInFileName, BigInteger counterInLogMessage) {
+            super(msg);
+            this.counterInFileName = counterInFileName;
+            this.counterInLogMessage = counterInLogMessage;
+        }
+
+        public BigInteger getCounterInFileName() {
+            return counterInFileName;
+        }
+
+        public BigInteger getCounterInLogMessage() {
+            return counterInLogMessage;
+        }
+
+        @Override
+        public String toString(){
+            return String.format(properties.getString("de.konfidas.ttc.validation.errorSignatureCounterInFileName"), getLogMessage().getFileName(), counterInFileName, counterInLogMessage);
+        }
+    }
+}
@@ -9,27 +9,143 @@ import de.konfidas.ttc.tars.LogMessageArchive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-public class LogMessageSignatureValidator implements Validator {
+public class LogMessageSignatureValidator implements LogMessageValidator {
     final static Logger logger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    static final int BATCH_SIZE = 256;
+
+    final ExecutorService executor;
+    final int parallelism;
+
+    public LogMessageSignatureValidator(){
+        this(null, 1);
+    }
+
+    /**
+     * Creates a validator, which verifies the signatures in batches on the threads of the given executor.
+     * The errors are reported in the same order as by the sequential validator. The executor is not shut down
+     * by this class.
+     * @param executor executor to verify the signatures with.
+     * @param parallelism number of threads of the executor. At most twice as many batches are pending at a time.
+     */
+    public LogMessageSignatureValidator(ExecutorService executor, int parallelism){
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive"); //NON-NLS
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
 
     @Override
-    public ValidationResult validate(LogMessageArchive tar) {
-        LinkedList<ValidationException> errors = new LinkedList<>();
+    public boolean requiresSortedLogMessages() {
+        return false;
+    }
 
+    @Override
+    public Visitor createVisitor(LogMessageArchive tar) {
         LogMessageSignatureVerifier verifier = new LogMessageSignatureVerifier(tar.getClientCertificates());
-        for (LogMessage msg : tar.getLogMessages()) {
+        return (null == executor) ? new SequentialVisitor(verifier) : new ParallelVisitor(verifier);
+    }
+
+    class SequentialVisitor implements Visitor {
+        final LogMessageSignatureVerifier verifier;
+        final LinkedList<ValidationException> errors = new LinkedList<>();
+
+        SequentialVisitor(LogMessageSignatureVerifier verifier) {
+            this.verifier = verifier;
+        }
+
+        @Override
+        public void visit(LogMessage msg) {
+            verify(verifier, msg, errors);
+        }
+
+        @Override
+        public Collection<ValidationException> finish() {
+            return errors;
+        }
+    }
+
+    /**
+     * Collects the visited log messages in batches and verifies each batch on the executor.
+     */
+    class ParallelVisitor implements Visitor {
+        final LogMessageSignatureVerifier verifier;
+        final LinkedList<ValidationException> errors = new LinkedList<>();
+        final ArrayDeque<Future<LinkedList<ValidationException>>> pending = new ArrayDeque<>();
+        ArrayList<LogMessage> batch = new ArrayList<>(BATCH_SIZE);
+
+        ParallelVisitor(LogMessageSignatureVerifier verifier) {
+            this.verifier = verifier;
+        }
+
+        @Override
+        public void visit(LogMessage msg) {
+            batch.add(msg);
+            if (batch.size() == BATCH_SIZE) {
+                if (pending.size() >= 2 * parallelism) {
+                    errors.addAll(await(pending.poll()));
+                }
+                submit();
+            }
+        }
+
+        void submit() {
+            final ArrayList<LogMessage> toVerify = batch;
+            pending.add(executor.submit(() -> verify(verifier, toVerify)));
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+
+        @Override
+        public Collection<ValidationException> finish() {
+            if (!batch.isEmpty()) {
+                submit();
+            }
+            while (!pending.isEmpty()) {
+                errors.addAll(await(pending.poll()));
+            }
+            return errors;
+        }
+
+        LinkedList<ValidationException> await(Future<LinkedList<ValidationException>> future) {
             try {
-                logger.debug("Checking signature of LogMessage {}", msg.getFileName());//NON-NLS
-                verifier.verify(msg);
-            } catch (LogMessageVerificationException e) {
-                errors.add(new LogMessageSignatureValidationException(msg,e));
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.forEach(f -> f.cancel(true));
+                throw new IllegalStateException(properties.getString("de.konfidas.ttc.validation.signatureValidationInterrupted"), e);
+            } catch (ExecutionException e) {
+                pending.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
             }
         }
+    }
 
-        return new ValidationResultImpl().append(Collections.singleton(this), errors);
+    LinkedList<ValidationException> verify(LogMessageSignatureVerifier verifier, Collection<? extends LogMessage> messages) {
+        LinkedList<ValidationException> errors = new LinkedList<>();
+        for (LogMessage msg : messages) {
+            verify(verifier, msg, errors);
+        }
+        return errors;
+    }
+
+    static void verify(LogMessageSignatureVerifier verifier, LogMessage msg, Collection<ValidationException> errors) {
+        try {
+            logger.debug("Checking signature of LogMessage {}", msg.getFileName());//NON-NLS
+            verifier.verify(msg);
+        } catch (LogMessageVerificationException e) {
+            errors.add(new LogMessageSignatureValidationException(msg,e));
+        }
     }
 
     public static class LogMessageSignatureValidationException extends LogMessageValidationException{
@@ -0,0 +1,65 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.tars.LogMessageArchive;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A Validator, which checks the log messages of an archive one at a time. Instead of iterating the archive
+ * itself, it creates a Visitor, which is passed every log message. This allows the AggregatedValidator to traverse
+ * the log messages of an archive only once for all LogMessageValidators.
+ *
+ * The state, which has to be kept across multiple archives, stays in the validator. The visitor only holds the
+ * state of one pass.
+ *
+ * Validators, which only compare log messages of the same serial number, can declare so with
+ * isPartitionedBySerialNumber(). Archives of multiple TSEs are then validated in parallel.
+ */
+public interface LogMessageValidator extends Validator {
+
+    /**
+     * @return true, if the visitor has to be passed the log messages in the order of getSortedLogMessages().
+     * Otherwise, the order is arbitrary.
+     */
+    boolean requiresSortedLogMessages();
+
+    /**
+     * @return true, if the log messages of one serial number are checked independently of the log messages of all
+     * other serial numbers. Then, the AggregatedValidator may pass the log messages of each serial number to a
+     * visitor of their own, and run the visitors of different serial numbers concurrently. If sorted log messages
+     * are required, each visitor gets the log messages of its serial number sorted.
+     *
+     * The state, which a partitioned validator keeps across multiple archives, has to allow concurrent access for
+     * different serial numbers.
+     */
+    default boolean isPartitionedBySerialNumber() {
+        return false;
+    }
+
+    /**
+     * Creates a visitor for one pass over the log messages of the given archive.
+     */
+    Visitor createVisitor(LogMessageArchive tar);
+
+    @Override
+    default ValidationResult validate(LogMessageArchive tar) {
+        Visitor visitor = createVisitor(tar);
+        for (LogMessage msg : requiresSortedLogMessages() ? tar.getSortedLogMessages() : tar.getLogMessages()) {
+            visitor.visit(msg);
+        }
+        return new ValidationResultImpl().append(Collections.singleton(this), visitor.finish());
+    }
+
+    interface Visitor {
+        void visit(LogMessage msg);
+
+        /**
+         * Called after the last log message was visited.
+         * @return the errors found during the pass.
+         */
+        Collection<ValidationException> finish();
+    }
+}
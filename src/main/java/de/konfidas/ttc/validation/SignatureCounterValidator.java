@@ -3,63 +3,139 @@ package de.konfidas.ttc.validation;
 import de.konfidas.ttc.exceptions.LogMessageValidationException;
 import de.konfidas.ttc.exceptions.ValidationException;
 import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.SerialNumber;
+import de.konfidas.ttc.messages.SerialNumberTable;
+import de.konfidas.ttc.messages.SignatureCounters;
 import de.konfidas.ttc.tars.LogMessageArchive;
-import org.apache.commons.codec.binary.Hex;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
 
 
-public class SignatureCounterValidator implements Validator{
-    final HashMap<String, BigInteger> nextSignatureCounters;
+public class SignatureCounterValidator implements LogMessageValidator, CheckpointedValidator {
+    final SerialNumberTable<SerialNumberState> states;
 
     static Locale locale = new Locale("de", "DE"); //NON-NLS
     static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
 
     // we operate on sorted log messages, so if we are in the case, that multiple log messages have the
     // same signature counters, we process them one after another. To create meaningful exceptions, we track
-    // the previously processed Log Message:
-    LogMessage previousMessage = null;
+    // the previously processed Log Message of each serial number, see SerialNumberState.
     // Note: This fails, if multiple tar-archives are presented to one validator in the wrong order, i.e.
     // not starting with the smallest signature counters!
 
 
     public SignatureCounterValidator(){
-        nextSignatureCounters = new HashMap<>();
+        states = new SerialNumberTable<>();
+    }
+
+    /**
+     * The state of one serial number. The next expected signature counter is kept as a long, as long as it fits,
+     * so that no BigInteger has to be created for each log message.
+     */
+    static class SerialNumberState {
+        long nextSignatureCounter = 1;
+        // only set, if the next expected signature counter does not fit into a long
+        BigInteger nextSignatureCounterAsBigInteger;
+        LogMessage previousMessage;
+
+        void setNextSignatureCounter(BigInteger next) {
+            long asLong = SignatureCounters.toLong(next);
+            if (asLong != LogMessage.SIGNATURE_COUNTER_OVERFLOW) {
+                nextSignatureCounter = asLong;
+                nextSignatureCounterAsBigInteger = null;
+            } else {
+                nextSignatureCounterAsBigInteger = next;
+            }
+        }
     }
 
     @Override
-    public ValidationResult validate(LogMessageArchive tar) {
-        LinkedList<ValidationException> result = new LinkedList<>();
+    public boolean requiresSortedLogMessages() {
+        return true;
+    }
 
-        Collection<? extends LogMessage> messages =tar.getSortedLogMessages();
+    @Override
+    public boolean isPartitionedBySerialNumber() {
+        return true;
+    }
 
-        BigInteger expectedSignatureCounter;
-        String serial;
+    @Override
+    public Visitor createVisitor(LogMessageArchive tar) {
+        return new SignatureCounterVisitor();
+    }
 
-        for(LogMessage msg : messages){
-            serial = Hex.encodeHexString(msg.getSerialNumber());
+    /**
+     * Saves the next expected signature counter of each serial number.
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        Map<SerialNumber, SerialNumberState> current = states.toMap();
+        out.writeInt(current.size());
+        for(Map.Entry<SerialNumber, SerialNumberState> entry : current.entrySet()){
+            SerialNumberState state = entry.getValue();
+            BigInteger next = (null == state.nextSignatureCounterAsBigInteger) ? BigInteger.valueOf(state.nextSignatureCounter) : state.nextSignatureCounterAsBigInteger;
+            ValidatorCheckpoint.writeBytes(out, entry.getKey().getBytes());
+            ValidatorCheckpoint.writeBytes(out, next.toByteArray());
+        }
+    }
 
-            BigInteger foundSignatureCounter = msg.getSignatureCounter();
-            if(!nextSignatureCounters.containsKey(serial)){
-                nextSignatureCounters.put(serial, BigInteger.ONE);
-                expectedSignatureCounter = BigInteger.ONE;
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        int numberOfSerialNumbers = in.readInt();
+        for(int i = 0; i < numberOfSerialNumbers; i++){
+            SerialNumber serial = SerialNumber.of(ValidatorCheckpoint.readBytes(in));
+            states.computeIfAbsent(serial, SerialNumberState::new).setNextSignatureCounter(new BigInteger(ValidatorCheckpoint.readBytes(in)));
+        }
+    }
+
+    class SignatureCounterVisitor implements Visitor {
+        final LinkedList<ValidationException> result = new LinkedList<>();
+
+        @Override
+        public void visit(LogMessage msg) {
+            SerialNumber serial = msg.getInternedSerialNumber();
+            SerialNumberState state = states.computeIfAbsent(serial, SerialNumberState::new);
+
+            long foundSignatureCounter = msg.getSignatureCounterAsLong();
+            if(null == state.nextSignatureCounterAsBigInteger && foundSignatureCounter != LogMessage.SIGNATURE_COUNTER_OVERFLOW && foundSignatureCounter != Long.MAX_VALUE){
+                // BigIntegers are only created for the exceptions
+                if(state.nextSignatureCounter < foundSignatureCounter){
+                    result.add(new SignatureCounterMissingException(msg, serial.toHexString(), BigInteger.valueOf(state.nextSignatureCounter), msg.getSignatureCounter()));
+                    state.nextSignatureCounter = foundSignatureCounter + 1;
+                }else if(state.nextSignatureCounter == foundSignatureCounter){
+                    state.nextSignatureCounter = foundSignatureCounter + 1;
+                }else{
+                    result.add( new SignatureCounterDuplicateException(msg.getSignatureCounter(),msg,state.previousMessage));
+                }
             }else{
-                expectedSignatureCounter = nextSignatureCounters.get(serial);
+                visitLargeSignatureCounter(msg, serial, state);
             }
 
+            state.previousMessage = msg;
+        }
+
+        void visitLargeSignatureCounter(LogMessage msg, SerialNumber serial, SerialNumberState state) {
+            BigInteger expectedSignatureCounter = (null == state.nextSignatureCounterAsBigInteger) ? BigInteger.valueOf(state.nextSignatureCounter) : state.nextSignatureCounterAsBigInteger;
+            BigInteger foundSignatureCounter = msg.getSignatureCounter();
+
             switch(expectedSignatureCounter.compareTo(foundSignatureCounter)){
-                case -1: result.add(new SignatureCounterMissingException(msg, serial, expectedSignatureCounter, foundSignatureCounter));
-                         nextSignatureCounters.replace(serial, foundSignatureCounter.add(BigInteger.ONE));
+                case -1: result.add(new SignatureCounterMissingException(msg, serial.toHexString(), expectedSignatureCounter, foundSignatureCounter));
+                         state.setNextSignatureCounter(foundSignatureCounter.add(BigInteger.ONE));
                          break;
-                case 0:  nextSignatureCounters.replace(serial, foundSignatureCounter.add(BigInteger.ONE));
+                case 0:  state.setNextSignatureCounter(foundSignatureCounter.add(BigInteger.ONE));
                          break;
-                case 1:  result.add( new SignatureCounterDuplicateException(foundSignatureCounter,msg,previousMessage));
+                case 1:  result.add( new SignatureCounterDuplicateException(foundSignatureCounter,msg,state.previousMessage));
             }
+        }
 
-            previousMessage = msg;
+        @Override
+        public Collection<ValidationException> finish() {
+            return result;
         }
-        return new ValidationResultImpl().append(Collections.singleton(this), result);
     }
 
     public static class SignatureCounterMissingException extends LogMessageValidationException {
@@ -3,40 +3,88 @@ package de.konfidas.ttc.validation;
 import de.konfidas.ttc.exceptions.LogMessageValidationException;
 import de.konfidas.ttc.exceptions.ValidationException;
 import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.SerialNumber;
+import de.konfidas.ttc.messages.SerialNumberTable;
 import de.konfidas.ttc.messages.SystemLogMessage;
 import de.konfidas.ttc.messages.logtime.LogTime;
+import de.konfidas.ttc.messages.logtime.StoredLogTime;
 import de.konfidas.ttc.tars.LogMessageArchive;
-import org.apache.commons.codec.binary.Hex;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
-public class TimeStampValidator implements Validator{
-    final HashMap<String, LogTime> lastLogTime;
+public class TimeStampValidator implements LogMessageValidator, CheckpointedValidator {
+    final SerialNumberTable<LastLogTime> lastLogTime;
 
     public TimeStampValidator(){
-        lastLogTime = new HashMap<>();
+        lastLogTime = new SerialNumberTable<>();
+    }
+
+    /**
+     * The log time of the previous log message of one serial number.
+     */
+    static class LastLogTime {
+        LogTime logTime;
     }
 
     @Override
-    public ValidationResult validate(LogMessageArchive tar) {
-        LinkedList<ValidationException> result = new LinkedList<>();
+    public boolean requiresSortedLogMessages() {
+        return true;
+    }
 
-        Collection<? extends LogMessage> messages = tar.getSortedLogMessages();
+    @Override
+    public boolean isPartitionedBySerialNumber() {
+        return true;
+    }
 
-        String serial;
+    @Override
+    public Visitor createVisitor(LogMessageArchive tar) {
+        return new TimeStampVisitor();
+    }
 
-        for(LogMessage msg : messages) {
-            serial = Hex.encodeHexString(msg.getSerialNumber());
+    /**
+     * Saves the log time of the last log message of each serial number.
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        Map<SerialNumber, LastLogTime> current = lastLogTime.toMap();
+        current.values().removeIf(last -> null == last.logTime);
+        out.writeInt(current.size());
+        for(Map.Entry<SerialNumber, LastLogTime> entry : current.entrySet()){
+            LogTime logTime = entry.getValue().logTime;
+            ValidatorCheckpoint.writeBytes(out, entry.getKey().getBytes());
+            out.writeByte(logTime.getType().ordinal());
+            out.writeLong(logTime.getTime());
+            out.writeUTF(logTime.toString());
+        }
+    }
 
-            if(lastLogTime.containsKey(serial)){
-                if(!lastLogTime.get(serial).wasNotAfter(msg.getLogTime())){
-                    result.add(new LogTimeMissMatchException(msg, lastLogTime.get(serial)));
-                }
-                lastLogTime.replace(serial, msg.getLogTime());
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        LogTime.Type[] types = LogTime.Type.values();
+        int numberOfSerialNumbers = in.readInt();
+        for(int i = 0; i < numberOfSerialNumbers; i++){
+            SerialNumber serial = SerialNumber.of(ValidatorCheckpoint.readBytes(in));
+            LogTime logTime = new StoredLogTime(types[in.readUnsignedByte()], in.readLong(), in.readUTF());
+            lastLogTime.computeIfAbsent(serial, LastLogTime::new).logTime = logTime;
+        }
+    }
+
+    class TimeStampVisitor implements Visitor {
+        final LinkedList<ValidationException> result = new LinkedList<>();
 
-            }else{
-                lastLogTime.put(serial, msg.getLogTime());
+        @Override
+        public void visit(LogMessage msg) {
+            LastLogTime last = lastLogTime.computeIfAbsent(msg.getInternedSerialNumber(), LastLogTime::new);
+
+            if(null != last.logTime){
+                if(!last.logTime.wasNotAfter(msg.getLogTime())){
+                    result.add(new LogTimeMissMatchException(msg, last.logTime));
+                }
             }
+            last.logTime = msg.getLogTime();
 
 
             if(msg instanceof SystemLogMessage){
@@ -45,10 +93,12 @@ public class TimeStampValidator implements Validator{
                 // FIXME: check for updateTime event and update
                 // lastLogTime(serial) accordingly!
             }
+        }
 
-
+        @Override
+        public Collection<ValidationException> finish() {
+            return result;
         }
-        return new ValidationResultImpl().append(Collections.singleton(this), result);
     }
 
     static class LogTimeMissMatchException extends LogMessageValidationException {
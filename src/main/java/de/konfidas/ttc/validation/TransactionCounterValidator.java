@@ -2,15 +2,20 @@ package de.konfidas.ttc.validation;
 
 import de.konfidas.ttc.exceptions.LogMessageValidationException;
 import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LazyLogMessage;
 import de.konfidas.ttc.messages.LogMessage;
 import de.konfidas.ttc.messages.TransactionLogMessage;
+import de.konfidas.ttc.tars.IndexedLogMessage;
 import de.konfidas.ttc.tars.LogMessageArchive;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
 
 // FIXME: this is incomplete and does not work fully.
-public class TransactionCounterValidator implements Validator {
+public class TransactionCounterValidator implements LogMessageValidator, CheckpointedValidator {
     final HashMap<BigInteger,OpenTransaction> openTransactions;
     BigInteger transactionCounter;
 
@@ -19,18 +24,60 @@ public class TransactionCounterValidator implements Validator {
         transactionCounter = BigInteger.ONE;
     }
 
-    public ValidationResult validate(LogMessageArchive tar){
-        ArrayList<ValidationException> result = new ArrayList<>();
+    @Override
+    public boolean requiresSortedLogMessages() {
+        return true;
+    }
+
+    @Override
+    public Visitor createVisitor(LogMessageArchive tar) {
+        return new TransactionCounterVisitor();
+    }
+
+    /**
+     * Saves the expected transaction counter and the open transactions, without their log messages.
+     */
+    @Override
+    public void writeCheckpoint(DataOutput out) throws IOException {
+        ValidatorCheckpoint.writeBytes(out, transactionCounter.toByteArray());
+        out.writeInt(openTransactions.size());
+        for(Map.Entry<BigInteger, OpenTransaction> entry : openTransactions.entrySet()){
+            ValidatorCheckpoint.writeBytes(out, entry.getKey().toByteArray());
+            ValidatorCheckpoint.writeBytes(out, entry.getValue().signatureCounterLastUpdate.toByteArray());
+        }
+    }
+
+    @Override
+    public void readCheckpoint(DataInput in) throws IOException {
+        transactionCounter = new BigInteger(ValidatorCheckpoint.readBytes(in));
+        int numberOfOpenTransactions = in.readInt();
+        for(int i = 0; i < numberOfOpenTransactions; i++){
+            BigInteger transactionNumber = new BigInteger(ValidatorCheckpoint.readBytes(in));
+            openTransactions.put(transactionNumber, new OpenTransaction(new BigInteger(ValidatorCheckpoint.readBytes(in))));
+        }
+    }
 
-        Collection<? extends LogMessage> msgs = tar.getSortedLogMessages();
+    class TransactionCounterVisitor implements Visitor {
+        final ArrayList<ValidationException> result = new ArrayList<>();
 
-        for(LogMessage msg : msgs){
+        @Override
+        public void visit(LogMessage msg) {
+            if(msg instanceof IndexedLogMessage){
+                // the type of the message is only known after parsing it
+                msg = ((IndexedLogMessage) msg).getLogMessage();
+            }
+            if(msg instanceof LazyLogMessage){
+                msg = ((LazyLogMessage) msg).getLogMessage();
+            }
             if(msg instanceof TransactionLogMessage){
                 result.addAll(updateState((TransactionLogMessage) msg));
             }
         }
 
-        return new ValidationResultImpl().append(Collections.singleton(this), result);
+        @Override
+        public Collection<ValidationException> finish() {
+            return result;
+        }
     }
 
 
@@ -45,7 +92,8 @@ public class TransactionCounterValidator implements Validator {
 
             if(openTransactions.containsKey(msg.getTransactionNumber())){
                 OpenTransaction duplicate = openTransactions.get(msg.getTransactionNumber());
-                result.add(new DuplicateTransactionCounterFoundException(duplicate.msgs.get(0), msg));
+                // the log messages of transactions restored from a checkpoint are not known
+                result.add(new DuplicateTransactionCounterFoundException(duplicate.msgs.isEmpty() ? msg : duplicate.msgs.get(0), msg));
                 duplicate.msgs.add(msg);
                 duplicate.signatureCounterLastUpdate = msg.getSignatureCounter();
             }else{
@@ -78,10 +126,14 @@ public class TransactionCounterValidator implements Validator {
         final LinkedList<TransactionLogMessage> msgs;
 
         public OpenTransaction(TransactionLogMessage msg) {
-            this.signatureCounterLastUpdate = msg.getSignatureCounter();
-            msgs = new LinkedList<>();
+            this(msg.getSignatureCounter());
             msgs.add(msg);
         }
+
+        OpenTransaction(BigInteger signatureCounterLastUpdate) {
+            this.signatureCounterLastUpdate = signatureCounterLastUpdate;
+            msgs = new LinkedList<>();
+        }
     }
 
 
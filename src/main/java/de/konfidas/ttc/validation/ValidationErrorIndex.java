@@ -0,0 +1,113 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageId;
+
+import java.util.*;
+
+/**
+ * An index of the errors of a ValidationResult, which is built once and shared by all reporters. The errors of a
+ * log message are looked up by its LogMessageId, so the lookup neither hashes nor compares the full content of the
+ * log message. This keeps rendering a report linear in the number of log messages.
+ */
+public class ValidationErrorIndex {
+    final HashMap<LogMessageId, List<LogMessageValidationException>> errorsByLogMessage = new HashMap<>();
+    final ArrayList<ValidationException> generalErrors = new ArrayList<>();
+    final LinkedHashMap<Class<? extends ValidationException>, Integer> errorCountsByClass = new LinkedHashMap<>();
+    final Map<Validator, Integer> errorCountsByValidator;
+    final Map<ValidationException, Validator> validatorOfError;
+    final int numberOfErrors;
+
+    /**
+     * @param errorCountsByValidator the number of errors, which each validator found.
+     */
+    public ValidationErrorIndex(Collection<ValidationException> errors, Map<Validator, Integer> errorCountsByValidator) {
+        this(errors, errorCountsByValidator, Collections.emptyMap());
+    }
+
+    /**
+     * @param errorCountsByValidator the number of errors, which each validator found.
+     * @param validatorOfError the validator, which found an error. Compares the errors by identity, so it should be
+     *                         an IdentityHashMap.
+     */
+    public ValidationErrorIndex(Collection<ValidationException> errors, Map<Validator, Integer> errorCountsByValidator, Map<ValidationException, Validator> validatorOfError) {
+        for (ValidationException e : errors) {
+            if (e instanceof LogMessageValidationException) {
+                LogMessageValidationException error = (LogMessageValidationException) e;
+                errorsByLogMessage.computeIfAbsent(LogMessageId.of(error.getLogMessage()), k -> new ArrayList<>(1)).add(error);
+            } else {
+                generalErrors.add(e);
+            }
+            errorCountsByClass.merge(e.getClass(), 1, Integer::sum);
+        }
+        this.errorCountsByValidator = Collections.unmodifiableMap(new LinkedHashMap<>(errorCountsByValidator));
+        this.validatorOfError = validatorOfError;
+        this.numberOfErrors = errors.size();
+    }
+
+    /**
+     * @return the errors of the given log message, in the order of the ValidationResult. Empty, if there are none.
+     */
+    public List<LogMessageValidationException> getErrors(LogMessage msg) {
+        return errorsByLogMessage.getOrDefault(LogMessageId.of(msg), Collections.emptyList());
+    }
+
+    /**
+     * @return the errors of the given log message, except for the errors of the ignored classes.
+     */
+    public List<LogMessageValidationException> getErrors(LogMessage msg, Set<Class<? extends ValidationException>> ignored) {
+        List<LogMessageValidationException> errors = getErrors(msg);
+        if (ignored.isEmpty() || errors.isEmpty()) {
+            return errors;
+        }
+        ArrayList<LogMessageValidationException> result = new ArrayList<>(errors.size());
+        for (LogMessageValidationException e : errors) {
+            if (!ignored.contains(e.getClass())) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the errors, which do not belong to a single log message.
+     */
+    public List<ValidationException> getGeneralErrors() {
+        return Collections.unmodifiableList(generalErrors);
+    }
+
+    /**
+     * @return the number of log messages with errors.
+     */
+    public int getNumberOfLogMessagesWithErrors() {
+        return errorsByLogMessage.size();
+    }
+
+    /**
+     * @return the number of errors of each exception class, in the order, in which the classes occurred first.
+     */
+    public Map<Class<? extends ValidationException>, Integer> getErrorCountsByClass() {
+        return Collections.unmodifiableMap(errorCountsByClass);
+    }
+
+    /**
+     * @return the number of errors of each validator, in the order of the validators.
+     */
+    public Map<Validator, Integer> getErrorCountsByValidator() {
+        return errorCountsByValidator;
+    }
+
+    /**
+     * @return the validator, which found the given error, or null, if the error was appended for several validators
+     * at once and can not be attributed to one of them.
+     */
+    public Validator getValidator(ValidationException e) {
+        return validatorOfError.get(e);
+    }
+
+    public int getNumberOfErrors() {
+        return numberOfErrors;
+    }
+}
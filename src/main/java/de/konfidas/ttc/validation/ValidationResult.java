@@ -3,8 +3,27 @@ package de.konfidas.ttc.validation;
 import de.konfidas.ttc.exceptions.ValidationException;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 
 public interface ValidationResult {
     Collection<Validator> getValidators();
     Collection<ValidationException> getValidationErrors();
+
+    /**
+     * @return the index of the errors, which reporters use to look up the errors of a log message. Implementations
+     * should build it only once.
+     */
+    default ValidationErrorIndex getErrorIndex() {
+        Collection<Validator> validators = getValidators();
+        if (validators.size() != 1) {
+            return new ValidationErrorIndex(getValidationErrors(), Collections.emptyMap());
+        }
+        Validator validator = validators.iterator().next();
+        IdentityHashMap<ValidationException, Validator> validatorOfError = new IdentityHashMap<>();
+        for (ValidationException e : getValidationErrors()) {
+            validatorOfError.put(e, validator);
+        }
+        return new ValidationErrorIndex(getValidationErrors(), Collections.singletonMap(validator, getValidationErrors().size()), validatorOfError);
+    }
 }
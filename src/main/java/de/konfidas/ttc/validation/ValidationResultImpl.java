@@ -4,28 +4,62 @@ import de.konfidas.ttc.exceptions.ValidationException;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 
 class ValidationResultImpl implements ValidationResult{
     ArrayList<Validator> validators;
     ArrayList<ValidationException> errors;
+    // errors, which are appended for several validators at once, can not be attributed to one of them
+    LinkedHashMap<Validator, Integer> errorCountsByValidator;
+    IdentityHashMap<ValidationException, Validator> validatorOfError;
+    ValidationErrorIndex errorIndex;
 
     public ValidationResultImpl(){
         validators = new ArrayList<>();
         errors = new ArrayList<>();
+        errorCountsByValidator = new LinkedHashMap<>();
+        validatorOfError = new IdentityHashMap<>();
     }
 
     public ValidationResultImpl append(Collection<Validator> validators, Collection<ValidationException> errors){
         this.validators.addAll(validators);
         this.errors.addAll(errors);
+        if (validators.size() == 1) {
+            attribute(validators.iterator().next(), errors);
+        }
+        errorIndex = null;
         return this;
     }
 
     public ValidationResultImpl append(ValidationResult v){
         this.validators.addAll(v.getValidators());
         this.errors.addAll(v.getValidationErrors());
+        if (v instanceof ValidationResultImpl) {
+            ((ValidationResultImpl) v).errorCountsByValidator.forEach((validator, count) -> errorCountsByValidator.merge(validator, count, Integer::sum));
+            validatorOfError.putAll(((ValidationResultImpl) v).validatorOfError);
+        } else if (v.getValidators().size() == 1) {
+            attribute(v.getValidators().iterator().next(), v.getValidationErrors());
+        }
+        errorIndex = null;
         return this;
     }
 
+    void attribute(Validator validator, Collection<ValidationException> errors) {
+        errorCountsByValidator.merge(validator, errors.size(), Integer::sum);
+        for (ValidationException e : errors) {
+            validatorOfError.put(e, validator);
+        }
+    }
+
+    @Override
+    public synchronized ValidationErrorIndex getErrorIndex() {
+        if (null == errorIndex) {
+            errorIndex = new ValidationErrorIndex(errors, errorCountsByValidator, validatorOfError);
+        }
+        return errorIndex;
+    }
+
     @Override
     public Collection<Validator> getValidators() {
         return validators;
@@ -0,0 +1,125 @@
+package de.konfidas.ttc.validation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Saves the state of validators to a file, and restores it in a later run. Together with CheckpointedValidator,
+ * this allows to validate a sequence of exports incrementally: each run only validates the newest export, in time
+ * proportional to its size, and saves the state for the next run.
+ *
+ * The file starts with a magic number and a version, followed by one section per CheckpointedValidator. Each
+ * section consists of the checkpoint name of the validator and the length of its state, followed by the state.
+ * Sections are assigned to validators by name, in the order of the validators. Validators, for which there is no
+ * section, keep their initial state, and sections without validator are ignored.
+ */
+public class ValidatorCheckpoint {
+    final static Logger logger = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+    static Locale locale = new Locale("de", "DE"); //NON-NLS
+    static ResourceBundle properties = ResourceBundle.getBundle("ttc",locale);//NON-NLS
+
+    static final int MAGIC = 0x54544343; // "TTCC"
+    static final int VERSION = 1;
+
+    /**
+     * @return the CheckpointedValidators, which are the given validator or are contained in it, in their order.
+     */
+    static List<CheckpointedValidator> collect(Validator validator) {
+        ArrayList<CheckpointedValidator> result = new ArrayList<>();
+        if (validator instanceof AggregatedValidator) {
+            for (Validator v : ((AggregatedValidator) validator).validators) {
+                result.addAll(collect(v));
+            }
+        } else if (validator instanceof CheckpointedValidator) {
+            result.add((CheckpointedValidator) validator);
+        }
+        return result;
+    }
+
+    /**
+     * Saves the state of the given validator. The file is replaced only after the checkpoint was written completely.
+     */
+    public static void write(File file, Validator validator) throws IOException {
+        List<CheckpointedValidator> validators = collect(validator);
+        File tmp = new File(file.getPath() + ".tmp"); //NON-NLS
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(validators.size());
+            for (CheckpointedValidator v : validators) {
+                ByteArrayOutputStream state = new ByteArrayOutputStream();
+                try (DataOutputStream stateOut = new DataOutputStream(state)) {
+                    v.writeCheckpoint(stateOut);
+                }
+                out.writeUTF(v.getCheckpointName());
+                out.writeInt(state.size());
+                state.writeTo(out);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logger.debug("Saved the state of {} validators to {}.", validators.size(), file); //NON-NLS
+    }
+
+    /**
+     * Restores the state of the given validator, which must not have validated anything yet.
+     * @return false, if the file does not exist, i.e. there is no state to restore.
+     * @throws CheckpointFormatException if the file is not a checkpoint of a known version.
+     */
+    public static boolean read(File file, Validator validator) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+
+        HashMap<String, ArrayDeque<byte[]>> sections = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new CheckpointFormatException(file);
+            }
+            int numberOfSections = in.readInt();
+            for (int i = 0; i < numberOfSections; i++) {
+                String name = in.readUTF();
+                byte[] state = new byte[in.readInt()];
+                in.readFully(state);
+                sections.computeIfAbsent(name, k -> new ArrayDeque<>()).add(state);
+            }
+        } catch (EOFException e) {
+            throw new CheckpointFormatException(file);
+        }
+
+        for (CheckpointedValidator v : collect(validator)) {
+            ArrayDeque<byte[]> states = sections.get(v.getCheckpointName());
+            if (null == states || states.isEmpty()) {
+                logger.debug("The checkpoint {} has no state for {}.", file, v.getCheckpointName()); //NON-NLS
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(states.poll()))) {
+                v.readCheckpoint(in);
+            } catch (EOFException e) {
+                throw new CheckpointFormatException(file);
+            }
+        }
+        return true;
+    }
+
+    static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInput in) throws IOException {
+        byte[] result = new byte[in.readInt()];
+        in.readFully(result);
+        return result;
+    }
+
+    public static class CheckpointFormatException extends IOException {
+        public CheckpointFormatException(File file) {
+            super(String.format(properties.getString("de.konfidas.ttc.validation.checkpointUnknownFormat"), file));
+        }
+    }
+}
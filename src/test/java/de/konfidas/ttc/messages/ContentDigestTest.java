@@ -0,0 +1,27 @@
+package de.konfidas.ttc.messages;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ContentDigestTest {
+
+    @Test
+    public void digestIsXxHash64() {
+        assertEquals(0xEF46DB3751D8E999L, ContentDigest.of(new byte[0]));
+        assertEquals(0x44BC2CF5AD770999L, ContentDigest.of("abc".getBytes(StandardCharsets.US_ASCII)));
+        // longer than one stripe of 32 bytes, with 8, 4 and 1 byte tails:
+        assertEquals(0xFBCEA83C8A378BF1L, ContentDigest.of("Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void differentContentHasDifferentDigests() {
+        byte[] content = new byte[100];
+        long digest = ContentDigest.of(content);
+        content[99] = 1;
+        assertNotEquals(digest, ContentDigest.of(content));
+    }
+}
@@ -0,0 +1,131 @@
+package de.konfidas.ttc.messages;
+
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.BERSequence;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DerCursorParsingTest extends TestCaseBasisWithCA {
+    final ArrayList<String> names = new ArrayList<>();
+
+    /**
+     * Encodes the log message with an indefinite length, which is not supported by the DerCursor. Hence, the result
+     * is parsed with BouncyCastle.
+     */
+    static byte[] toIndefiniteLength(byte[] content) throws Exception {
+        ASN1Sequence sequence = ASN1Sequence.getInstance(ASN1Primitive.fromByteArray(content));
+        byte[] ber = new BERSequence(sequence.toArray()).getEncoded();
+        assertEquals((byte) 0x80, ber[1]);
+        return ber;
+    }
+
+    List<byte[]> createMessages() throws Exception {
+        ArrayList<byte[]> messages = new ArrayList<>();
+        for (TransactionLogMessageBuilder builder : new TransactionLogMessageBuilder[]{new StartTransactionLogMessageBuilder(), new UpdateTransactionLogMessageBuilder(), new FinishTransactionLogMessageBuilder()}) {
+            builder.setSerialNumber(new byte[]{0x4f, 0x20, 0x3a, 0x69, 0x10});
+            builder.setClientID("client-ID kommt hier rein");
+            builder.setProcessType("Hier kann ein Wert für processType stehen");
+            builder.setProcessData(new byte[]{0x5f, 0x20, 0x3a, 0x69, 0x10});
+            builder.setAdditionalExternalData(new byte[]{0x01, 0x02});
+            builder.setTransactionNumber(BigInteger.valueOf(4711));
+            messages.add(builder.prepare().calculateDTBS().sign(getClientCertKeyPair().getPrivate()).build().finalizeMessage());
+            names.add(builder.getFilename());
+        }
+
+        AuditLogMessageBuilder audit = new AuditLogMessageBuilder();
+        messages.add(audit.prepare().calculateDTBS().sign(getClientCertKeyPair().getPrivate()).build().finalizeMessage());
+        names.add(audit.getFilename());
+
+        File exported = new File("testdata/logMessages/Unixt_1607348284_Sig-2_Log-Aud.log");
+        messages.add(Files.readAllBytes(exported.toPath()));
+        names.add(exported.getName());
+        return messages;
+    }
+
+    static LogMessageImplementation create(String name, byte[] content) throws Exception {
+        // the names of the built transaction logs are not known to the LogMessageFactory
+        return name.contains("_Log-Aud") ? new AuditLogMessage(content, name) : new TransactionLogMessage(content, name);
+    }
+
+    @Test
+    public void cursorAndBouncyCastleYieldSameFields() throws Exception {
+        List<byte[]> messages = createMessages();
+
+        for (int i = 0; i < messages.size(); i++) {
+            byte[] content = messages.get(i);
+            LogMessageImplementation cursor = create(names.get(i), content);
+            assertTrue(cursor.parseWithCursor(new DerCursor(content)));
+
+            LogMessageImplementation bc = create(names.get(i), toIndefiniteLength(content));
+            assertFalse(bc.parseWithCursor(new DerCursor(bc.getEncoded())));
+
+            assertEquals(bc.getVersion(), cursor.getVersion());
+            assertEquals(bc.getCertifiedDataType(), cursor.getCertifiedDataType());
+            assertArrayEquals(bc.getSerialNumber(), cursor.getSerialNumber());
+            assertEquals(bc.getSignatureAlgorithm(), cursor.getSignatureAlgorithm());
+            assertArrayEquals(bc.getSeAuditData(), cursor.getSeAuditData());
+            assertEquals(bc.getSignatureCounter(), cursor.getSignatureCounter());
+            assertEquals(bc.getLogTime().getTime(), cursor.getLogTime().getTime());
+            assertEquals(bc.getLogTime().toString(), cursor.getLogTime().toString());
+            assertArrayEquals(bc.getSignatureValue(), cursor.getSignatureValue());
+            assertArrayEquals(bc.getDTBS(), cursor.getDTBS());
+
+            if (cursor instanceof TransactionLogMessage) {
+                TransactionLogMessage c = (TransactionLogMessage) cursor;
+                TransactionLogMessage b = (TransactionLogMessage) bc;
+                assertEquals(b.getOperationType(), c.getOperationType());
+                assertEquals(b.getClientID(), c.getClientID());
+                assertArrayEquals(b.getProcessData(), c.getProcessData());
+                assertEquals(b.getProcessType(), c.getProcessType());
+                assertArrayEquals(b.getAdditionalExternalData(), c.getAdditionalExternalData());
+                assertEquals(b.getTransactionNumber(), c.getTransactionNumber());
+                assertArrayEquals(b.getAdditionalInternalData(), c.getAdditionalInternalData());
+            }
+        }
+    }
+
+    @Test
+    public void systemLogsAreParsedWithBouncyCastle() throws Exception {
+        File file = new File("testdata/logMessages/Unixt_1607363188_Sig-11_Log-Sys_unblockUser.log");
+        LogMessageImplementation msg = LogMessageFactory.createLogMessage(file);
+        assertFalse(msg.parseWithCursor(new DerCursor(msg.getEncoded())));
+        assertEquals(BigInteger.valueOf(11), msg.getSignatureCounter());
+    }
+
+    @Test
+    public void unsupportedEncodingsAreRejected() {
+        // indefinite length
+        assertFalse(new DerCursor(new byte[]{0x30, (byte) 0x80, 0x00, 0x00}).next());
+        // high tag number
+        assertFalse(new DerCursor(new byte[]{0x1f, 0x22, 0x01, 0x00}).next());
+        // length exceeds the data
+        assertFalse(new DerCursor(new byte[]{0x04, 0x05, 0x00}).next());
+    }
+
+    @Test
+    public void integersMustBeMinimal() {
+        DerCursor cursor = new DerCursor(new byte[]{0x02, 0x02, 0x00, 0x05, 0x02, 0x02, 0x00, (byte) 0x80});
+        assertTrue(cursor.next(DerCursor.TAG_INTEGER));
+        assertFalse(cursor.isValidInteger());
+        assertTrue(cursor.next(DerCursor.TAG_INTEGER));
+        assertTrue(cursor.isValidInteger());
+        assertEquals(128, cursor.intValue());
+    }
+
+    @Test
+    public void objectIdentifierIsDecoded() {
+        // 0.4.0.127.0.7.1.1.4.1.3
+        DerCursor cursor = new DerCursor(new byte[]{0x06, 0x0a, 0x04, 0x00, 0x7f, 0x00, 0x07, 0x01, 0x01, 0x04, 0x01, 0x03});
+        assertTrue(cursor.next(DerCursor.TAG_OBJECT_IDENTIFIER));
+        assertEquals("0.4.0.127.0.7.1.1.4.1.3", cursor.objectIdentifier());
+    }
+}
@@ -0,0 +1,120 @@
+package de.konfidas.ttc.messages;
+
+import de.konfidas.ttc.exceptions.BadFormatForLogMessageException;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class LazyLogMessageTest extends TestCaseBasisWithCA {
+    final static File systemLogFiles = new File("testdata/systemlogs/unblockuser/");
+    final static File certificateFile = new File("testdata/certificates/good1.cer");
+
+    @Test
+    public void lazyFieldsMatchParsedFields() throws Exception {
+        for (File file : systemLogFiles.listFiles()) {
+            byte[] content = FileUtils.readFileToByteArray(file);
+            LogMessage parsed = LogMessageFactory.createLogMessage(file.getName(), content);
+            LazyLogMessage lazy = LogMessageFactory.createLazyLogMessage(file.getName(), content);
+
+            assertArrayEquals(parsed.getSerialNumber(), lazy.getSerialNumber());
+            assertEquals(parsed.getSignatureCounter(), lazy.getSignatureCounter());
+            assertEquals(parsed.getLogTime().getTime(), lazy.getLogTime().getTime());
+            assertEquals(parsed.getLogTime().getType(), lazy.getLogTime().getType());
+            assertEquals(parsed.getSignatureAlgorithm(), lazy.getSignatureAlgorithm());
+            assertEquals(parsed.getVersion(), lazy.getVersion());
+            assertArrayEquals(parsed.getSignatureValue(), lazy.getSignatureValue());
+            assertArrayEquals(parsed.getDTBS(), lazy.getDTBS());
+            assertEquals(parsed.getCertifiedDataType(), lazy.getCertifiedDataType());
+            assertEquals(parsed, lazy);
+            assertEquals(parsed.hashCode(), lazy.hashCode());
+        }
+    }
+
+    @Test
+    public void dtbsBufferIsViewOnEncoding() throws Exception {
+        for (File file : systemLogFiles.listFiles()) {
+            byte[] content = FileUtils.readFileToByteArray(file);
+            for (LogMessage msg : new LogMessage[]{LogMessageFactory.createLogMessage(file.getName(), content), LogMessageFactory.createLazyLogMessage(file.getName(), content)}) {
+                ByteBuffer buffer = msg.getDTBSBuffer();
+                assertSame(content, buffer.array());
+                byte[] dtbs = new byte[buffer.remaining()];
+                buffer.get(dtbs);
+                assertArrayEquals(msg.getDTBS(), dtbs);
+                // every call returns a fresh view
+                assertEquals(dtbs.length, msg.getDTBSBuffer().remaining());
+            }
+        }
+    }
+
+    @Test
+    public void signaturesOfExportedMessagesVerify() throws Exception {
+        X509Certificate cert;
+        try (InputStream in = new FileInputStream(certificateFile)) {
+            cert = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
+        }
+
+        for (File file : systemLogFiles.listFiles()) {
+            byte[] content = FileUtils.readFileToByteArray(file);
+            LogMessage parsed = LogMessageFactory.createLogMessage(file.getName(), content);
+            HashMap<String, X509Certificate> certificates = new HashMap<>();
+            certificates.put(Hex.encodeHexString(parsed.getSerialNumber()).toUpperCase(Locale.ROOT), cert);
+            LogMessageSignatureVerifier verifier = new LogMessageSignatureVerifier(certificates);
+
+            verifier.verify(parsed);
+            verifier.verify(LogMessageFactory.createLazyLogMessage(file.getName(), content));
+        }
+    }
+
+    @Test
+    public void signaturesOfBuiltMessagesVerify() throws Exception {
+        byte[] serial = "Serial".getBytes(StandardCharsets.UTF_8);
+        AuditLogMessageBuilder builder = new AuditLogMessageBuilder();
+        builder.setSerialNumber(serial)
+                .setSignatureCounter(BigInteger.TEN)
+                .setLogTimeUnixTime(1600000000L);
+        byte[] content = builder.prepare()
+                .calculateDTBS()
+                .sign(getClientCertKeyPair().getPrivate())
+                .build()
+                .finalizeMessage();
+
+        HashMap<String, X509Certificate> certificates = new HashMap<>();
+        certificates.put(Hex.encodeHexString(serial).toUpperCase(Locale.ROOT), getClientCertificate());
+        LogMessageSignatureVerifier verifier = new LogMessageSignatureVerifier(certificates);
+
+        verifier.verify(new AuditLogMessage(content, builder.getFilename()));
+        LazyLogMessage lazy = LogMessageFactory.createLazyLogMessage(builder.getFilename(), content);
+        verifier.verify(lazy);
+        assertEquals(BigInteger.TEN, lazy.getSignatureCounter());
+        assertTrue(lazy.getLogMessage() instanceof AuditLogMessage);
+    }
+
+    @Test(expected = BadFormatForLogMessageException.class)
+    public void incompleteMessageIsRejected() throws Exception {
+        // a SEQUENCE, which only contains the version
+        LogMessageFactory.createLazyLogMessage("Unixt_1_Sig-1_Log-Aud.log", new byte[]{0x30, 0x03, 0x02, 0x01, 0x02});
+    }
+
+    @Test(expected = BadFormatForLogMessageException.class)
+    public void truncatedMessageIsRejected() throws Exception {
+        File file = systemLogFiles.listFiles()[0];
+        byte[] content = FileUtils.readFileToByteArray(file);
+        byte[] truncated = new byte[content.length - 10];
+        System.arraycopy(content, 0, truncated, 0, truncated.length);
+        LogMessageFactory.createLazyLogMessage(file.getName(), truncated);
+    }
+}
@@ -0,0 +1,72 @@
+package de.konfidas.ttc.messages;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+
+/**
+ * Helper to create TAR files, which look like a TSE export, for testing purposes.
+ */
+public class LogMessageArchiveFileBuilder {
+    final ArrayList<String> names = new ArrayList<>();
+    final ArrayList<byte[]> contents = new ArrayList<>();
+
+    public LogMessageArchiveFileBuilder addEntry(String name, byte[] content){
+        names.add(name);
+        contents.add(content);
+        return this;
+    }
+
+    public String getName(int index){
+        return names.get(index);
+    }
+
+    public byte[] getContent(int index){
+        return contents.get(index);
+    }
+
+    public LogMessageArchiveFileBuilder addInfoCsv(){
+        String info = "\"description:\",\"TTC Test TSE\",\"manufacturer:\",\"konfidas\",\"version:\",\"1.0\""; //NON-NLS
+        return addEntry("info.csv", info.getBytes(StandardCharsets.UTF_8)); //NON-NLS
+    }
+
+    public LogMessageArchiveFileBuilder addCertificate(String keyHash, X509Certificate cert) throws CertificateEncodingException {
+        return addEntry(keyHash + "_X509.cer", cert.getEncoded()); //NON-NLS
+    }
+
+    public LogMessageArchiveFileBuilder addAuditLogMessage(byte[] serial, BigInteger signatureCounter, long logTime, PrivateKey key) throws LogMessageBuilder.TestLogMessageCreationError {
+        AuditLogMessageBuilder builder = new AuditLogMessageBuilder();
+        builder.setSerialNumber(serial)
+                .setSignatureCounter(signatureCounter)
+                .setLogTimeUnixTime(logTime);
+        byte[] content = builder.prepare()
+                .calculateDTBS()
+                .sign(key)
+                .build()
+                .finalizeMessage();
+        return addEntry(builder.getFilename(), content);
+    }
+
+    public File write(File tarFile) throws IOException {
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(new FileOutputStream(tarFile))) {
+            out.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+            for (int i = 0; i < names.size(); i++) {
+                TarArchiveEntry entry = new TarArchiveEntry(names.get(i));
+                entry.setSize(contents.get(i).length);
+                out.putArchiveEntry(entry);
+                out.write(contents.get(i));
+                out.closeArchiveEntry();
+            }
+        }
+        return tarFile;
+    }
+}
@@ -1,6 +1,5 @@
 package de.konfidas.ttc.messages;
 
-import de.konfidas.ttc.setup.Utilities;
 import de.konfidas.ttc.utilities.ByteArrayOutputStream;
 import de.konfidas.ttc.utilities.oid;
 import org.bouncycastle.asn1.*;
@@ -21,7 +20,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-import static de.konfidas.ttc.setup.Utilities.getEncodedValue;
 
 
 public abstract class LogMessageBuilder {
@@ -477,37 +475,37 @@ public abstract class LogMessageBuilder {
 
         try {
             versionAsASN1 = new ASN1Integer(version);
-            versionEncoded = getEncodedValue(versionAsASN1);
+            versionEncoded = versionAsASN1.getEncoded();
 
             //certifiedDataType will be set by subclasses
             //certifiedData will be set by subclasses
 
             serialNumberAsASN1 = new DEROctetString(serialNumber);
-            serialNumberEncoded = getEncodedValue(serialNumberAsASN1);
+            serialNumberEncoded = serialNumberAsASN1.getEncoded();
 
             signatureAlgorithmAsASN1 = new ASN1ObjectIdentifier(signatureAlgorithm);
-            signatureAlgorithmEncoded = getEncodedValue(signatureAlgorithmAsASN1);
             //fixme: im moment keine parameter für den algorithmus
             signatureAlgorithmElementsList.add(signatureAlgorithmAsASN1);
+            signatureAlgorithmEncoded = new DERSequence(signatureAlgorithmElementsList).getEncoded();
             //seAuditData filled by subclass
             signatureCounterAsASN1 = new ASN1Integer(signatureCounter);
-            signatureCounterEncoded = getEncodedValue(signatureCounterAsASN1);
+            signatureCounterEncoded = signatureCounterAsASN1.getEncoded();
 
             //logtimesd
             switch (logTimeType) {
                 case "unixTime":
                     logTimeUnixTimeAsASN1 = new ASN1Integer(logTimeUnixTime);
-                    logTimeUnixTimeEncoded = getEncodedValue(logTimeUnixTimeAsASN1);
+                    logTimeUnixTimeEncoded = logTimeUnixTimeAsASN1.getEncoded();
                     break;
                 case "utcTime":
                     DateFormat uTCTimeFormat = new SimpleDateFormat();
                     logTimeUTCAsASN1 = new ASN1UTCTime(uTCTimeFormat.parse(logTimeUTC));
-                    logTimeUTCEncoded = getEncodedValue(logTimeUTCAsASN1);
+                    logTimeUTCEncoded = logTimeUTCAsASN1.getEncoded();
                     break;
                 case "generalizedTime":
                     DateFormat generalizedTimeFormat = new SimpleDateFormat();
                     logTimeGeneralizedTimeAsASN1 = new ASN1GeneralizedTime(generalizedTimeFormat.parse(logTimeGeneralizedTime));
-                    logTimeGeneralizedTimeEncoded = getEncodedValue(logTimeGeneralizedTimeAsASN1);
+                    logTimeGeneralizedTimeEncoded = logTimeGeneralizedTimeAsASN1.getEncoded();
                     break;
             }
         }
@@ -526,12 +524,13 @@ public abstract class LogMessageBuilder {
             if (versionEncoded != null) dtbsStream.write(versionEncoded);
             if (certifiedDataTypeEndcoded != null)   dtbsStream.write(certifiedDataTypeEndcoded);
             if (certifiedDataEncoded != null) dtbsStream.write(certifiedDataEncoded);
+            else for (ASN1Primitive element : certifiedDataAsASN1) dtbsStream.write(element.getEncoded());
 
             if (serialNumberEncoded != null) dtbsStream.write(serialNumberEncoded);
             if (signatureAlgorithmEncoded != null) dtbsStream.write(signatureAlgorithmEncoded);
             if (seAuditDataEncoded != null) dtbsStream.write(seAuditDataEncoded);
 
-            if (signatureCounterAsASN1 != null) dtbsStream.write(getEncodedValue(signatureCounterAsASN1));
+            if (signatureCounterEncoded != null) dtbsStream.write(signatureCounterEncoded);
 
             switch (logTimeType) {
                 case "unixTime":
@@ -546,7 +545,7 @@ public abstract class LogMessageBuilder {
             }
 
             this.dtbs = dtbsStream.toByteArray();
-        } catch (IOException | Utilities.ExtendLengthValueExceedsInteger e) {
+        } catch (IOException e) {
             throw new TestLogMessageCreationError("Fehler beim Erstellen des DTBS", e);
         }
 
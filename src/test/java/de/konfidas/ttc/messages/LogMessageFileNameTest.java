@@ -0,0 +1,81 @@
+package de.konfidas.ttc.messages;
+
+import de.konfidas.ttc.messages.logtime.LogTime;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+public class LogMessageFileNameTest {
+    // the regular expressions, which were used to classify file names before
+    static final String LOG_MESSAGE = "^(Gent_|Unixt_|Utc_).+_Sig-\\d+_Log-.+log";
+    static final String TRANSACTION = "^(Gent_|Unixt_|Utc_).+_Sig-\\d+_Log-.+(Start|Update|Finish)_Client-.+log";
+
+    static final String[] NAMES = {
+            "Unixt_1615365891_Sig-117_Log-Sys_unblockUser.log",
+            "Unixt_1607363188_Sig-13_Log-Sys_setConfiguration.log",
+            "Unixt_1607348284_Sig-2_Log-Aud.log",
+            "Gent_20210310081131_Sig-5_Log-Sys_authenticateUser.log",
+            "Utc_210310081131_Sig-6_Log-Sys_authenticateSmaersAdmin.log",
+            "Unixt_1_Sig-7_Log-Sys_registerClient.log",
+            "Unixt_1_Sig-8_Log-Sys_deregisterClient.log",
+            "Unixt_1_Sig-9_Log-Sys_startAudit.log",
+            "Unixt_1_Sig-10_Log-Sys_initialize.log",
+            "Unixt_1611231567_Sig-10_Log-Tra_No-3_Start_Client-POS1.log",
+            "Gent_20210121122927.123Z_Sig-11_Log-Tra_No-3_Update_Client-POS1.log",
+            "Utc_210121122927Z_Sig-12_Log-Tra_No-3_Finish_Client-POS1.log",
+            "Gent_20210121122927.123Z_Sig-11_Log-Aud.log",
+            "Unixt_1_Sig-1_Log-Aud",
+            "Unixt_1_Sig-1_Log-.log",
+            "Unixt_1_Sig-_Log-Aud.log",
+            "Unixt__Sig-1_Log-Aud.log",
+            "Unixt_1_Sig-x_Sig-2_Log-Aud.log",
+            "UTCTime_1_Sig-1_Log-Aud.log",
+            "Unixt_1_Sig-1_Log_No-_Start.log",
+            "Unixt_1_Sig-1_Log-Tra_Start_Client-.log",
+            "info.csv",
+            "X509_ABCDEF.pem"
+    };
+
+    @Test
+    public void acceptsSameNamesAsRegularExpressions() {
+        for (String name : NAMES) {
+            LogMessageFileName fileName = LogMessageFileName.parse(name);
+            assertEquals(name, name.matches(LOG_MESSAGE), null != fileName);
+            if (null != fileName) {
+                assertEquals(name, name.matches(TRANSACTION), fileName.getType() == LogMessageFileName.Type.TRANSACTION);
+            }
+        }
+    }
+
+    @Test
+    public void systemLogTypesAreRecognized() {
+        for (LogMessageFileName.Type type : LogMessageFileName.Type.values()) {
+            if (null == type.token) {
+                continue;
+            }
+            String name = "Unixt_1615365891_Sig-117_Log-" + type.token + ".log";
+            assertEquals(type, LogMessageFileName.parse(name).getType());
+
+            String regex = "^(Gent_|Unixt_|Utc_)\\d+_Sig-\\d+_Log-" + type.token + ".+log";
+            // system and audit logs require a numeric log time
+            assertEquals(LogMessageFileName.Type.UNKNOWN, LogMessageFileName.parse("Utc_210121122927Z_Sig-117_Log-" + type.token + ".log").getType());
+            assertFalse(("Utc_210121122927Z_Sig-117_Log-" + type.token + ".log").matches(regex));
+        }
+        assertEquals(LogMessageFileName.Type.UNKNOWN, LogMessageFileName.parse("Unixt_1607363188_Sig-13_Log-Sys_setConfiguration.log").getType());
+    }
+
+    @Test
+    public void fieldsAreTakenFromName() {
+        LogMessageFileName name = LogMessageFileName.parse("Gent_20210121122927.123Z_Sig-11_Log-Tra_No-3_Update_Client-POS1.log");
+        assertEquals(LogTime.Type.GENERALIZED, name.getTimeFormat());
+        assertEquals("20210121122927.123Z", name.getLogTime());
+        assertEquals(BigInteger.valueOf(11), name.getSignatureCounter());
+
+        name = LogMessageFileName.parse("Unixt_1615365891_Sig-123456789012345678901234567890_Log-Aud.log");
+        assertEquals(LogTime.Type.UNIX, name.getTimeFormat());
+        assertEquals("1615365891", name.getLogTime());
+        assertEquals(new BigInteger("123456789012345678901234567890"), name.getSignatureCounter());
+    }
+}
@@ -0,0 +1,65 @@
+package de.konfidas.ttc.messages;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SerialNumberTest {
+
+    @Test
+    public void serialNumbersAreInterned() {
+        byte[] bytes = "SerialNumberTest".getBytes(StandardCharsets.UTF_8);
+        SerialNumber serial = SerialNumber.of(bytes);
+
+        assertSame(serial, SerialNumber.of(bytes.clone()));
+        assertSame(serial, SerialNumber.get(serial.getId()));
+        assertTrue(serial.getId() < SerialNumber.count());
+        assertEquals("53657269616c4e756d62657254657374", serial.toHexString());
+        assertEquals("53657269616C4E756D62657254657374", serial.toUpperCaseHexString());
+
+        // the interned instance does not share the array of the caller
+        bytes[0] = 0;
+        assertEquals("53657269616c4e756d62657254657374", SerialNumber.of("SerialNumberTest".getBytes(StandardCharsets.UTF_8)).toHexString());
+        assertNotSame(serial, SerialNumber.of(bytes));
+        assertNull(SerialNumber.of(null));
+    }
+
+    @Test
+    public void tableGrowsWithTheIds() throws Exception {
+        SerialNumberTable<StringBuilder> table = new SerialNumberTable<>();
+        List<SerialNumber> serials = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            serials.add(SerialNumber.of(("TableSerial" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // values of different serial numbers are used concurrently, while the table grows
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (SerialNumber serial : serials) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        table.computeIfAbsent(serial, StringBuilder::new).append('x');
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (SerialNumber serial : serials) {
+            assertEquals(100, table.get(serial).length());
+        }
+        assertNull(table.get(SerialNumber.of("NotInTable".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,78 @@
+package de.konfidas.ttc.messages;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SignatureCountersTest {
+
+    /**
+     * A signature counter and the position, at which it was created, to check that the sort is stable.
+     */
+    static class Counter {
+        final BigInteger value;
+        final int position;
+
+        Counter(BigInteger value, int position) {
+            this.value = value;
+            this.position = position;
+        }
+    }
+
+    static final Comparator<Counter> BY_VALUE = Comparator.comparing(c -> c.value);
+
+    static List<Counter> createCounters(Random random, int n, long bound) {
+        ArrayList<Counter> counters = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            long value = (long) (random.nextDouble() * bound);
+            counters.add(new Counter(BigInteger.valueOf(random.nextBoolean() ? value : -value), i));
+        }
+        return counters;
+    }
+
+    static void assertSortedLikeComparator(List<Counter> counters) {
+        ArrayList<Counter> expected = new ArrayList<>(counters);
+        expected.sort(BY_VALUE);
+
+        SignatureCounters.sort(counters, c -> SignatureCounters.toLong(c.value), BY_VALUE);
+
+        assertEquals(expected.size(), counters.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).value, counters.get(i).value);
+            assertEquals(expected.get(i).position, counters.get(i).position);
+        }
+    }
+
+    @Test
+    public void radixSortIsStable() {
+        Random random = new Random(4711);
+        // many duplicates
+        assertSortedLikeComparator(createCounters(random, 10000, 100));
+        // small counters, which need only one pass
+        assertSortedLikeComparator(createCounters(random, 10000, 60000));
+        assertSortedLikeComparator(new LinkedList<>(createCounters(random, 10000, Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void largeCountersFallBackToComparator() {
+        List<Counter> counters = createCounters(new Random(42), 1000, 1000000);
+        counters.add(new Counter(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.TEN), counters.size()));
+        counters.add(new Counter(BigInteger.valueOf(Long.MIN_VALUE), counters.size()));
+        assertSortedLikeComparator(counters);
+    }
+
+    @Test
+    public void toLongDetectsOverflow() {
+        assertEquals(Long.MAX_VALUE, SignatureCounters.toLong(BigInteger.valueOf(Long.MAX_VALUE)));
+        assertEquals(-1, SignatureCounters.toLong(BigInteger.ONE.negate()));
+        assertEquals(LogMessage.SIGNATURE_COUNTER_OVERFLOW, SignatureCounters.toLong(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE)));
+        assertEquals(LogMessage.SIGNATURE_COUNTER_OVERFLOW, SignatureCounters.toLong(null));
+    }
+}
@@ -0,0 +1,146 @@
+package de.konfidas.ttc.metrics;
+
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.reporting.TextReporter;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import de.konfidas.ttc.tars.MappedLogMessageArchive;
+import de.konfidas.ttc.validation.AggregatedValidator;
+import de.konfidas.ttc.validation.SignatureCounterValidator;
+import de.konfidas.ttc.validation.TimeStampValidator;
+import de.konfidas.ttc.validation.ValidationResult;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest extends TestCaseBasisWithCA {
+
+    @Test
+    public void timersAreAccumulatedPerPhase() {
+        Metrics metrics = new Metrics();
+        try (Metrics.Timer timer = metrics.phase("second").start()) {
+            timer.addItems(2).addBytes(100).addErrors(1);
+        }
+        try (Metrics.Timer timer = metrics.phase("first").start()) {
+            timer.addItems(3);
+        }
+        try (Metrics.Timer timer = metrics.phase("second").start()) {
+            timer.addItems(2).addBytes(50);
+        }
+
+        List<Metrics.Phase> phases = new ArrayList<>(metrics.getPhases());
+        assertEquals(2, phases.size());
+        Metrics.Phase second = phases.get(0);
+        assertEquals("second", second.getName());
+        assertEquals(2, second.getSections());
+        assertEquals(4, second.getItems());
+        assertEquals(150, second.getBytes());
+        assertEquals(1, second.getErrors());
+        assertTrue(second.getNanos() > 0);
+        assertTrue(second.getItemsPerSecond() > 0);
+        assertSame(second, metrics.phase("second"));
+        assertEquals("first", phases.get(1).getName());
+    }
+
+    @Test
+    public void parsingValidationAndReportingAreRecorded() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        // signature counter 3 is missing:
+        for (int i : new int[]{1, 2, 4, 5}) {
+            builder.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File file = builder.write(Files.createTempFile(exportDir, "metrics", ".tar").toFile());
+
+        Metrics metrics = new Metrics();
+        LogMessageArchiveImplementation tar = new LogMessageArchiveImplementation().setMetrics(metrics).parse(file);
+        ValidationResult result = new AggregatedValidator()
+                .add(new SignatureCounterValidator())
+                .add(new TimeStampValidator())
+                .setMetrics(metrics)
+                .validate(tar);
+
+        HashMap<String, Metrics.Phase> phases = new HashMap<>();
+        for (Metrics.Phase phase : metrics.getPhases()) {
+            phases.put(phase.getName(), phase);
+        }
+        Metrics.Phase parse = phases.get(LogMessageArchiveImplementation.PARSE_PHASE);
+        assertEquals(4, parse.getItems());
+        assertEquals(file.length(), parse.getBytes());
+        Metrics.Phase decode = phases.get(LogMessageArchiveImplementation.DECODE_PHASE);
+        assertEquals(4, decode.getItems());
+        assertEquals(4, decode.getSections());
+        assertEquals(1, phases.get(AggregatedValidator.VALIDATE_PHASE).getErrors());
+
+        // the fused validators are measured one by one:
+        Metrics.Phase signatureCounter = phases.get(AggregatedValidator.VALIDATOR_PHASE_PREFIX + "SignatureCounterValidator");
+        assertEquals(4, signatureCounter.getItems());
+        assertEquals(1, signatureCounter.getErrors());
+        Metrics.Phase timeStamp = phases.get(AggregatedValidator.VALIDATOR_PHASE_PREFIX + "TimeStampValidator");
+        assertEquals(4, timeStamp.getItems());
+        assertEquals(0, timeStamp.getErrors());
+
+        String report = new TextReporter().setMetrics(metrics).createReport(Collections.singleton(tar), result, false);
+        assertTrue(report.contains(AggregatedValidator.VALIDATOR_PHASE_PREFIX + "SignatureCounterValidator: "));
+    }
+
+    @Test
+    public void mappedArchiveRecordsIndexAndDecoding() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 1; i <= 3; i++) {
+            builder.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File file = builder.write(Files.createTempFile(exportDir, "metrics", ".tar").toFile());
+
+        Metrics metrics = new Metrics();
+        MappedLogMessageArchive tar = new MappedLogMessageArchive(file, metrics);
+        assertEquals(3, new ArrayList<>(tar.getLogMessages()).size());
+
+        HashMap<String, Metrics.Phase> phases = new HashMap<>();
+        for (Metrics.Phase phase : metrics.getPhases()) {
+            phases.put(phase.getName(), phase);
+        }
+        Metrics.Phase parse = phases.get(LogMessageArchiveImplementation.PARSE_PHASE);
+        assertEquals(3, parse.getItems());
+        assertEquals(file.length(), parse.getBytes());
+        // log messages are decoded on every access:
+        tar.getLogMessages().get(0);
+        assertEquals(4, phases.get(LogMessageArchiveImplementation.DECODE_PHASE).getItems());
+    }
+
+    @Test
+    public void sectionsAreRecordedAsJfrEvents() throws Exception {
+        Path dump = Files.createTempFile(exportDir, "metrics", ".jfr");
+        Metrics metrics = new Metrics();
+        try (Recording recording = new Recording()) {
+            recording.enable("de.konfidas.ttc.Phase");
+            recording.start();
+            try (Metrics.Timer timer = metrics.phase("recorded").start()) {
+                timer.addItems(7);
+            }
+            // sections of phases, which are timed per item, are not recorded:
+            try (Metrics.Timer timer = metrics.phase("perItem", false).start()) {
+                timer.addItems(1);
+            }
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        assertEquals(1, events.size());
+        assertEquals("recorded", events.get(0).getString("phase"));
+        assertEquals(7, events.get(0).getLong("items"));
+    }
+}
@@ -0,0 +1,109 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import de.konfidas.ttc.validation.AggregatedValidator;
+import de.konfidas.ttc.validation.SignatureCounterValidator;
+import de.konfidas.ttc.validation.ValidationResult;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+public class MachineReadableReporterTest extends TestCaseBasisWithCA {
+    static final byte[] SERIAL = "Serial".getBytes(StandardCharsets.UTF_8);
+
+    ValidationResult validate(Collection<LogMessageArchive> logs) throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        // signature counters 3 and 5 are missing:
+        for (int i : new int[]{1, 2, 4, 6}) {
+            builder.addAuditLogMessage(SERIAL, BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File file = builder.write(Files.createTempFile(exportDir, "report", ".tar").toFile());
+        LogMessageArchiveImplementation tar = new LogMessageArchiveImplementation(file);
+        logs.add(tar);
+        ValidationResult result = new AggregatedValidator().add(new SignatureCounterValidator()).validate(tar);
+        assertEquals(2, result.getValidationErrors().size());
+        return result;
+    }
+
+    @Test
+    public void jsonLinesReportHasOneRecordPerError() throws Exception {
+        Collection<LogMessageArchive> logs = new ArrayList<>();
+        ValidationResult result = validate(logs);
+
+        String report = new JsonLinesReporter().createReport(logs, result, false);
+        String[] lines = report.split("\n");
+        assertEquals(2, lines.length);
+
+        int i = 0;
+        for (ValidationException e : result.getValidationErrors()) {
+            LogMessageValidationException error = (LogMessageValidationException) e;
+            String line = lines[i++];
+            assertTrue(line.startsWith("{\"fileName\":\"" + error.getLogMessage().getFileName() + "\""));
+            assertTrue(line.contains("\"serialNumber\":\"" + error.getLogMessage().getInternedSerialNumber().toHexString() + "\""));
+            assertTrue(line.contains("\"signatureCounter\":\"" + error.getLogMessage().getSignatureCounter() + "\""));
+            assertTrue(line.contains("\"validator\":\"" + SignatureCounterValidator.class.getName() + "\""));
+            assertTrue(line.contains("\"exceptionClass\":\"" + e.getClass().getName() + "\""));
+            assertTrue(line.contains("\"message\":\"" + e + "\""));
+            assertTrue(line.endsWith("}"));
+        }
+    }
+
+    @Test
+    public void binaryReportHasOneRecordPerError() throws Exception {
+        Collection<LogMessageArchive> logs = new ArrayList<>();
+        ValidationResult result = validate(logs);
+
+        byte[] report = new BinaryReporter().createReport(logs, result, false);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(report));
+        assertEquals(BinaryReporter.MAGIC, in.readInt());
+        assertEquals(BinaryReporter.VERSION, in.readByte());
+
+        ArrayList<byte[]> constants = new ArrayList<>();
+        int numberOfErrors = 0;
+        for (ValidationException e : result.getValidationErrors()) {
+            LogMessageValidationException error = (LogMessageValidationException) e;
+            byte tag;
+            while ((tag = in.readByte()) == BinaryReporter.TAG_CONSTANT) {
+                constants.add(readBytes(in));
+            }
+            assertEquals(BinaryReporter.TAG_ERROR, tag);
+            assertEquals(e.getClass().getName(), new String(constants.get(in.readInt()), StandardCharsets.UTF_8));
+            assertEquals(SignatureCounterValidator.class.getName(), new String(constants.get(in.readInt()), StandardCharsets.UTF_8));
+            assertArrayEquals(error.getLogMessage().getSerialNumber(), constants.get(in.readInt()));
+            assertEquals(error.getLogMessage().getFileName(), new String(readBytes(in), StandardCharsets.UTF_8));
+            assertEquals(error.getLogMessage().getSignatureCounter(), new BigInteger(readBytes(in)));
+            String message = new String(readBytes(in), StandardCharsets.UTF_8);
+            assertEquals(e.toString(), message);
+            // the missing signature counter is named, not only the log message:
+            assertTrue(message.contains(" " + error.getLogMessage().getSignatureCounter().subtract(BigInteger.ONE) + "."));
+            numberOfErrors++;
+        }
+        // exception class, validator and serial number are written only once:
+        assertEquals(3, constants.size());
+        assertEquals(BinaryReporter.TAG_END, in.readByte());
+        assertEquals(numberOfErrors, in.readInt());
+        assertEquals(-1, in.read());
+    }
+
+    static byte[] readBytes(DataInputStream in) throws Exception {
+        int length = in.readInt();
+        assertTrue(length >= 0);
+        byte[] result = new byte[length];
+        in.readFully(result);
+        return result;
+    }
+}
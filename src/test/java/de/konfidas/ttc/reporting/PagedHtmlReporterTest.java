@@ -0,0 +1,65 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import de.konfidas.ttc.validation.AggregatedValidator;
+import de.konfidas.ttc.validation.SignatureCounterValidator;
+import de.konfidas.ttc.validation.ValidationResult;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PagedHtmlReporterTest extends TestCaseBasisWithCA {
+
+    @Test
+    public void reportIsSplitIntoPages() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        // signature counters 6 and 9 are missing:
+        for (int i : new int[]{1, 2, 3, 4, 5, 7, 8, 10}) {
+            builder.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File file = builder.write(Files.createTempFile(exportDir, "report", ".tar").toFile());
+        LogMessageArchiveImplementation tar = new LogMessageArchiveImplementation(file);
+        ValidationResult result = new AggregatedValidator().add(new SignatureCounterValidator()).validate(tar);
+
+        File directory = Files.createTempDirectory(exportDir, "report").toFile();
+        File index = new PagedHtmlReporter(directory).setPageSize(3).createReport(Collections.singleton(tar), result, false);
+
+        assertEquals(new File(directory, "index.html"), index);
+        String indexContent = Files.readString(index.toPath());
+        assertTrue(indexContent.contains(SignatureCounterValidator.SignatureCounterMissingException.class.getName() + ": 2"));
+        for (int page = 1; page <= 3; page++) {
+            assertTrue(indexContent.contains("href=\"page-" + page + ".html\""));
+        }
+        assertFalse(new File(directory, "page-4.html").exists());
+
+        // the second page contains the log message with counter 7, which follows the missing counter 6:
+        String page2 = Files.readString(new File(directory, "page-2.html").toPath());
+        assertTrue(page2.contains("showDetails(this, 0)"));
+        assertTrue(page2.contains("href=\"page-3.html\""));
+        String details2 = Files.readString(new File(directory, "details-2.js").toPath());
+        assertTrue(details2.startsWith("ttcDetails([{"));
+        assertTrue(details2.contains("\"signatureCounter\":\"7\""));
+        assertTrue(details2.endsWith("}]);"));
+
+        String page3 = Files.readString(new File(directory, "page-3.html").toPath());
+        assertFalse(page3.contains("href=\"page-4.html\""));
+        assertTrue(Files.readString(new File(directory, "details-3.js").toPath()).contains("\"signatureCounter\":\"10\""));
+        assertEquals("ttcDetails([]);", Files.readString(new File(directory, "details-1.js").toPath()));
+    }
+
+    @Test
+    public void jsonIsEscaped() throws Exception {
+        StringWriter sw = new StringWriter();
+        Json.writeString(sw, "a\"b\\c\n</script>\u2028");
+        assertEquals("\"a\\\"b\\\\c\\n\\u003c/script>\\u2028\"", sw.toString());
+    }
+}
@@ -0,0 +1,47 @@
+package de.konfidas.ttc.reporting;
+
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import de.konfidas.ttc.validation.AggregatedValidator;
+import de.konfidas.ttc.validation.SignatureCounterValidator;
+import de.konfidas.ttc.validation.ValidationResult;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingReporterTest extends TestCaseBasisWithCA {
+
+    @Test
+    public void writtenReportEqualsCreatedReport() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        // signature counter 3 is missing:
+        for (int i : new int[]{1, 2, 4, 5}) {
+            builder.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File file = builder.write(Files.createTempFile(exportDir, "report", ".tar").toFile());
+        LogMessageArchiveImplementation tar = new LogMessageArchiveImplementation(file);
+        ValidationResult result = new AggregatedValidator().add(new SignatureCounterValidator()).validate(tar);
+        assertEquals(1, result.getValidationErrors().size());
+
+        Collection<LogMessageArchive> logs = Collections.singleton(tar);
+        for (StreamingReporter reporter : new StreamingReporter[]{new TextReporter(), new HtmlReporter()}) {
+            String created = reporter.createReport(logs, result, false);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            reporter.writeReport(out, logs, result, false);
+
+            assertEquals(created, out.toString(StandardCharsets.UTF_8));
+            assertTrue(created.contains(result.getValidationErrors().iterator().next().toString()));
+        }
+    }
+}
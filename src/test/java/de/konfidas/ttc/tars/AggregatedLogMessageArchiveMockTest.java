@@ -10,6 +10,8 @@ import java.math.BigInteger;
 import java.security.cert.X509Certificate;
 import java.util.*;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class AggregatedLogMessageArchiveMockTest {
@@ -39,7 +41,9 @@ public class AggregatedLogMessageArchiveMockTest {
 
         @Override
         public Collection<? extends LogMessage> getSortedLogMessages() {
-            return null;
+            ArrayList<LogMessage> sorted = new ArrayList<>(messages);
+            sorted.sort(Comparator.comparing(LogMessage::getSignatureCounter));
+            return sorted;
         }
 
         @Override
@@ -189,6 +193,61 @@ public class AggregatedLogMessageArchiveMockTest {
         assertTrue(aTar.getLogMessages().size() == 1);
     }
 
+    @Test
+    public void testDuplicatesReported(){
+        TestTarMock tar1 = new TestTarMock();
+        LogMessageMock original = new LogMessageMock(new byte[]{0x01, 0x02});
+        tar1.messages.add(original);
+        tar1.messages.add(new LogMessageMock(new byte[]{0x01, 0x03}, BigInteger.TWO));
+
+        TestTarMock tar2 = new TestTarMock();
+        LogMessageMock duplicate = new LogMessageMock(new byte[]{0x01, 0x02});
+        tar2.messages.add(duplicate);
+        tar2.messages.add(new LogMessageMock(new byte[]{0x01, 0x04}, BigInteger.TWO));
+
+        AggregatedLogMessageArchive aTar = new AggregatedLogMessageArchive().addArchive(tar1).addArchive(tar2);
+
+        assertEquals(3, aTar.getLogMessages().size());
+        assertEquals(1, aTar.getDuplicates().size());
+        AggregatedLogMessageArchive.Duplicate found = aTar.getDuplicates().get(0);
+        assertSame(original, found.getOriginal());
+        assertSame(tar1, found.getOriginalArchive());
+        assertSame(duplicate, found.getDuplicate());
+        assertSame(tar2, found.getDuplicateArchive());
+
+        aTar.addArchive(tar1);
+        assertEquals(3, aTar.getLogMessages().size());
+        assertEquals(3, aTar.getDuplicates().size());
+    }
+
+    @Test
+    public void testMergeIsStable(){
+        TestTarMock tar1 = new TestTarMock();
+        tar1.messages.add(new LogMessageMock(new byte[]{0x01, 0x05}, BigInteger.valueOf(3)));
+        tar1.messages.add(new LogMessageMock(new byte[]{0x01, 0x01}, BigInteger.ONE));
+        tar1.messages.add(new LogMessageMock(new byte[]{0x01, 0x03}, BigInteger.TWO));
+
+        TestTarMock tar2 = new TestTarMock();
+        tar2.messages.add(new LogMessageMock(new byte[]{0x01, 0x02}, BigInteger.ONE));
+        tar2.messages.add(new LogMessageMock(new byte[]{0x01, 0x03}, BigInteger.TWO));
+        tar2.messages.add(new LogMessageMock(new byte[]{0x01, 0x04}, BigInteger.TWO));
+
+        AggregatedLogMessageArchive aTar = new AggregatedLogMessageArchive().addArchive(tar1).addArchive(tar2);
+
+        List<LogMessage> merged = new ArrayList<>(aTar.getSortedLogMessages());
+        assertEquals(5, merged.size());
+        assertEquals(5, aTar.getSortedLogMessages().size());
+        assertSame(tar1.messages.get(1), merged.get(0));
+        assertSame(tar2.messages.get(0), merged.get(1));
+        assertSame(tar1.messages.get(2), merged.get(2));
+        assertSame(tar2.messages.get(2), merged.get(3));
+        assertSame(tar1.messages.get(0), merged.get(4));
+
+        // every iteration merges again:
+        assertEquals(merged, new ArrayList<>(aTar.getSortedLogMessages()));
+        assertSame(tar2.messages.get(1), aTar.getDuplicates().get(0).getDuplicate());
+    }
+
     @Test
     public void testTwoTarsSorted(){
         TestTarMock tar1 = new TestTarMock();
@@ -0,0 +1,45 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogMessageArchiveParallelParsingTest extends TestCaseBasisWithCA {
+
+    @Test
+    public void parallelParsingKeepsOrderOfTar() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 50; i > 0; i--) {
+            builder.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File tar = builder.write(Files.createTempFile(exportDir, "parallel", ".tar").toFile());
+
+        LogMessageArchiveImplementation sequential = new LogMessageArchiveImplementation(tar);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            LogMessageArchiveImplementation parallel = new LogMessageArchiveImplementation()
+                    .setParserExecutor(executor)
+                    .setParserQueueSize(3)
+                    .parse(tar);
+
+            assertEquals(sequential.getLogMessages(), parallel.getLogMessages());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void queueSizeMustBePositive() throws Exception {
+        new LogMessageArchiveImplementation().setParserQueueSize(0);
+    }
+}
@@ -0,0 +1,275 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.exceptions.BadFormatForTARException;
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LazyLogMessage;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.messages.LogMessageBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.validation.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LogMessageArchiveStreamingTest extends TestCaseBasisWithCA {
+
+    File createTar(int numberOfMessages) throws LogMessageBuilder.TestLogMessageCreationError, IOException {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = numberOfMessages; i > 0; i--) {
+            builder.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File tar = Files.createTempFile(exportDir, "streaming", ".tar").toFile();
+        return builder.write(tar);
+    }
+
+    @Test
+    public void streamingYieldsSameMessages() throws Exception {
+        File tar = createTar(20);
+
+        LogMessageArchiveImplementation eager = new LogMessageArchiveImplementation(tar);
+        LogMessageArchiveImplementation streaming = new LogMessageArchiveImplementation().setStreaming(true).parse(tar);
+
+        assertTrue(streaming.isStreaming());
+        assertEquals(20, streaming.getLogMessages().size());
+
+        List<LogMessage> streamed = new ArrayList<>(streaming.getLogMessages());
+        assertEquals(eager.getLogMessages(), streamed);
+
+        // a second iteration reads the archive again:
+        assertEquals(streamed, new ArrayList<>(streaming.getLogMessages()));
+    }
+
+    @Test
+    public void streamedIteratorIsClosedOnEarlyExit() throws Exception {
+        File tar = createTar(5);
+        LogMessageArchiveImplementation streaming = new LogMessageArchiveImplementation().setStreaming(true).parse(tar);
+
+        LogMessageArchiveImplementation.StreamedLogMessageIterator iterator = (LogMessageArchiveImplementation.StreamedLogMessageIterator) streaming.getLogMessages().iterator();
+        iterator.next();
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.tarStream.getNextTarEntry();
+            fail();
+        } catch (IOException expected) {
+            // the TAR file is closed
+        }
+    }
+
+    @Test
+    public void streamingSortsBySignatureCounter() throws Exception {
+        File tar = createTar(5);
+        LogMessageArchiveImplementation streaming = new LogMessageArchiveImplementation().setStreaming(true).parse(tar);
+
+        BigInteger expected = BigInteger.ONE;
+        for (LogMessage msg : streaming.getSortedLogMessages()) {
+            assertEquals(expected, msg.getSignatureCounter());
+            expected = expected.add(BigInteger.ONE);
+        }
+    }
+
+    @Test
+    public void streamingSortSpillsToRuns() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 0; i < 40; i++) {
+            // counters in mixed order, each twice:
+            builder.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf((i * 7) % 20), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File tar = builder.write(Files.createTempFile(exportDir, "streaming", ".tar").toFile());
+
+        LogMessageArchiveImplementation eager = new LogMessageArchiveImplementation(tar);
+        LogMessageArchiveImplementation streaming = new LogMessageArchiveImplementation().setStreaming(true).setMaxSortRecordsInMemory(7).parse(tar);
+
+        List<LogMessage> sorted = new ArrayList<>(streaming.getSortedLogMessages());
+        assertEquals(eager.getSortedLogMessages(), sorted);
+        assertEquals(40, streaming.getSortedLogMessages().size());
+
+        // a second iteration merges the runs again:
+        assertEquals(sorted, new ArrayList<>(streaming.getSortedLogMessages()));
+        assertEquals(sorted.get(13), streaming.getSortedLogMessages().get(13));
+
+        // the runs are deleted, when the archive is closed, and created again, if it is sorted again:
+        List<File> runs = new ArrayList<>(((LogMessageArchiveImplementation.SortedStreamedLogMessages) streaming.getSortedLogMessages()).externalSort.runs);
+        assertFalse(runs.isEmpty());
+        streaming.close();
+        for (File run : runs) {
+            assertFalse(run.exists());
+        }
+        assertEquals(sorted, new ArrayList<>(streaming.getSortedLogMessages()));
+        streaming.close();
+    }
+
+    @Test
+    public void streamingSortReadsLongFileNamesFromTar() throws Exception {
+        LogMessageArchiveFileBuilder messages = new LogMessageArchiveFileBuilder();
+        for (int i = 5; i > 0; i--) {
+            messages.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        // names longer than 100 characters are stored in an additional header in front of the entry:
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        String padding = String.join("", Collections.nCopies(120, "x"));
+        for (int i = 0; i < 5; i++) {
+            String name = messages.getName(i);
+            builder.addEntry(name.substring(0, name.length() - 4) + "_" + padding + name.substring(name.length() - 4), messages.getContent(i));
+        }
+        File tar = builder.write(Files.createTempFile(exportDir, "streaming", ".tar").toFile());
+
+        LogMessageArchiveImplementation eager = new LogMessageArchiveImplementation(tar);
+        LogMessageArchiveImplementation streaming = new LogMessageArchiveImplementation().setStreaming(true).setMaxSortRecordsInMemory(2).parse(tar);
+
+        List<LogMessage> sorted = new ArrayList<>(streaming.getSortedLogMessages());
+        assertEquals(eager.getSortedLogMessages(), sorted);
+        assertTrue(sorted.get(0).getFileName().endsWith(padding + ".log"));
+    }
+
+    @Test
+    public void sortedIteratorIsClosedOnEarlyExit() throws Exception {
+        File tar = createTar(10);
+        LogMessageArchiveImplementation streaming = new LogMessageArchiveImplementation().setStreaming(true).setMaxSortRecordsInMemory(3).parse(tar);
+
+        LogMessageArchiveImplementation.SortedStreamedLogMessageIterator iterator = (LogMessageArchiveImplementation.SortedStreamedLogMessageIterator) streaming.getSortedLogMessages().listIterator(2);
+        assertEquals(BigInteger.valueOf(3), iterator.next().getSignatureCounter());
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        assertFalse(iterator.file.isOpen());
+        assertEquals(BigInteger.valueOf(5), streaming.getSortedLogMessages().get(4).getSignatureCounter());
+    }
+
+    static List<String> describeErrors(ValidationResult result) {
+        ArrayList<String> errors = new ArrayList<>();
+        for (ValidationException e : result.getValidationErrors()) {
+            errors.add(e.getClass().getName() + " " + ((e instanceof LogMessageValidationException) ? ((LogMessageValidationException) e).getLogMessage().getFileName() : ""));
+        }
+        Collections.sort(errors);
+        return errors;
+    }
+
+    static AggregatedValidator defaultValidators() {
+        return new AggregatedValidator()
+                .add(new CertificateFileNameValidator())
+                .add(new TimeStampValidator())
+                .add(new SignatureCounterValidator())
+                .add(new LogMessageFileNameValidator())
+                .add(new DuplicateLogMessageValidator())
+                .add(new LogMessageSignatureValidator());
+    }
+
+    @Test
+    public void defaultValidatorsUseExternalSortOfStreamingArchive() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 0; i < 30; i++) {
+            // counters in mixed order, two serial numbers, counter 0 of each serial number is missing:
+            String serial = (i % 2 == 0) ? "Serial" : "Other";
+            builder.addAuditLogMessage(serial.getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(1 + (i * 7) % 15), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File tar = builder.write(Files.createTempFile(exportDir, "streaming", ".tar").toFile());
+
+        LogMessageArchiveImplementation eager = new LogMessageArchiveImplementation(tar);
+        LogMessageArchiveImplementation streaming = new LogMessageArchiveImplementation().setStreaming(true).setMaxSortRecordsInMemory(4).parse(tar);
+        assertFalse(streaming.isInMemory());
+
+        ValidationResult expected = defaultValidators().validate(eager);
+        ValidationResult result = defaultValidators().validate(streaming);
+        assertEquals(describeErrors(expected), describeErrors(result));
+
+        // the partitioned validators did not group the log messages in memory, but used the external sort:
+        assertTrue(streaming.sortedLogMessages instanceof LogMessageArchiveImplementation.SortedStreamedLogMessages);
+        assertTrue(((LogMessageArchiveImplementation.SortedStreamedLogMessages) streaming.sortedLogMessages).externalSort.runs.size() > 1);
+        streaming.close();
+    }
+
+    @Test
+    public void aggregatedStreamingArchivesAreMerged() throws Exception {
+        LogMessageArchiveFileBuilder first = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 1; i <= 10; i++) {
+            first.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        // the second export overlaps with the first one:
+        LogMessageArchiveFileBuilder second = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 6; i <= 10; i++) {
+            second.addEntry(first.getName(i), first.getContent(i));
+        }
+        for (int i = 11; i <= 15; i++) {
+            second.addAuditLogMessage("Serial".getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        List<File> tars = List.of(
+                first.write(Files.createTempFile(exportDir, "streaming", ".tar").toFile()),
+                second.write(Files.createTempFile(exportDir, "streaming", ".tar").toFile()));
+
+        AggregatedLogMessageArchive aggregated = AggregatedLogMessageArchive.fromFiles(tars,
+                f -> new LogMessageArchiveImplementation().setStreaming(true).setMaxSortRecordsInMemory(4).parse(f));
+
+        assertEquals(15, aggregated.getSortedLogMessages().size());
+        BigInteger expected = BigInteger.ONE;
+        for (LogMessage msg : aggregated.getSortedLogMessages()) {
+            assertEquals(expected, msg.getSignatureCounter());
+            expected = expected.add(BigInteger.ONE);
+        }
+        assertEquals(5, aggregated.getDuplicates().size());
+    }
+
+    @Test
+    public void aggregatedArchivesAreLoadedConcurrently() throws Exception {
+        List<File> tars = List.of(createTar(5), createTar(3), createTar(4));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            AggregatedLogMessageArchive aggregated = AggregatedLogMessageArchive.fromFiles(tars, LogMessageArchiveImplementation::new, executor);
+
+            // the archives keep the order of the files:
+            assertEquals(tars.get(0).getName() + ";" + tars.get(1).getName() + ";" + tars.get(2).getName() + ";", aggregated.getFileName());
+            assertEquals(12, aggregated.getLogMessages().size());
+            assertEquals(0, aggregated.getDuplicates().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = BadFormatForTARException.class)
+    public void aggregatedLoadingPassesOnErrors() throws Exception {
+        File broken = Files.createTempFile(exportDir, "streaming", ".tar").toFile();
+        new LogMessageArchiveFileBuilder().write(broken);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            AggregatedLogMessageArchive.fromFiles(List.of(createTar(2), broken), LogMessageArchiveImplementation::new, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void lazyParsingYieldsSameMessages() throws Exception {
+        File tar = createTar(10);
+
+        LogMessageArchiveImplementation eager = new LogMessageArchiveImplementation(tar);
+        LogMessageArchiveImplementation lazy = new LogMessageArchiveImplementation().setLazyParsing(true).parse(tar);
+
+        assertEquals(eager.getLogMessages(), new ArrayList<>(lazy.getLogMessages()));
+        for (LogMessage msg : lazy.getLogMessages()) {
+            assertTrue(msg instanceof LazyLogMessage);
+        }
+        assertEquals(eager.getSortedLogMessages().get(0).getSignatureCounter(), lazy.getSortedLogMessages().get(0).getSignatureCounter());
+    }
+
+    @Test(expected = BadFormatForTARException.class)
+    public void streamingRequiresInfoCsv() throws Exception {
+        File tar = Files.createTempFile(exportDir, "streaming", ".tar").toFile();
+        new LogMessageArchiveFileBuilder().write(tar);
+        new LogMessageArchiveImplementation().setStreaming(true).parse(tar);
+    }
+}
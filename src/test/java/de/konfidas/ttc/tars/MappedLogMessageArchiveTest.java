@@ -0,0 +1,120 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.exceptions.BadFormatForTARException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.metrics.Metrics;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedLogMessageArchiveTest extends TestCaseBasisWithCA {
+    final byte[] serial = "Serial".getBytes(StandardCharsets.UTF_8);
+
+    File createTar() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder()
+                .addInfoCsv()
+                .addCertificate(Hex.encodeHexString(serial).toUpperCase(), getClientCertificate());
+        for (int i = 30; i > 0; i--) {
+            builder.addAuditLogMessage(serial, BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        return builder.write(Files.createTempFile(exportDir, "mapped", ".tar").toFile());
+    }
+
+    @Test
+    public void mappedArchiveEqualsParsedArchive() throws Exception {
+        File tar = createTar();
+        LogMessageArchiveImplementation parsed = new LogMessageArchiveImplementation(tar);
+        MappedLogMessageArchive mapped = new MappedLogMessageArchive(tar);
+
+        assertEquals(parsed.getLogMessages(), new ArrayList<>(mapped.getLogMessages()));
+        assertEquals(parsed.getSortedLogMessages(), new ArrayList<>(mapped.getSortedLogMessages()));
+        assertEquals(parsed.getClientCertificates(), mapped.getClientCertificates());
+        assertEquals(1, mapped.getCertificateEntries().size());
+    }
+
+    @Test
+    public void sortsBySignatureCounterOfLogMessage() throws Exception {
+        LogMessageArchiveFileBuilder messages = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 1; i <= 3; i++) {
+            messages.addAuditLogMessage(serial, BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        // the file names of the first and the last log message are swapped:
+        File tar = new LogMessageArchiveFileBuilder().addInfoCsv()
+                .addEntry(messages.getName(3), messages.getContent(1))
+                .addEntry(messages.getName(2), messages.getContent(2))
+                .addEntry(messages.getName(1), messages.getContent(3))
+                .write(Files.createTempFile(exportDir, "mapped", ".tar").toFile());
+
+        LogMessageArchiveImplementation parsed = new LogMessageArchiveImplementation(tar);
+        MappedLogMessageArchive mapped = new MappedLogMessageArchive(tar);
+        assertEquals(parsed.getSortedLogMessages(), new ArrayList<>(mapped.getSortedLogMessages()));
+        assertEquals(BigInteger.ONE, mapped.getSortedLogMessages().get(0).getSignatureCounter());
+
+        // ranges are looked up by the file names, but log messages with another counter are left out:
+        assertTrue(mapped.getLogMessages(BigInteger.ONE, BigInteger.ONE).isEmpty());
+        List<LogMessage> range = mapped.getLogMessages(BigInteger.valueOf(2), BigInteger.valueOf(2));
+        assertEquals(1, range.size());
+        assertEquals(BigInteger.valueOf(2), range.get(0).getSignatureCounter());
+    }
+
+    @Test
+    public void rangeOfSignatureCounters() throws Exception {
+        Metrics metrics = new Metrics();
+        MappedLogMessageArchive mapped = new MappedLogMessageArchive(createTar()).setMetrics(metrics);
+
+        List<LogMessage> range = mapped.getLogMessages(BigInteger.valueOf(10), BigInteger.valueOf(14));
+        assertEquals(5, range.size());
+        for (int i = 0; i < range.size(); i++) {
+            assertEquals(BigInteger.valueOf(10 + i), range.get(i).getSignatureCounter());
+        }
+        // only the log messages in the range were decoded:
+        assertEquals(5, metrics.phase(LogMessageArchiveImplementation.DECODE_PHASE).getItems());
+
+        assertTrue(mapped.getLogMessages(BigInteger.valueOf(31), BigInteger.valueOf(40)).isEmpty());
+        assertTrue(mapped.getLogMessages(BigInteger.valueOf(14), BigInteger.valueOf(10)).isEmpty());
+    }
+
+    @Test
+    public void longFileNames() throws Exception {
+        File tar = Files.createTempFile(exportDir, "mapped", ".tar").toFile();
+        LogMessageArchiveFileBuilder source = new LogMessageArchiveFileBuilder();
+        source.addAuditLogMessage(serial, BigInteger.ONE, 1600000000L, getClientCertKeyPair().getPrivate());
+
+        StringBuilder longName = new StringBuilder("Unixt_1600000000");
+        while (longName.length() < 150) {
+            longName.append("0");
+        }
+        longName.append("_Sig-1_Log-Aud.log");
+
+        new LogMessageArchiveFileBuilder()
+                .addInfoCsv()
+                .addEntry(longName.toString(), source.getContent(0))
+                .write(tar);
+
+        MappedLogMessageArchive mapped = new MappedLogMessageArchive(tar);
+        assertEquals(1, mapped.getLogMessageEntries().size());
+        assertEquals(longName.toString(), mapped.getLogMessageEntries().get(0).getName());
+        assertEquals(BigInteger.ONE, mapped.getLogMessages().get(0).getSignatureCounter());
+    }
+
+    @Test(expected = BadFormatForTARException.class)
+    public void infoCsvIsRequired() throws Exception {
+        File tar = Files.createTempFile(exportDir, "mapped", ".tar").toFile();
+        new LogMessageArchiveFileBuilder().write(tar);
+        new MappedLogMessageArchive(tar);
+    }
+}
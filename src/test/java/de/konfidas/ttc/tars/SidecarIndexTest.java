@@ -0,0 +1,92 @@
+package de.konfidas.ttc.tars;
+
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class SidecarIndexTest extends TestCaseBasisWithCA {
+
+    File createTar() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int i = 1; i <= 20; i++) {
+            builder.addAuditLogMessage(("Serial" + (i % 2)).getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        return builder.write(Files.createTempFile(exportDir, "indexed", ".tar").toFile());
+    }
+
+    @Test
+    public void indexIsWrittenAndUsed() throws Exception {
+        File tar = createTar();
+        LogMessageArchiveImplementation first = new LogMessageArchiveImplementation().setUseSidecarIndex(true).parse(tar);
+        assertTrue(SidecarIndex.indexFileFor(tar).isFile());
+        // the index is moved into place, so no temporary file is left:
+        assertFalse(new File(SidecarIndex.indexFileFor(tar).getPath() + ".tmp").exists());
+        assertFalse(first.getLogMessages().iterator().next() instanceof IndexedLogMessage);
+
+        LogMessageArchiveImplementation second = new LogMessageArchiveImplementation().setUseSidecarIndex(true).parse(tar);
+        assertEquals(first.getLogMessages().size(), second.getLogMessages().size());
+
+        LogMessage[] expected = first.getLogMessages().toArray(new LogMessage[0]);
+        SharedTarFile sharedTarFile = ((IndexedLogMessage) second.getLogMessages().iterator().next()).tarFile;
+        int i = 0;
+        for (LogMessage msg : second.getLogMessages()) {
+            assertTrue(msg instanceof IndexedLogMessage);
+            assertSame(sharedTarFile, ((IndexedLogMessage) msg).tarFile);
+            assertEquals(expected[i].getFileName(), msg.getFileName());
+            assertEquals(expected[i].getSignatureCounter(), msg.getSignatureCounter());
+            assertArrayEquals(expected[i].getSerialNumber(), msg.getSerialNumber());
+            assertEquals(expected[i].getLogTime(), msg.getLogTime());
+            assertEquals(expected[i].getLogTime().toString(), msg.getLogTime().toString());
+            assertEquals(expected[i].getClass().getName(), ((IndexedLogMessage) msg).getMessageType());
+            // reads and parses the log message from the TAR file:
+            assertArrayEquals(expected[i].getEncoded(), msg.getEncoded());
+            assertEquals(expected[i], msg);
+            i++;
+        }
+        // all log messages were read through one channel:
+        assertTrue(sharedTarFile.channel.isOpen());
+        FileChannel channel = sharedTarFile.channel;
+        ((IndexedLogMessage) second.getLogMessages().iterator().next()).getLogMessage();
+        assertSame(channel, sharedTarFile.channel);
+        // closing the archive closes the TAR file, so that it is no longer locked:
+        assertSame(sharedTarFile, second.sharedTarFile);
+        second.close();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void changedTarInvalidatesIndex() throws Exception {
+        File tar = createTar();
+        new LogMessageArchiveImplementation().setUseSidecarIndex(true).parse(tar);
+        long modified = tar.lastModified();
+
+        // change a byte of the padding of the last block, keeping size and modification time:
+        try (RandomAccessFile file = new RandomAccessFile(tar, "rw")) {
+            file.seek(file.length() - 1);
+            file.write(1);
+        }
+        assertTrue(tar.setLastModified(modified));
+
+        LogMessageArchiveImplementation second = new LogMessageArchiveImplementation().setUseSidecarIndex(true).parse(tar);
+        assertFalse(second.getLogMessages().iterator().next() instanceof IndexedLogMessage);
+    }
+
+    @Test
+    public void outdatedIndexIsIgnored() throws Exception {
+        File tar = createTar();
+        new LogMessageArchiveImplementation().setUseSidecarIndex(true).parse(tar);
+        assertTrue(tar.setLastModified(tar.lastModified() - 10000));
+
+        assertNull(SidecarIndex.read(tar));
+    }
+}
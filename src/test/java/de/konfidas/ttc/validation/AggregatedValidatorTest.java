@@ -0,0 +1,334 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.LogMessageValidationException;
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AggregatedValidatorTest extends TestCaseBasisWithCA {
+
+    /**
+     * Counts, how often the log messages of the archive are requested.
+     */
+    static class CountingArchive implements LogMessageArchive {
+        final LogMessageArchive tar;
+        int passes = 0;
+
+        CountingArchive(LogMessageArchive tar) {
+            this.tar = tar;
+        }
+
+        @Override
+        public Map<? extends String, ? extends X509Certificate> getIntermediateCertificates() {
+            return tar.getIntermediateCertificates();
+        }
+
+        @Override
+        public Map<? extends String, ? extends X509Certificate> getClientCertificates() {
+            return tar.getClientCertificates();
+        }
+
+        @Override
+        public Collection<? extends LogMessage> getLogMessages() {
+            passes++;
+            return tar.getLogMessages();
+        }
+
+        @Override
+        public Collection<? extends LogMessage> getSortedLogMessages() {
+            passes++;
+            return tar.getSortedLogMessages();
+        }
+
+        @Override
+        public String getFileName() {
+            return tar.getFileName();
+        }
+    }
+
+    LogMessageArchive createArchive() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        byte[] serial = "Serial".getBytes(StandardCharsets.UTF_8);
+        byte[] unknownSerial = "Unknown".getBytes(StandardCharsets.UTF_8);
+
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder()
+                .addInfoCsv()
+                .addCertificate(Hex.encodeHexString(serial).toUpperCase(), getClientCertificate());
+        for (int i = 1; i <= 40; i++) {
+            if (i % 9 == 0) {
+                // missing signature counter
+                continue;
+            }
+            // the log time goes back for every tenth message, and there is no certificate for every seventh
+            long logTime = 1600000000L + ((i % 10 == 0) ? -i : i);
+            builder.addAuditLogMessage((i % 7 == 0) ? unknownSerial : serial, BigInteger.valueOf(i), logTime, getClientCertKeyPair().getPrivate());
+        }
+        File tar = builder.write(Files.createTempFile(exportDir, "aggregated", ".tar").toFile());
+        return new LogMessageArchiveImplementation(tar);
+    }
+
+    static List<Supplier<Validator>> validators() {
+        return Arrays.asList(CertificateFileNameValidator::new, TimeStampValidator::new, SignatureCounterValidator::new,
+                LogMessageFileNameValidator::new, LogMessageSignatureValidator::new);
+    }
+
+    static List<String> describeInOrder(Collection<ValidationException> errors) {
+        ArrayList<String> result = new ArrayList<>();
+        for (ValidationException e : errors) {
+            String name = (e instanceof LogMessageValidationException) ? ((LogMessageValidationException) e).getLogMessage().getFileName() : "";
+            result.add(e.getClass().getName() + ":" + name);
+        }
+        return result;
+    }
+
+    static List<String> describe(Collection<ValidationException> errors) {
+        List<String> result = describeInOrder(errors);
+        Collections.sort(result);
+        return result;
+    }
+
+    static AggregatedValidator createAggregatedValidator() {
+        AggregatedValidator aggregated = new AggregatedValidator();
+        for (Supplier<Validator> v : validators()) {
+            aggregated.add(v.get());
+        }
+        return aggregated;
+    }
+
+    /**
+     * A validator, which records when it starts and finishes, and waits for the given latch in between.
+     */
+    static class RecordingValidator implements Validator {
+        final String name;
+        final List<String> events;
+        final CountDownLatch latch;
+
+        RecordingValidator(String name, List<String> events, CountDownLatch latch) {
+            this.name = name;
+            this.events = events;
+            this.latch = latch;
+        }
+
+        @Override
+        public ValidationResult validate(LogMessageArchive tar) {
+            events.add("start " + name);
+            latch.countDown();
+            try {
+                if (!latch.await(10, TimeUnit.SECONDS)) {
+                    events.add("timeout " + name);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add("end " + name);
+            return new ValidationResultImpl().append(Collections.singleton(this), Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void fusedValidationFindsSameErrors() throws Exception {
+        LogMessageArchive tar = createArchive();
+
+        ValidationResult fused = createAggregatedValidator().validate(tar);
+
+        ArrayList<ValidationException> separate = new ArrayList<>();
+        for (Supplier<Validator> v : validators()) {
+            separate.addAll(v.get().validate(tar).getValidationErrors());
+        }
+
+        assertEquals(describe(separate), describe(fused.getValidationErrors()));
+        assertEquals(validators().size(), fused.getValidators().size());
+    }
+
+    @Test
+    public void logMessagesAreTraversedOnce() throws Exception {
+        CountingArchive tar = new CountingArchive(createArchive());
+
+        ValidationResult result = createAggregatedValidator().validate(tar);
+
+        assertEquals(1, tar.passes);
+        // the errors of each validator are kept together, in the order of the validators
+        Iterator<Validator> validatorIterator = result.getValidators().iterator();
+        assertEquals(CertificateFileNameValidator.class, validatorIterator.next().getClass());
+        assertEquals(TimeStampValidator.class, validatorIterator.next().getClass());
+    }
+
+    @Test
+    public void concurrentValidationIsDeterministic() throws Exception {
+        LogMessageArchive tar = createArchive();
+        ValidationResult sequential = createAggregatedValidator().validate(tar);
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (int i = 0; i < 3; i++) {
+                ValidationResult concurrent = createAggregatedValidator().setExecutor(executor).validate(tar);
+                assertEquals(describeInOrder(sequential.getValidationErrors()), describeInOrder(concurrent.getValidationErrors()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void independentValidatorsRunConcurrently() {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        // both validators wait for each other, so they only finish in time, if they run at the same time
+        CountDownLatch latch = new CountDownLatch(2);
+        RecordingValidator first = new RecordingValidator("first", events, latch);
+        RecordingValidator second = new RecordingValidator("second", events, latch);
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ValidationResult result = new AggregatedValidator().setExecutor(executor).add(first).add(second).validate(new CountingArchive(null));
+            assertFalse(events.contains("timeout first"));
+            assertFalse(events.contains("timeout second"));
+            assertEquals(Arrays.asList(first, second), new ArrayList<>(result.getValidators()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void dependenciesFinishFirst() {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(0);
+        RecordingValidator first = new RecordingValidator("first", events, done);
+        RecordingValidator second = new RecordingValidator("second", events, done);
+        RecordingValidator third = new RecordingValidator("third", events, done);
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            new AggregatedValidator().setExecutor(executor)
+                    .add(first)
+                    .add(second, first)
+                    .add(third, second)
+                    .validate(new CountingArchive(null));
+            assertEquals(Arrays.asList("start first", "end first", "start second", "end second", "start third", "end third"), events);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dependenciesMustBeAddedBefore() {
+        new AggregatedValidator().add(new TimeStampValidator(), new SignatureCounterValidator());
+    }
+
+    /**
+     * Records the serial numbers and signature counters passed to each of its visitors.
+     */
+    static class PartitionRecordingValidator implements LogMessageValidator {
+        final List<List<String>> passes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public boolean requiresSortedLogMessages() {
+            return true;
+        }
+
+        @Override
+        public boolean isPartitionedBySerialNumber() {
+            return true;
+        }
+
+        @Override
+        public Visitor createVisitor(LogMessageArchive tar) {
+            List<String> pass = new ArrayList<>();
+            passes.add(pass);
+            return new Visitor() {
+                @Override
+                public void visit(LogMessage msg) {
+                    pass.add(new String(msg.getSerialNumber(), StandardCharsets.UTF_8) + ":" + msg.getSignatureCounter());
+                }
+
+                @Override
+                public Collection<ValidationException> finish() {
+                    return Collections.emptyList();
+                }
+            };
+        }
+    }
+
+    @Test
+    public void partitionsAreValidatedSeparately() throws Exception {
+        CountingArchive tar = new CountingArchive(createArchive());
+        PartitionRecordingValidator validator = new PartitionRecordingValidator();
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            new AggregatedValidator().setExecutor(executor).add(validator).add(new LogMessageFileNameValidator()).validate(tar);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, tar.passes);
+        assertEquals(2, validator.passes.size());
+        for (List<String> pass : validator.passes) {
+            String serial = pass.get(0).split(":")[0];
+            long previous = 0;
+            for (String msg : pass) {
+                assertEquals(serial, msg.split(":")[0]);
+                long counter = Long.parseLong(msg.split(":")[1]);
+                assertTrue(counter > previous);
+                previous = counter;
+            }
+        }
+        assertEquals(5, validator.passes.stream().filter(p -> p.get(0).startsWith("Unknown")).findFirst().get().size());
+    }
+
+    @Test
+    public void partitionsAreBatchedPerThread() throws Exception {
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder().addInfoCsv();
+        for (int serial = 0; serial < 30; serial++) {
+            // the signature counter 2 is missing for every serial number:
+            for (int i : new int[]{1, 3}) {
+                builder.addAuditLogMessage(("Serial" + serial).getBytes(StandardCharsets.UTF_8), BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+            }
+        }
+        LogMessageArchive tar = new LogMessageArchiveImplementation(builder.write(Files.createTempFile(exportDir, "aggregated", ".tar").toFile()));
+        List<String> expected = describeInOrder(new AggregatedValidator().add(new SignatureCounterValidator()).validate(tar).getValidationErrors());
+        assertEquals(30, expected.size());
+
+        AtomicInteger tasks = new AtomicInteger();
+        ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                tasks.incrementAndGet();
+                super.execute(command);
+            }
+        };
+        try {
+            ValidationResult result = new AggregatedValidator().setExecutor(executor, 1).add(new SignatureCounterValidator()).validate(tar);
+            assertEquals(expected, describeInOrder(result.getValidationErrors()));
+        } finally {
+            executor.shutdown();
+        }
+        // one task partitions the log messages, the others validate batches of serial numbers:
+        assertEquals(1 + AggregatedValidator.PARTITION_TASKS_PER_THREAD, tasks.get());
+    }
+}
@@ -0,0 +1,68 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.messages.LogMessageFactory;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogMessageFileNameValidatorTest {
+    static LogMessageArchive archiveOf(List<LogMessage> messages) {
+        return new LogMessageArchive() {
+            @Override
+            public Map<String, X509Certificate> getIntermediateCertificates() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public Map<String, X509Certificate> getClientCertificates() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public Collection<? extends LogMessage> getLogMessages() {
+                return messages;
+            }
+
+            @Override
+            public Collection<? extends LogMessage> getSortedLogMessages() {
+                return messages;
+            }
+
+            @Override
+            public String getFileName() {
+                return "";
+            }
+        };
+    }
+
+    @Test
+    public void matchingCountersAreAccepted() throws Exception {
+        List<LogMessage> messages = new ArrayList<>();
+        for (File file : new File("testdata/systemlogs/unblockuser/").listFiles()) {
+            messages.add(LogMessageFactory.createLogMessage(file));
+        }
+        assertTrue(new LogMessageFileNameValidator().validate(archiveOf(messages)).getValidationErrors().isEmpty());
+    }
+
+    @Test
+    public void mismatchingCounterIsReported() throws Exception {
+        byte[] content = Files.readAllBytes(new File("testdata/logMessages/Unixt_1607363188_Sig-11_Log-Sys_unblockUser.log").toPath());
+        LogMessage msg = LogMessageFactory.createLogMessage("Unixt_1607363188_Sig-12_Log-Sys_unblockUser.log", content);
+
+        Collection<ValidationException> errors = new LogMessageFileNameValidator().validate(archiveOf(Collections.singletonList(msg))).getValidationErrors();
+        assertEquals(1, errors.size());
+        LogMessageFileNameValidator.SignatureCounterMismatchException e = (LogMessageFileNameValidator.SignatureCounterMismatchException) errors.iterator().next();
+        assertEquals(BigInteger.valueOf(12), e.getCounterInFileName());
+        assertEquals(BigInteger.valueOf(11), e.getCounterInLogMessage());
+    }
+}
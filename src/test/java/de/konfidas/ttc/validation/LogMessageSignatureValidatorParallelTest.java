@@ -0,0 +1,59 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.messages.LogMessageSignatureVerifier;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogMessageSignatureValidatorParallelTest extends TestCaseBasisWithCA {
+
+    @Test
+    public void parallelValidationReportsErrorsInOrder() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        byte[] serial = "Serial".getBytes(StandardCharsets.UTF_8);
+        byte[] unknownSerial = "Unknown".getBytes(StandardCharsets.UTF_8);
+
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder()
+                .addInfoCsv()
+                .addCertificate(Hex.encodeHexString(serial).toUpperCase(), getClientCertificate());
+        for (int i = 1; i <= 600; i++) {
+            // there is no certificate for every seventh message:
+            builder.addAuditLogMessage((i % 7 == 0) ? unknownSerial : serial, BigInteger.valueOf(i), 1600000000L + i, getClientCertKeyPair().getPrivate());
+        }
+        File tar = builder.write(Files.createTempFile(exportDir, "signatures", ".tar").toFile());
+        LogMessageArchiveImplementation archive = new LogMessageArchiveImplementation(tar);
+
+        ArrayList<ValidationException> sequential = new ArrayList<>(new LogMessageSignatureValidator().validate(archive).getValidationErrors());
+        long missingCertificates = sequential.stream()
+                .filter(e -> e.getCause() instanceof LogMessageSignatureVerifier.CertificateNotFoundException)
+                .count();
+        assertEquals(600 / 7, missingCertificates);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<ValidationException> parallel = new ArrayList<>(new LogMessageSignatureValidator(executor, 4).validate(archive).getValidationErrors());
+            assertEquals(sequential.size(), parallel.size());
+            for (int i = 0; i < sequential.size(); i++) {
+                assertEquals(((LogMessageSignatureValidator.LogMessageSignatureValidationException) sequential.get(i)).getLogMessage(),
+                        ((LogMessageSignatureValidator.LogMessageSignatureValidationException) parallel.get(i)).getLogMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
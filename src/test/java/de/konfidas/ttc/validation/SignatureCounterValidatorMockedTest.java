@@ -194,6 +194,22 @@ public class SignatureCounterValidatorMockedTest {
         assertTrue(validator.validate(tar).getValidationErrors().size()==1);
     }
 
+    @Test
+    public void testCountersBeyondLong(){
+        SignatureCounterValidator validator = new SignatureCounterValidator();
+        LogMessageArchive tar = new TestTar();
+
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        this.messages.add(new LogMessageMock(max.subtract(BigInteger.ONE)));
+        this.messages.add(new LogMessageMock(max));
+        this.messages.add(new LogMessageMock(max.add(BigInteger.ONE)));
+        this.messages.add(new LogMessageMock(max.add(BigInteger.ONE)));
+        this.messages.add(new LogMessageMock(max.add(BigInteger.valueOf(3))));
+
+        // the first counter is missing, one is duplicate and one is missing
+        assertTrue(validator.validate(tar).getValidationErrors().size()==3);
+    }
+
 
     // Testing multiple serial numbers in one tar:
 
@@ -0,0 +1,79 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessage;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ValidationErrorIndexTest {
+
+    static LogMessageArchive createTar(int... signatureCounters) {
+        ArrayList<LogMessage> messages = new ArrayList<>();
+        for (int c : signatureCounters) {
+            messages.add(new SignatureCounterValidatorMockedTest.LogMessageMock(BigInteger.valueOf(c)));
+        }
+        return new LogMessageArchive() {
+            @Override
+            public Map<String, X509Certificate> getIntermediateCertificates() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public Map<String, X509Certificate> getClientCertificates() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public Collection<LogMessage> getLogMessages() {
+                return messages;
+            }
+
+            @Override
+            public Collection<LogMessage> getSortedLogMessages() {
+                return messages;
+            }
+
+            @Override
+            public String getFileName() {
+                return "";
+            }
+        };
+    }
+
+    @Test
+    public void errorsAreIndexedByLogMessage() {
+        SignatureCounterValidator signatureCounterValidator = new SignatureCounterValidator();
+        TimeStampValidator timeStampValidator = new TimeStampValidator();
+        ValidationResult result = new AggregatedValidator()
+                .add(signatureCounterValidator)
+                .add(new AggregatedValidator().add(timeStampValidator))
+                .validate(createTar(1, 2, 4, 6));
+
+        ValidationErrorIndex index = result.getErrorIndex();
+        assertSame(index, result.getErrorIndex());
+        assertEquals(2, index.getNumberOfErrors());
+        assertEquals(2, index.getNumberOfLogMessagesWithErrors());
+        assertTrue(index.getGeneralErrors().isEmpty());
+
+        // the lookup does not depend on the instance of the log message:
+        assertTrue(index.getErrors(new SignatureCounterValidatorMockedTest.LogMessageMock(BigInteger.TWO)).isEmpty());
+        List<?> errors = index.getErrors(new SignatureCounterValidatorMockedTest.LogMessageMock(BigInteger.valueOf(4)));
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof SignatureCounterValidator.SignatureCounterMissingException);
+        assertTrue(index.getErrors(new SignatureCounterValidatorMockedTest.LogMessageMock(BigInteger.valueOf(6)),
+                Collections.singleton(SignatureCounterValidator.SignatureCounterMissingException.class)).isEmpty());
+
+        assertEquals(Collections.singletonMap(SignatureCounterValidator.SignatureCounterMissingException.class, 2), index.getErrorCountsByClass());
+        assertEquals(Integer.valueOf(2), index.getErrorCountsByValidator().get(signatureCounterValidator));
+        assertEquals(Integer.valueOf(0), index.getErrorCountsByValidator().get(timeStampValidator));
+        for (ValidationException e : result.getValidationErrors()) {
+            assertSame(signatureCounterValidator, index.getValidator(e));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package de.konfidas.ttc.validation;
+
+import de.konfidas.ttc.exceptions.ValidationException;
+import de.konfidas.ttc.messages.LogMessageArchiveFileBuilder;
+import de.konfidas.ttc.setup.TestCaseBasisWithCA;
+import de.konfidas.ttc.tars.LogMessageArchive;
+import de.konfidas.ttc.tars.LogMessageArchiveImplementation;
+import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.Security;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ValidatorCheckpointTest extends TestCaseBasisWithCA {
+    static final byte[] SERIAL = "CheckpointSerial".getBytes(StandardCharsets.UTF_8);
+
+    LogMessageArchive createArchive(int firstCounter, int lastCounter, long firstLogTime) throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        LogMessageArchiveFileBuilder builder = new LogMessageArchiveFileBuilder()
+                .addInfoCsv()
+                .addCertificate(Hex.encodeHexString(SERIAL).toUpperCase(), getClientCertificate());
+        for (int i = firstCounter; i <= lastCounter; i++) {
+            builder.addAuditLogMessage(SERIAL, BigInteger.valueOf(i), firstLogTime + i - firstCounter, getClientCertKeyPair().getPrivate());
+        }
+        File tar = builder.write(Files.createTempFile(exportDir, "checkpoint", ".tar").toFile());
+        return new LogMessageArchiveImplementation(tar);
+    }
+
+    static AggregatedValidator createValidator() {
+        return new AggregatedValidator()
+                .add(new TimeStampValidator())
+                .add(new SignatureCounterValidator())
+                .add(new TransactionCounterValidator());
+    }
+
+    @Test
+    public void restoredStateContinuesValidation() throws Exception {
+        LogMessageArchive first = createArchive(1, 10, 1600000000L);
+        // the counter 11 is missing, and the log time goes back
+        LogMessageArchive second = createArchive(12, 20, 1600000005L);
+
+        AggregatedValidator continuous = createValidator();
+        continuous.validate(first);
+        Collection<ValidationException> expected = continuous.validate(second).getValidationErrors();
+        assertEquals(2, expected.size());
+
+        File checkpoint = Files.createTempFile(exportDir, "checkpoint", ".ttcstate").toFile();
+        AggregatedValidator firstRun = createValidator();
+        assertTrue(firstRun.validate(first).getValidationErrors().isEmpty());
+        ValidatorCheckpoint.write(checkpoint, firstRun);
+
+        AggregatedValidator secondRun = createValidator();
+        assertTrue(ValidatorCheckpoint.read(checkpoint, secondRun));
+        List<String> restored = AggregatedValidatorTest.describeInOrder(secondRun.validate(second).getValidationErrors());
+
+        assertEquals(AggregatedValidatorTest.describeInOrder(expected), restored);
+        // without the checkpoint, the second archive is validated as if it was the first one
+        assertEquals(1, createValidator().validate(second).getValidationErrors().size());
+    }
+
+    @Test
+    public void missingCheckpointIsNotRestored() throws Exception {
+        File checkpoint = new File(exportDir.toFile(), "notExisting.ttcstate");
+        assertFalse(ValidatorCheckpoint.read(checkpoint, createValidator()));
+    }
+
+    @Test(expected = ValidatorCheckpoint.CheckpointFormatException.class)
+    public void unknownFormatIsRejected() throws Exception {
+        File checkpoint = Files.createTempFile(exportDir, "checkpoint", ".ttcstate").toFile();
+        Files.write(checkpoint.toPath(), "no checkpoint".getBytes(StandardCharsets.UTF_8));
+        ValidatorCheckpoint.read(checkpoint, createValidator());
+    }
+
+    @Test
+    public void openTransactionsAreRestored() throws Exception {
+        TransactionCounterValidator validator = new TransactionCounterValidator();
+        validator.transactionCounter = BigInteger.valueOf(42);
+        validator.openTransactions.put(BigInteger.valueOf(41), new TransactionCounterValidator.OpenTransaction(BigInteger.valueOf(4711)));
+
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        validator.writeCheckpoint(new DataOutputStream(state));
+        TransactionCounterValidator restored = new TransactionCounterValidator();
+        restored.readCheckpoint(new DataInputStream(new ByteArrayInputStream(state.toByteArray())));
+
+        assertEquals(BigInteger.valueOf(42), restored.transactionCounter);
+        assertEquals(BigInteger.valueOf(4711), restored.openTransactions.get(BigInteger.valueOf(41)).signatureCounterLastUpdate);
+    }
+
+    @Test
+    public void validatedCertificatesAreBoundToTrustStore() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        File tar = new LogMessageArchiveFileBuilder()
+                .addInfoCsv()
+                .addCertificate("SUBCA", getSubCACertificate())
+                .addCertificate(Hex.encodeHexString(SERIAL).toUpperCase(), getClientCertificate())
+                .write(Files.createTempFile(exportDir, "checkpoint", ".tar").toFile());
+        LogMessageArchive archive = new LogMessageArchiveImplementation(tar);
+
+        CertificateValidator validator = new CertificateValidator(Collections.singleton(getRootCACertificate()))
+                .setEnableRevocationChecking(false);
+        assertTrue(validator.validate(archive).getValidationErrors().isEmpty());
+        assertEquals(1, validator.validatedCertificates.size());
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        validator.writeCheckpoint(new DataOutputStream(state));
+
+        // the client certificate is validated again against another trust store, which does not trust it:
+        CertificateValidator otherTrustStore = new CertificateValidator(Collections.singleton(getClientCertificate()))
+                .setEnableRevocationChecking(false);
+        otherTrustStore.readCheckpoint(new DataInputStream(new ByteArrayInputStream(state.toByteArray())));
+        assertEquals(1, otherTrustStore.validatedCertificates.size());
+        assertEquals(1, otherTrustStore.validate(archive).getValidationErrors().size());
+
+        // with revocation checking, certificates are always validated again:
+        CertificateValidator revocationChecking = new CertificateValidator(Collections.singleton(getRootCACertificate()));
+        revocationChecking.readCheckpoint(new DataInputStream(new ByteArrayInputStream(state.toByteArray())));
+        assertTrue(revocationChecking.validatedCertificates.isEmpty());
+        assertEquals(1, revocationChecking.validate(archive).getValidationErrors().size());
+        assertTrue(revocationChecking.validatedCertificates.isEmpty());
+    }
+}